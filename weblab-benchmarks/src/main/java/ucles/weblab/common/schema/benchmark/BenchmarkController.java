@@ -0,0 +1,40 @@
+package ucles.weblab.common.schema.benchmark;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import ucles.weblab.common.schema.webapi.EnumConstant;
+import ucles.weblab.common.schema.webapi.JsonSchema;
+import ucles.weblab.common.schema.webapi.JsonSchemaMetadata;
+
+import java.time.LocalDate;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Controller whose methods the benchmarks link to, as a schema's ID and to describe request parameters.
+ *
+ * @since 18/10/26
+ */
+@RequestMapping("/api/benchmark")
+public class BenchmarkController {
+    @GetMapping("/$schema")
+    public ResponseEntity<?> describe() {
+        return null;
+    }
+
+    @GetMapping("/{owner}/")
+    public ResponseEntity<?> search(@PathVariable String owner,
+                                    @RequestParam(required = false) @JsonSchemaMetadata(title = "Name", titleKey = "search.name") String name,
+                                    @RequestParam(required = false) @JsonSchema(enumValues = {
+                                            @EnumConstant(value = "OPEN", title = "Open"),
+                                            @EnumConstant(value = "CLOSED", title = "Closed")
+                                    }) String status,
+                                    @RequestParam(required = false) LocalDate from,
+                                    @RequestParam(defaultValue = "0") @Min(0) Integer page,
+                                    @RequestParam(defaultValue = "20") @Min(1) @Max(100) Integer size) {
+        return null;
+    }
+}
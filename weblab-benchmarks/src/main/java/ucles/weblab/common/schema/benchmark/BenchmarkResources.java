@@ -0,0 +1,304 @@
+package ucles.weblab.common.schema.benchmark;
+
+import org.springframework.hateoas.RepresentationModel;
+import ucles.weblab.common.schema.webapi.EnumConstant;
+import ucles.weblab.common.schema.webapi.JsonSchema;
+import ucles.weblab.common.schema.webapi.JsonSchemaMetadata;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Resources of the shapes the schema benchmarks are run against.
+ *
+ * @since 18/10/26
+ */
+@SuppressWarnings("unused")
+public final class BenchmarkResources {
+    private BenchmarkResources() {
+    }
+
+    /**
+     * A typical small resource, with a few annotated properties and an enum.
+     */
+    public static class SmallResource extends RepresentationModel<SmallResource> {
+        @NotNull
+        @JsonSchemaMetadata(title = "Name", titleKey = "small.name", order = 1)
+        @Size(min = 1, max = 100)
+        public String name;
+
+        @JsonSchemaMetadata(title = "Status", order = 2)
+        @JsonSchema(enumValues = {
+                @EnumConstant(value = "ACTIVE", title = "Active"),
+                @EnumConstant(value = "INACTIVE", title = "Inactive")
+        })
+        public String status;
+
+        @JsonSchema(readOnlyExpression = "#{#currentUser == null}")
+        public Instant created;
+    }
+
+    /**
+     * A resource with over 50 properties, declared out of order.
+     */
+    public static class WideResource extends RepresentationModel<WideResource> {
+        @JsonSchemaMetadata(title = "Field 0", order = 52)
+        @Size(max = 50)
+        public String field00;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field01;
+
+        public LocalDate field02;
+
+        public Boolean field03;
+
+        @JsonSchemaMetadata(title = "Field 4", order = 48)
+        @Size(max = 50)
+        public String field04;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field05;
+
+        public LocalDate field06;
+
+        public Boolean field07;
+
+        @JsonSchemaMetadata(title = "Field 8", order = 44)
+        @Size(max = 50)
+        public String field08;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field09;
+
+        public LocalDate field10;
+
+        public Boolean field11;
+
+        @JsonSchemaMetadata(title = "Field 12", order = 40)
+        @Size(max = 50)
+        public String field12;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field13;
+
+        public LocalDate field14;
+
+        public Boolean field15;
+
+        @JsonSchemaMetadata(title = "Field 16", order = 36)
+        @Size(max = 50)
+        public String field16;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field17;
+
+        public LocalDate field18;
+
+        public Boolean field19;
+
+        @JsonSchemaMetadata(title = "Field 20", order = 32)
+        @Size(max = 50)
+        public String field20;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field21;
+
+        public LocalDate field22;
+
+        public Boolean field23;
+
+        @JsonSchemaMetadata(title = "Field 24", order = 28)
+        @Size(max = 50)
+        public String field24;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field25;
+
+        public LocalDate field26;
+
+        public Boolean field27;
+
+        @JsonSchemaMetadata(title = "Field 28", order = 24)
+        @Size(max = 50)
+        public String field28;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field29;
+
+        public LocalDate field30;
+
+        public Boolean field31;
+
+        @JsonSchemaMetadata(title = "Field 32", order = 20)
+        @Size(max = 50)
+        public String field32;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field33;
+
+        public LocalDate field34;
+
+        public Boolean field35;
+
+        @JsonSchemaMetadata(title = "Field 36", order = 16)
+        @Size(max = 50)
+        public String field36;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field37;
+
+        public LocalDate field38;
+
+        public Boolean field39;
+
+        @JsonSchemaMetadata(title = "Field 40", order = 12)
+        @Size(max = 50)
+        public String field40;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field41;
+
+        public LocalDate field42;
+
+        public Boolean field43;
+
+        @JsonSchemaMetadata(title = "Field 44", order = 8)
+        @Size(max = 50)
+        public String field44;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field45;
+
+        public LocalDate field46;
+
+        public Boolean field47;
+
+        @JsonSchemaMetadata(title = "Field 48", order = 4)
+        @Size(max = 50)
+        public String field48;
+
+        @Min(0)
+        @Max(1000)
+        public Integer field49;
+
+        public LocalDate field50;
+
+        public Boolean field51;
+    }
+
+    /**
+     * A resource nested eight levels deep.
+     */
+    public static class NestedResource extends RepresentationModel<NestedResource> {
+        public String name;
+        public Level1 child;
+    }
+
+    public static class Level1 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level2 child;
+    }
+
+    public static class Level2 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level3 child;
+    }
+
+    public static class Level3 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level4 child;
+    }
+
+    public static class Level4 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level5 child;
+    }
+
+    public static class Level5 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level6 child;
+    }
+
+    public static class Level6 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level7 child;
+    }
+
+    public static class Level7 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+        public Level8 child;
+    }
+
+    public static class Level8 {
+        @JsonSchemaMetadata(title = "Name", titleKey = "level.name")
+        public String name;
+        public List<String> tags;
+    }
+
+    /**
+     * A composite resource which uses the same nested types in several places.
+     */
+    public static class CompositeResource extends RepresentationModel<CompositeResource> {
+        public String name;
+        public Address registeredAddress;
+        public Address billingAddress;
+        public Address shippingAddress;
+        public Contact primaryContact;
+        public List<Contact> contacts;
+    }
+
+    public static class Contact {
+        @NotNull
+        public String name;
+        public String email;
+        public Address address;
+    }
+
+    public static class Address {
+        @NotNull
+        @Size(max = 100)
+        public String line1;
+        @Size(max = 100)
+        public String line2;
+        public String town;
+        @Size(max = 10)
+        public String postcode;
+        @JsonSchema(enumValues = {
+                @EnumConstant(value = "GB", title = "United Kingdom"),
+                @EnumConstant(value = "FR", title = "France")
+        })
+        public String country;
+    }
+}
@@ -0,0 +1,54 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ucles.weblab.common.schema.webapi.ControllerMethodSchemaCreator;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Measures {@link ControllerMethodSchemaCreator#createForRequestParams} for a search method with typical paging and
+ * filter parameters.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ControllerMethodSchemaCreatorBenchmark {
+    private ControllerMethodSchemaCreator schemaCreator;
+    private Object controllerMethod;
+
+    @Setup
+    public void setUp() {
+        schemaCreator = new SchemaFixtures().controllerMethodSchemaCreator();
+        controllerMethod = methodOn(BenchmarkController.class).search("owner", null, null, null, 0, 20);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JsonSchema createForRequestParams(RequestContext requestContext) {
+        return schemaCreator.createForRequestParams(controllerMethod);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JsonSchema createForRequestParamsContended(RequestContext requestContext) {
+        return schemaCreator.createForRequestParams(controllerMethod);
+    }
+}
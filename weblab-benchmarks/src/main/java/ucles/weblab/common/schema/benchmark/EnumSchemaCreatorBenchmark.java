@@ -0,0 +1,62 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import com.fasterxml.jackson.module.jsonSchema.factories.JsonSchemaFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ucles.weblab.common.schema.webapi.EnumSchemaCreator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EnumSchemaCreator#createEnum(Map, java.util.function.Supplier)} for enums of 10 to 100,000 titled
+ * values.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EnumSchemaCreatorBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private final EnumSchemaCreator enumSchemaCreator = new EnumSchemaCreator();
+    private final JsonSchemaFactory schemaFactory = new JsonSchemaFactory();
+    private Map<String, String> enumValues;
+
+    @Setup
+    public void setUp() {
+        enumValues = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            enumValues.put("VALUE_" + i, "Value " + i);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JsonSchema createEnum() {
+        return enumSchemaCreator.createEnum(enumValues, schemaFactory::stringSchema);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JsonSchema createEnumContended() {
+        return enumSchemaCreator.createEnum(enumValues, schemaFactory::stringSchema);
+    }
+}
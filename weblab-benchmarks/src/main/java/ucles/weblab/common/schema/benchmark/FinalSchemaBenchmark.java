@@ -0,0 +1,57 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import ucles.weblab.common.schema.webapi.SuperSchemaFactoryWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SuperSchemaFactoryWrapper#finalSchema()} ordering the properties of the wide resource, which are
+ * declared out of order. Each invocation needs a freshly visited wrapper, so the visit is done in an invocation-level
+ * setup; this is only reasonable because visiting costs far more than the timer overhead JMH warns of.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FinalSchemaBenchmark {
+    private final SchemaFixtures fixtures = new SchemaFixtures();
+    private SuperSchemaFactoryWrapper wrapper;
+
+    @Setup(Level.Invocation)
+    public void visit() throws JsonMappingException {
+        wrapper = new SuperSchemaFactoryWrapper(fixtures.crossContextConversionService, fixtures.enumSchemaCreator,
+                fixtures.objectMapper, new StandardEvaluationContext(), fixtures.localisationService);
+        fixtures.objectMapper.acceptJsonFormatVisitor(BenchmarkResources.WideResource.class, wrapper);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JsonSchema finalSchema() {
+        return wrapper.finalSchema();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JsonSchema finalSchemaContended() {
+        return wrapper.finalSchema();
+    }
+}
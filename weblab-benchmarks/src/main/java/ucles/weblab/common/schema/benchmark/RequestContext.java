@@ -0,0 +1,30 @@
+package ucles.weblab.common.schema.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Binds a request to each benchmark thread, as the schema creators build links from the current request.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Thread)
+public class RequestContext {
+    @Setup(Level.Trial)
+    public void bind() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/benchmark/$schema");
+        request.setServerName("benchmark.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void unbind() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+}
@@ -0,0 +1,88 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ucles.weblab.common.schema.webapi.ResourceSchemaCreator;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Measures {@link ResourceSchemaCreator#create} for small, wide and deeply nested resources. The {@code create}
+ * benchmarks measure the steady state, once a resource's skeleton has been built. The {@code createCold} benchmarks
+ * discard the skeleton first, so measure introspecting the resource with Jackson on every call.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResourceSchemaCreatorBenchmark {
+    @Param({"small", "wide", "nested"})
+    public String shape;
+
+    private ResourceSchemaCreator schemaCreator;
+    private Class<?> resourceClass;
+    private Object schemaMethod;
+
+    @Setup
+    public void setUp() {
+        schemaCreator = new SchemaFixtures().resourceSchemaCreator();
+        schemaMethod = methodOn(BenchmarkController.class).describe();
+        switch (shape) {
+            case "small":
+                resourceClass = BenchmarkResources.SmallResource.class;
+                break;
+            case "wide":
+                resourceClass = BenchmarkResources.WideResource.class;
+                break;
+            case "nested":
+                resourceClass = BenchmarkResources.NestedResource.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JsonSchema create(RequestContext requestContext) {
+        return schemaCreator.create(resourceClass, schemaMethod, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JsonSchema createContended(RequestContext requestContext) {
+        return schemaCreator.create(resourceClass, schemaMethod, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JsonSchema createCold(RequestContext requestContext) {
+        schemaCreator.invalidateSchemas(resourceClass);
+        return schemaCreator.create(resourceClass, schemaMethod, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JsonSchema createColdContended(RequestContext requestContext) {
+        schemaCreator.invalidateSchemas(resourceClass);
+        return schemaCreator.create(resourceClass, schemaMethod, Optional.empty(), Optional.empty());
+    }
+}
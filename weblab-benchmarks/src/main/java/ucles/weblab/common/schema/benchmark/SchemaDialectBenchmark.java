@@ -0,0 +1,99 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ucles.weblab.common.schema.webapi.Draft202012SchemaConverter;
+import ucles.weblab.common.schema.webapi.ResourceSchemaCreator;
+import ucles.weblab.common.schema.webapi.SchemaDialect;
+import ucles.weblab.common.schema.webapi.SerializedSchema;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Compares draft-03 schemas with their 2020-12 equivalents. The payload size of each is logged when the trial is set
+ * up. {@code draft03} and {@code draft202012} measure serving each dialect from {@link ResourceSchemaCreator}, which
+ * caches converted schemas; {@code convert} measures converting a schema which is not yet cached.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SchemaDialectBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SchemaDialectBenchmark.class);
+
+    @Param({"small", "nested", "composite"})
+    public String shape;
+
+    private final Draft202012SchemaConverter converter = new Draft202012SchemaConverter();
+    private ObjectMapper objectMapper;
+    private ResourceSchemaCreator schemaCreator;
+    private Class<?> resourceClass;
+    private Object schemaMethod;
+    private byte[] draft03Bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        final SchemaFixtures fixtures = new SchemaFixtures();
+        objectMapper = fixtures.objectMapper;
+        schemaCreator = fixtures.resourceSchemaCreator();
+        schemaMethod = methodOn(BenchmarkController.class).describe();
+        switch (shape) {
+            case "small":
+                resourceClass = BenchmarkResources.SmallResource.class;
+                break;
+            case "nested":
+                resourceClass = BenchmarkResources.NestedResource.class;
+                break;
+            case "composite":
+                resourceClass = BenchmarkResources.CompositeResource.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        final RequestContext requestContext = new RequestContext();
+        requestContext.bind();
+        try {
+            draft03Bytes = schemaCreator.createSerialized(resourceClass, schemaMethod, Optional.empty(), Optional.empty()).getBytes();
+            final byte[] draft202012Bytes = convert();
+            log.info("{}: draft-03 {} bytes, 2020-12 {} bytes", shape, draft03Bytes.length, draft202012Bytes.length);
+        } finally {
+            requestContext.unbind();
+        }
+    }
+
+    @Benchmark
+    public SerializedSchema draft03(RequestContext requestContext) {
+        return schemaCreator.createSerialized(resourceClass, schemaMethod, Optional.empty(), Optional.empty());
+    }
+
+    @Benchmark
+    public SerializedSchema draft202012(RequestContext requestContext) {
+        return schemaCreator.createSerialized(resourceClass, schemaMethod, Optional.empty(), Optional.empty(), SchemaDialect.DRAFT_2020_12);
+    }
+
+    @Benchmark
+    public byte[] convert() throws IOException {
+        return objectMapper.writeValueAsBytes(converter.convert(objectMapper.readTree(draft03Bytes)));
+    }
+}
@@ -0,0 +1,123 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ucles.weblab.common.schema.webapi.ResourceSchemaCreator;
+import ucles.weblab.common.schema.webapi.SchemaDialect;
+import ucles.weblab.common.schema.webapi.SchemaEncoding;
+import ucles.weblab.common.schema.webapi.SerializedSchema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Compares the client's cost of parsing a schema served as {@code application/schema+json} with Smile and CBOR. The
+ * payload size of each encoding, plain and gzipped, is logged when the trial is set up. {@code transcode} measures
+ * the work {@link ResourceSchemaCreator} does to produce a binary encoding which is not yet cached.
+ *
+ * @since 18/10/26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SchemaEncodingBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(SchemaEncodingBenchmark.class);
+
+    @Param({"small", "nested", "composite"})
+    public String shape;
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private ObjectMapper objectMapper;
+    private ResourceSchemaCreator schemaCreator;
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+    private byte[] cborBytes;
+
+    @Setup
+    public void setUp() {
+        final SchemaFixtures fixtures = new SchemaFixtures();
+        objectMapper = fixtures.objectMapper;
+        schemaCreator = fixtures.resourceSchemaCreator();
+        final Class<?> resourceClass;
+        switch (shape) {
+            case "small":
+                resourceClass = BenchmarkResources.SmallResource.class;
+                break;
+            case "nested":
+                resourceClass = BenchmarkResources.NestedResource.class;
+                break;
+            case "composite":
+                resourceClass = BenchmarkResources.CompositeResource.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        final RequestContext requestContext = new RequestContext();
+        requestContext.bind();
+        try {
+            final SerializedSchema draft03 = schemaCreator.createSerialized(resourceClass, methodOn(BenchmarkController.class).describe(), Optional.empty(), Optional.empty());
+            jsonBytes = draft03.getBytes();
+            final SerializedSchema smile = schemaCreator.convert(draft03, SchemaDialect.DRAFT_03, SchemaEncoding.SMILE);
+            final SerializedSchema cbor = schemaCreator.convert(draft03, SchemaDialect.DRAFT_03, SchemaEncoding.CBOR);
+            smileBytes = smile.getBytes();
+            cborBytes = cbor.getBytes();
+            log.info("{}: JSON {} bytes ({} gzipped), Smile {} bytes ({} gzipped), CBOR {} bytes ({} gzipped)", shape,
+                    jsonBytes.length, draft03.getGzippedBytes().length, smileBytes.length, smile.getGzippedBytes().length,
+                    cborBytes.length, cbor.getGzippedBytes().length);
+        } finally {
+            requestContext.unbind();
+        }
+    }
+
+    @Benchmark
+    public JsonNode parseJson() throws IOException {
+        return objectMapper.readTree(jsonBytes);
+    }
+
+    @Benchmark
+    public JsonNode parseSmile() throws IOException {
+        return smileMapper.readTree(smileBytes);
+    }
+
+    @Benchmark
+    public JsonNode parseCbor() throws IOException {
+        return cborMapper.readTree(cborBytes);
+    }
+
+    @Benchmark
+    public byte[] transcode() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(jsonBytes.length);
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonBytes);
+             JsonGenerator generator = smileMapper.getFactory().createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+}
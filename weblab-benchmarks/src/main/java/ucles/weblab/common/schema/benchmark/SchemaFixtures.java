@@ -0,0 +1,50 @@
+package ucles.weblab.common.schema.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.jsonSchema.factories.JsonSchemaFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import ucles.weblab.common.i18n.service.LocalisationService;
+import ucles.weblab.common.i18n.service.impl.LocalisationServiceImpl;
+import ucles.weblab.common.schema.webapi.ControllerMethodSchemaCreator;
+import ucles.weblab.common.schema.webapi.EnumSchemaCreator;
+import ucles.weblab.common.schema.webapi.ResourceSchemaCreator;
+import ucles.weblab.common.security.SecurityChecker;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+import ucles.weblab.common.xc.service.CrossContextConversionServiceImpl;
+
+import java.util.Locale;
+
+/**
+ * Wires up the schema creators as an application would, with no caching configured.
+ *
+ * @since 18/10/26
+ */
+final class SchemaFixtures {
+    final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    final JsonSchemaFactory schemaFactory = new JsonSchemaFactory();
+    final EnumSchemaCreator enumSchemaCreator = new EnumSchemaCreator();
+    final CrossContextConversionService crossContextConversionService = new CrossContextConversionServiceImpl();
+    final LocalisationService localisationService;
+
+    SchemaFixtures() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("small.name", Locale.getDefault(), "Name");
+        messageSource.addMessage("level.name", Locale.getDefault(), "Name");
+        messageSource.addMessage("search.name", Locale.getDefault(), "Name");
+        localisationService = new LocalisationServiceImpl(messageSource);
+    }
+
+    ResourceSchemaCreator resourceSchemaCreator() {
+        return new ResourceSchemaCreator(new SecurityChecker(new DefaultMethodSecurityExpressionHandler()),
+                objectMapper,
+                crossContextConversionService,
+                enumSchemaCreator,
+                schemaFactory,
+                localisationService);
+    }
+
+    ControllerMethodSchemaCreator controllerMethodSchemaCreator() {
+        return new ControllerMethodSchemaCreator(objectMapper, crossContextConversionService, enumSchemaCreator, localisationService);
+    }
+}
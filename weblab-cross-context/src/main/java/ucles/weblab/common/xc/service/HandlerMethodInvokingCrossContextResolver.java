@@ -4,14 +4,20 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.ReflectionUtils;
 import ucles.weblab.common.xc.service.ControllerIntrospectingCrossContextConverter.HandlerMethodInvocation;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.net.URI;
+import java.util.zip.GZIPInputStream;
 
 /**
  * A cross context resolver which invokes controller methods directly to resolve links into data.
@@ -23,6 +29,11 @@ import java.net.URI;
  * (in which case the controller return value is used directly) or is duck-typing compatible with it (in which case a
  * dynamic proxy is used to delegate to the controller return value). In any other case, Jackson is used to translate
  * from one object to the other using {@link ObjectMapper#convertValue(Object, Class)}.
+ * <p>
+ * Controller methods which return a {@code ResponseEntity<byte[]>} are treated as having already serialized their
+ * body, so the bytes are parsed as JSON (after un-gzipping them if the response has a {@code Content-Encoding} of
+ * {@code gzip}) rather than converted to a base64 string. A byte array body in any other media type, such as Smile
+ * or CBOR, cannot be resolved and is logged as an error.
  *
  * @since 09/01/16
  */
@@ -58,7 +69,8 @@ public class HandlerMethodInvokingCrossContextResolver implements CrossContextRe
             if (result instanceof ResponseEntity) {
                 if (((ResponseEntity) result).getStatusCode().is2xxSuccessful()) {
                     // unwrap
-                    result = ((ResponseEntity) result).getBody();
+                    final ResponseEntity<?> entity = (ResponseEntity<?>) result;
+                    result = entity.getBody() instanceof byte[] ? readSerializedBody(entity, methodInvocation) : entity.getBody();
                 } else {
                     logger.error("Method " + methodInvocation.getHandlerMethod().getMethod() + " returned an HTTP error " + ((ResponseEntity) result).getStatusCode());
                     result = null;
@@ -71,6 +83,23 @@ public class HandlerMethodInvokingCrossContextResolver implements CrossContextRe
         }
     }
 
+    private JsonNode readSerializedBody(ResponseEntity<?> entity, HandlerMethodInvocation methodInvocation) {
+        final MediaType contentType = entity.getHeaders().getContentType();
+        if (contentType != null && !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                && !contentType.getSubtype().endsWith("+json")) {
+            logger.error("Method " + methodInvocation.getHandlerMethod().getMethod() + " returned " + contentType + " which cannot be read as JSON");
+            return null;
+        }
+        try (InputStream body = "gzip".equalsIgnoreCase(entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                ? new GZIPInputStream(new ByteArrayInputStream((byte[]) entity.getBody()))
+                : new ByteArrayInputStream((byte[]) entity.getBody())) {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            logger.error("Unable to read body returned by handler method " + methodInvocation.getHandlerMethod().getMethod(), e);
+            return null;
+        }
+    }
+
     @Override
     public <T> T urnToValue(URI urn, Class<T> type) {
         HandlerMethodInvocation methodInvocation = converter.urnToHandlerMethodInvocation(urn);
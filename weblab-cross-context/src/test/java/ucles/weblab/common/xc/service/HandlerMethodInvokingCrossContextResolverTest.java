@@ -6,6 +6,8 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.ReflectionUtils;
@@ -14,9 +16,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.method.HandlerMethod;
 import ucles.weblab.common.xc.service.ControllerIntrospectingCrossContextConverter.HandlerMethodInvocation;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
 import static org.mockito.Mockito.when;
 
@@ -91,6 +98,30 @@ public class HandlerMethodInvokingCrossContextResolverTest {
         Assert.assertEquals("Expect correct name", "pokerface", alternativeResource.getName());
     }
 
+    @Test
+    public void testSerializedBodyToJson() {
+        URI urn = URI.create("urn:xc:context:serialized:highroller");
+        HandlerMethod handlerMethod = createHandlerMethod(TestController.class, "serializedMethod", String.class);
+        when(converter.urnToHandlerMethodInvocation(Matchers.eq(urn)))
+                .thenReturn(new HandlerMethodInvocation(handlerMethod, "highroller"));
+
+        JsonNode jsonNode = resolver.urnToJson(urn);
+        Assert.assertTrue("Expect byte array body to be parsed as a JSON object", jsonNode.isObject());
+        Assert.assertEquals("Expect single property", "highroller", jsonNode.path("name").asText());
+    }
+
+    @Test
+    public void testGzippedSerializedBodyToAlternativeType() {
+        URI urn = URI.create("urn:xc:context:gzipped:highroller");
+        HandlerMethod handlerMethod = createHandlerMethod(TestController.class, "gzippedMethod", String.class);
+        when(converter.urnToHandlerMethodInvocation(Matchers.eq(urn)))
+                .thenReturn(new HandlerMethodInvocation(handlerMethod, "highroller"));
+
+        AlternativeResource alternativeResource = resolver.urnToValue(urn, AlternativeResource.class);
+        Assert.assertNotNull("Expect object", alternativeResource);
+        Assert.assertEquals("Expect gzipped body to be read", "highroller", alternativeResource.getName());
+    }
+
     private HandlerMethod createHandlerMethod(final Class<?> controllerClass, final String methodName, final Class<?>... paramTypes) {
         try {
             Method testMethod = ReflectionUtils.findMethod(controllerClass, methodName, paramTypes);
@@ -133,6 +164,31 @@ public class HandlerMethodInvokingCrossContextResolverTest {
         public ResponseEntity<TestResource> wrappedMethod(@PathVariable String id) {
             return ResponseEntity.ok(new TestResource(id));
         }
+
+        @RequestMapping("/serialized/{id}")
+        @CrossContextMapping("urn:xc:context:serialized:{id}")
+        public ResponseEntity<byte[]> serializedMethod(@PathVariable String id) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json(id));
+        }
+
+        @RequestMapping("/gzipped/{id}")
+        @CrossContextMapping("urn:xc:context:gzipped:{id}")
+        public ResponseEntity<byte[]> gzippedMethod(@PathVariable String id) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(json(id));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.valueOf("application/schema+json"))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(bytes.toByteArray());
+        }
+
+        private byte[] json(String id) {
+            return ("{\"name\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
     }
 
 
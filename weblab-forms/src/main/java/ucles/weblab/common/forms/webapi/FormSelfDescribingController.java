@@ -9,13 +9,12 @@ import org.springframework.security.web.bind.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.RequestMethod;
 import ucles.weblab.common.identity.domain.Belongs;
 import ucles.weblab.common.schema.webapi.ControllerMethodSchemaCreator;
+import ucles.weblab.common.schema.webapi.MethodLink;
 import ucles.weblab.common.schema.webapi.SchemaProvidingController;
-import ucles.weblab.common.webapi.HateoasUtils;
+import ucles.weblab.common.schema.webapi.SerializedSchema;
 import ucles.weblab.common.webapi.LinkRelation;
 import ucles.weblab.common.webapi.resource.ResourceListWrapper;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-
 /**
  *
  * @author Sukhraj
@@ -25,35 +24,46 @@ public abstract class FormSelfDescribingController<C extends FormSelfDescribingC
 
     private final Class<R> resourceClass;
     private final ControllerMethodSchemaCreator controllerMethodSchemaCreator;
+    private final MethodLink describeLink;
+    private final MethodLink listLink;
+    private final MethodLink createLink;
 
     public FormSelfDescribingController(ControllerMethodSchemaCreator controllerMethodSchemaCreator) {
         this.resourceClass = (Class) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[1];
         this.controllerMethodSchemaCreator = controllerMethodSchemaCreator;
+        this.describeLink = MethodLink.to(getClass(), "describe", Belongs.class);
+        this.listLink = MethodLink.to(getClass(), "list", String.class, String.class);
+        this.createLink = MethodLink.to(getClass(), "create", Object.class);
+    }
+
+    @Override
+    public Optional<Class<?>> getDescribedResourceClass() {
+        return Optional.of(resourceClass);
     }
 
     @Override
-    public ResponseEntity<JsonSchema> describe(Belongs principal) {
+    public ResponseEntity<?> describe(Belongs principal) {
         return describe(principal, null, null);
     }
 
-    public ResponseEntity<JsonSchema> describe(@AuthenticationPrincipal Belongs principal, String businessName, String applicationName) {
+    public ResponseEntity<?> describe(@AuthenticationPrincipal Belongs principal, String businessName, String applicationName) {
         // The ResourceSchemaCreator will only add these methods if you're permitted to access them, so we can pass them
 
-        Object controllerListMethod = self().list(null, null);
+        MethodLink.Invocation controllerListMethod = listLink.with(null, null);
         JsonSchema instancesSchema = controllerMethodSchemaCreator.createForRequestParams(controllerListMethod);
 
         LinkDescriptionObject instancesLink = new LinkDescriptionObject()
                 .setRel(LinkRelation.INSTANCES.rel())
                 .setMethod(RequestMethod.GET.toString())
-                .setHref(HateoasUtils.toUriString(linkTo(controllerListMethod), false))
+                .setHref(controllerListMethod.toUri().toString())
                 .setSchema(instancesSchema);
 
-        JsonSchema schema = getSchemaCreator().create(resourceClass,
-                self().describe(principal),
+        SerializedSchema schema = getSchemaCreator().createSerialized(resourceClass,
+                describeLink.with(principal),
                 Optional.of(instancesLink),
-                Optional.of(self().create(null)));
+                Optional.of(createLink.with((Object) null)));
 
-        return ResponseEntity.ok(schema);
+        return negotiatedSchemaResponse(schema);
     }
 
     abstract public ResourceListWrapper<R> list(String businessName, String applicationName);
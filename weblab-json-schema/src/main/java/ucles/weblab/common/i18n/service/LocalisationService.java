@@ -1,5 +1,8 @@
 package ucles.weblab.common.i18n.service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
@@ -15,4 +18,17 @@ public interface LocalisationService {
      * @param target consumer that will be supplied with the message lookup result if found
      */
     void ifMessagePresent(String key, Consumer<String> target);
+
+    /**
+     * Lookup all the keys in messages for current {@link java.util.Locale} at once, e.g. all the keys a schema needs.
+     * @param keys message keys
+     * @return the messages found, by key; keys with no message are absent
+     */
+    default Map<String, String> resolveMessages(Collection<String> keys) {
+        final Map<String, String> messages = new HashMap<>();
+        for (String key : keys) {
+            ifMessagePresent(key, message -> messages.put(key, message));
+        }
+        return messages;
+    }
 }
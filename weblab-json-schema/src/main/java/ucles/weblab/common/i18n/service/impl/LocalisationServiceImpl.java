@@ -3,33 +3,123 @@ package ucles.weblab.common.i18n.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
-import org.springframework.context.NoSuchMessageException;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.context.support.MessageSourceAccessor;
 import ucles.weblab.common.i18n.service.LocalisationService;
+import ucles.weblab.common.schema.webapi.SchemaMetrics;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
  * {@inheritDoc}
+ * <p>
+ * Each message is resolved from the {@link MessageSource} once per locale and then held in an immutable per-locale
+ * map, which is read without locking and replaced whenever new keys are resolved. Keys with no message are recorded
+ * too, so a missing message is not looked up again. Call {@link #reload()} after the messages change, e.g. after
+ * clearing the cache of a {@link org.springframework.context.support.ReloadableResourceBundleMessageSource}; schemas
+ * cached with the old messages must also be invalidated. Caching can be turned off with {@link #setCacheMessages}.
  */
 public class LocalisationServiceImpl implements LocalisationService {
     private Logger log = LoggerFactory.getLogger(getClass());
-    private final MessageSourceAccessor messageSourceAccessor;
+    private final MessageSource messageSource;
+    private final Map<Locale, LocaleMessages> localeMessages = new ConcurrentHashMap<>();
+    private SchemaMetrics metrics = SchemaMetrics.NOOP;
+    private boolean cacheMessages = true;
 
     public LocalisationServiceImpl(MessageSource messageSource) {
-        this.messageSourceAccessor = new MessageSourceAccessor(messageSource);
+        this.messageSource = messageSource;
+    }
+
+    /**
+     * Sets where to report the number of messages looked up.
+     */
+    public void setMetrics(SchemaMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets whether to cache resolved messages. Defaults to true.
+     */
+    public void setCacheMessages(boolean cacheMessages) {
+        this.cacheMessages = cacheMessages;
+        reload();
+    }
+
+    /**
+     * Discards all cached messages, so that they are resolved from the message source again.
+     */
+    public void reload() {
+        localeMessages.clear();
     }
 
     @Override
     public void ifMessagePresent(String key, Consumer<String> target) {
-        try {
-            String translated = messageSourceAccessor.getMessage(key); // will use current thread locale
-            target.accept(translated);
-        } catch (NoSuchMessageException e) {
-            log.trace("No message found for key: {} for locale {}", key, LocaleContextHolder.getLocale());
+        metrics.messageLookedUp();
+        final Locale locale = LocaleContextHolder.getLocale();
+        Optional<String> message = cacheMessages ? messagesFor(locale).get(key) : null;
+        if (message == null) {
+            message = resolve(key, locale);
+            if (cacheMessages) {
+                messagesFor(locale).putAll(Collections.singletonMap(key, message));
+            }
+        }
+        message.ifPresent(target);
+    }
+
+    @Override
+    public Map<String, String> resolveMessages(Collection<String> keys) {
+        final Locale locale = LocaleContextHolder.getLocale();
+        final Map<String, Optional<String>> cached = cacheMessages ? messagesFor(locale).messages : Collections.emptyMap();
+        final Map<String, Optional<String>> resolved = new HashMap<>();
+        final Map<String, String> found = new HashMap<>();
+        for (String key : keys) {
+            metrics.messageLookedUp();
+            Optional<String> message = cached.get(key);
+            if (message == null) {
+                message = resolved.computeIfAbsent(key, k -> resolve(k, locale));
+            }
+            message.ifPresent(m -> found.put(key, m));
         }
+        if (cacheMessages && !resolved.isEmpty()) {
+            messagesFor(locale).putAll(resolved);
+        }
+        return found;
+    }
+
+    private LocaleMessages messagesFor(Locale locale) {
+        return localeMessages.computeIfAbsent(locale, l -> new LocaleMessages());
+    }
+
+    private Optional<String> resolve(String key, Locale locale) {
+        // Passing a null default message gives null rather than a NoSuchMessageException for a missing message
+        final String message = messageSource.getMessage(key, null, null, locale);
+        if (message == null) {
+            log.trace("No message found for key: {} for locale {}", key, locale);
+        }
+        return Optional.ofNullable(message);
     }
 
+    /**
+     * The messages resolved for a locale, with {@link Optional#empty()} for keys with no message. The map is replaced
+     * rather than modified, so it can be read without locking.
+     */
+    private static class LocaleMessages {
+        private volatile Map<String, Optional<String>> messages = Collections.emptyMap();
+
+        Optional<String> get(String key) {
+            return messages.get(key);
+        }
 
+        synchronized void putAll(Map<String, Optional<String>> resolved) {
+            final Map<String, Optional<String>> updated = new HashMap<>(messages);
+            updated.putAll(resolved);
+            messages = Collections.unmodifiableMap(updated);
+        }
+    }
 }
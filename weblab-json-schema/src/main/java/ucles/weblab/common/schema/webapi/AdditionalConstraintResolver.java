@@ -7,8 +7,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionException;
-import org.springframework.expression.common.TemplateParserContext;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.net.URI;
@@ -29,10 +27,24 @@ import javax.validation.constraints.NotNull;
 class AdditionalConstraintResolver {
     private Logger log = LoggerFactory.getLogger(getClass());
 
+    static final CachingExpressionParser DEFAULT_EXPRESSION_PARSER = new CachingExpressionParser();
+
     private final StandardEvaluationContext evalContext;
+    private final CachingExpressionParser expressionParser;
+    private final SchemaMetrics metrics;
 
     public AdditionalConstraintResolver(StandardEvaluationContext evalContext) {
+        this(evalContext, DEFAULT_EXPRESSION_PARSER);
+    }
+
+    public AdditionalConstraintResolver(StandardEvaluationContext evalContext, CachingExpressionParser expressionParser) {
+        this(evalContext, expressionParser, SchemaMetrics.NOOP);
+    }
+
+    public AdditionalConstraintResolver(StandardEvaluationContext evalContext, CachingExpressionParser expressionParser, SchemaMetrics metrics) {
         this.evalContext = evalContext;
+        this.expressionParser = expressionParser;
+        this.metrics = metrics;
     }
 
     public Optional<Boolean> getNumberExclusiveMinimum(BeanProperty prop) {
@@ -82,40 +94,59 @@ class AdditionalConstraintResolver {
     }
 
     public Optional<URI> getEnumRef(BeanProperty prop) {
+        return getEnumRefSource(prop).flatMap(this::evaluateEnumRef);
+    }
+
+    /**
+     * Returns the unevaluated enumRef template expression, if there is one.
+     */
+    public Optional<String> getEnumRefSource(BeanProperty prop) {
         JsonSchema jsonSchemaAnnotation = prop.getAnnotation(JsonSchema.class);
-        return Optional.ofNullable(jsonSchemaAnnotation)
-                .map(an -> {
-                    if (!an.enumRef().isEmpty()) {
-                        try {
-                            final Expression expression = new SpelExpressionParser().parseExpression(an.enumRef(), new TemplateParserContext());
-                            String value = expression.getValue(evalContext, String.class);
-                            return value == null ? null : URI.create(value);
-                        } catch (ExpressionException e) {
-                            log.warn("Ignoring unprocessable enumRef expression: " + an.enumRef(), e);
-                        }
-                    }
-                    return null;
-                });
+        return Optional.ofNullable(jsonSchemaAnnotation).map(JsonSchema::enumRef).filter(e -> !e.isEmpty());
+    }
+
+    /**
+     * Evaluate an enumRef template expression and return an Optional URI of the result.
+     */
+    public Optional<URI> evaluateEnumRef(String enumRef) {
+        metrics.expressionEvaluated();
+        try {
+            final Expression expression = expressionParser.parseTemplate(enumRef);
+            String value = expression.getValue(evalContext, String.class);
+            return Optional.ofNullable(value).map(URI::create);
+        } catch (ExpressionException e) {
+            log.warn("Ignoring unprocessable enumRef expression: " + enumRef, e);
+            return Optional.empty();
+        }
     }
 
     /**
      * Evaluate the read only expression and return an Optional boolean of the result.
      */
     public Optional<Boolean> getReadOnlyExpression(BeanProperty prop) {
+        return getReadOnlyExpressionSource(prop).flatMap(this::evaluateReadOnlyExpression);
+    }
+
+    /**
+     * Returns the unevaluated read only template expression, if there is one.
+     */
+    public Optional<String> getReadOnlyExpressionSource(BeanProperty prop) {
         JsonSchema jsonSchemaAnnotation = prop.getAnnotation(JsonSchema.class);
-        return Optional.ofNullable(jsonSchemaAnnotation)
-                .map(an -> {
-                    if (!an.readOnlyExpression().isEmpty()) {
-                        try {
-                            final Expression expression = new SpelExpressionParser().parseExpression(an.readOnlyExpression(), new TemplateParserContext());
-
-                            return expression.getValue(evalContext, Boolean.class);
-                        } catch (ExpressionException e) {
-                            log.warn("Ignoring unprocessable readOnlyExpression: " + an.readOnlyExpression(), e);
-                        }
-                    }
-                    return null;
-                });
+        return Optional.ofNullable(jsonSchemaAnnotation).map(JsonSchema::readOnlyExpression).filter(e -> !e.isEmpty());
+    }
+
+    /**
+     * Evaluate a read only template expression and return an Optional boolean of the result.
+     */
+    public Optional<Boolean> evaluateReadOnlyExpression(String readOnlyExpression) {
+        metrics.expressionEvaluated();
+        try {
+            final Expression expression = expressionParser.parseTemplate(readOnlyExpression);
+            return Optional.ofNullable(expression.getValue(evalContext, Boolean.class));
+        } catch (ExpressionException e) {
+            log.warn("Ignoring unprocessable readOnlyExpression: " + readOnlyExpression, e);
+            return Optional.empty();
+        }
     }
 
     /**
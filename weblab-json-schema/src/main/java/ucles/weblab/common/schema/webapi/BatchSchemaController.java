@@ -0,0 +1,290 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import ucles.weblab.common.identity.domain.Belongs;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Serves several schemas in one response, so that a client which needs the schemas of a number of resources, and the
+ * enum schemas they reference, can fetch them in one round trip instead of one request after another.
+ * <p>
+ * Schemas are requested by URL or URN with repeated {@code url} parameters. Each URL must be the {@code describedBy}
+ * link of a {@link SchemaProvidingController} in the context, or an enum schema URL from the
+ * {@link EnumSchemaRegistry}. The schemas are generated concurrently, by the controllers' own {@code describe} methods
+ * and so through the same caches, and the response is a JSON object of the form:
+ * <pre>
+ *     {
+ *         "schemas": { "&lt;url&gt;": { ...schema... }, ... },
+ *         "errors": { "&lt;url&gt;": 404, ... }
+ *     }
+ * </pre>
+ * Any enum schemas in the registry which the requested schemas reference with {@code $ref} are added to
+ * {@code schemas} under their reference, so they need not be fetched separately. URLs which cannot be served are listed
+ * in {@code errors} with the HTTP status a direct request would have had, and the client may fetch them individually.
+ * In particular a schema the caller may not see is listed as 401 if they have not signed in, or 403 if they have.
+ * <p>
+ * The controller is mapped to {@code /$schemas} unless the {@code weblab.schema.batch-path} property specifies
+ * otherwise. Register it as a bean alongside the schema providing controllers.
+ * It is deliberately not a {@code @Controller} component, so that applications which scan this package do not get the
+ * endpoint unless they declare it; the type-level {@code @RequestMapping} lets Spring MVC detect it once declared.
+ *
+ * @since 18/10/26
+ */
+@RequestMapping
+public class BatchSchemaController implements DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    private final ObjectMapper objectMapper;
+    private final CrossContextConversionService crossContextConversionService;
+    private final List<? extends SchemaProvidingController<?>> controllers;
+    private final Optional<EnumSchemaRegistry> enumSchemaRegistry;
+    private volatile Map<String, SchemaProvidingController<?>> controllersByPath;
+    private final ExecutorService defaultExecutor = SchemaExecutors.bounded("schema-batch");
+    private Executor executor = defaultExecutor;
+    private int maxSchemas = 50;
+
+    public BatchSchemaController(ObjectMapper objectMapper,
+                                 CrossContextConversionService crossContextConversionService,
+                                 List<? extends SchemaProvidingController<?>> controllers) {
+        this(objectMapper, crossContextConversionService, controllers, null);
+    }
+
+    public BatchSchemaController(ObjectMapper objectMapper,
+                                 CrossContextConversionService crossContextConversionService,
+                                 List<? extends SchemaProvidingController<?>> controllers,
+                                 EnumSchemaRegistry enumSchemaRegistry) {
+        this.objectMapper = objectMapper;
+        this.crossContextConversionService = crossContextConversionService;
+        this.controllers = controllers;
+        this.enumSchemaRegistry = Optional.ofNullable(enumSchemaRegistry);
+    }
+
+    /**
+     * Sets the executor to generate schemas on. Defaults to a bounded pool of this controller's own, since
+     * the work blocks and should not tie up the common fork-join pool.
+     */
+    public void setExecutor(Executor executor) {
+        Assert.notNull(executor, "Executor is required");
+        this.executor = executor;
+    }
+
+    @Override
+    public void destroy() {
+        defaultExecutor.shutdown();
+    }
+
+    /**
+     * Sets the maximum number of URLs which may be requested at once. Defaults to 50.
+     */
+    public void setMaxSchemas(int maxSchemas) {
+        Assert.isTrue(maxSchemas > 0, "Maximum schemas must be positive");
+        this.maxSchemas = maxSchemas;
+    }
+
+    @GetMapping(value = "${weblab.schema.batch-path:/$schemas}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> describeAll(@RequestParam("url") List<String> urls,
+                                              @AuthenticationPrincipal Belongs principal,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        final Set<String> requested = new LinkedHashSet<>(urls);
+        if (requested.size() > maxSchemas) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        final Map<String, CompletableFuture<Result>> results = new LinkedHashMap<>();
+        requested.forEach(url -> results.put(url, fetchAsync(url, principal)));
+        CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0])).join();
+
+        // Follow the requested schemas' references to enum schemas, which are cheap as they are already registered
+        final Set<String> references = new LinkedHashSet<>();
+        results.values().forEach(result -> result.join().schema.ifPresent(schema -> schema.findValuesAsText("$ref").stream()
+                .filter(ref -> !results.containsKey(ref))
+                .forEach(references::add)));
+        final Map<String, JsonNode> referenced = new LinkedHashMap<>();
+        references.forEach(ref -> enumSchema(ref).ifPresent(schema -> referenced.put(ref, schema)));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("schemas");
+            for (Map.Entry<String, CompletableFuture<Result>> entry : results.entrySet()) {
+                final Optional<JsonNode> schema = entry.getValue().join().schema;
+                if (schema.isPresent()) {
+                    generator.writeFieldName(entry.getKey());
+                    generator.writeTree(schema.get());
+                }
+            }
+            for (Map.Entry<String, JsonNode> entry : referenced.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                generator.writeTree(entry.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("errors");
+            for (Map.Entry<String, CompletableFuture<Result>> entry : results.entrySet()) {
+                final Result result = entry.getValue().join();
+                if (!result.schema.isPresent()) {
+                    generator.writeNumberField(entry.getKey(), result.status.value());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new SerializedSchema(out.toByteArray(), MediaType.APPLICATION_JSON).toResponseEntity(acceptEncoding,
+                headers -> headers.setVary(Arrays.asList(HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    /**
+     * Fetches a schema on the executor, in the context of the current request.
+     */
+    private CompletableFuture<Result> fetchAsync(String url, Belongs principal) {
+        final SchemaRequestContext context = SchemaRequestContext.capture();
+        return CompletableFuture.supplyAsync(() -> context.run(() -> fetch(url, principal)), executor);
+    }
+
+    Result fetch(String url, Belongs principal) {
+        final String path;
+        try {
+            final URI uri = URI.create(url);
+            path = ("urn".equalsIgnoreCase(uri.getScheme()) ? crossContextConversionService.asUrl(uri) : uri).getPath();
+        } catch (IllegalArgumentException e) {
+            return Result.failed(HttpStatus.BAD_REQUEST);
+        }
+        if (path == null) {
+            return Result.failed(HttpStatus.BAD_REQUEST);
+        }
+
+        if (enumSchemaRegistry.filter(registry -> path.startsWith(registry.getBasePath())).isPresent()) {
+            // Enum schemas are only ever looked up, so an unknown hash costs no more than a map lookup
+            return enumSchema(path).map(Result::of).orElseGet(() -> Result.failed(HttpStatus.NOT_FOUND));
+        }
+
+        final SchemaProvidingController<?> controller = controllersByPath().get(path);
+        if (controller == null) {
+            return Result.failed(HttpStatus.NOT_FOUND);
+        }
+        try {
+            final ResponseEntity<?> response = controller.describe(principal);
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return Result.failed(response.getStatusCode());
+            }
+            final Object body = response.getBody();
+            return Result.of(body instanceof byte[] ? objectMapper.readTree((byte[]) body) : objectMapper.valueToTree(body));
+        } catch (AccessDeniedException | AuthenticationException e) {
+            return Result.failed(isAnonymous() ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to describe " + url + " in batch", e);
+            return Result.failed(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Returns whether the caller has not signed in, in which case a denied schema is reported as needing
+     * authentication, as Spring Security's {@code ExceptionTranslationFilter} would for a direct request.
+     */
+    private boolean isAnonymous() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || trustResolver.isAnonymous(authentication);
+    }
+
+    private Optional<JsonNode> enumSchema(String url) {
+        return enumSchemaRegistry.flatMap(registry -> {
+            final String path;
+            try {
+                path = URI.create(url).getPath();
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            if (path == null || !path.startsWith(registry.getBasePath())) {
+                return Optional.empty();
+            }
+            return registry.get(path.substring(registry.getBasePath().length()));
+        }).map(schema -> {
+            try {
+                return objectMapper.readTree(schema.getBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Maps the path of each controller's {@code describedBy} link to the controller. The paths are built from the
+     * first request, so that they include its servlet context path.
+     */
+    private Map<String, SchemaProvidingController<?>> controllersByPath() {
+        Map<String, SchemaProvidingController<?>> byPath = controllersByPath;
+        if (byPath == null) {
+            byPath = new LinkedHashMap<>();
+            for (SchemaProvidingController<?> controller : controllers) {
+                try {
+                    byPath.put(linkTo(controller.self().describe(null)).toUri().getPath(), controller);
+                } catch (RuntimeException e) {
+                    logger.debug("Unable to link to schema of " + controller.getClass().getName() + " so it will not be served in batches", e);
+                }
+            }
+            byPath = Collections.unmodifiableMap(byPath);
+            controllersByPath = byPath;
+        }
+        return byPath;
+    }
+
+    static final class Result {
+        final Optional<JsonNode> schema;
+        final HttpStatus status;
+
+        private Result(Optional<JsonNode> schema, HttpStatus status) {
+            this.schema = schema;
+            this.status = status;
+        }
+
+        static Result of(JsonNode schema) {
+            return new Result(Optional.of(schema), HttpStatus.OK);
+        }
+
+        static Result failed(HttpStatus status) {
+            return new Result(Optional.empty(), status);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses the SpEL template expressions in {@link JsonSchema @JsonSchema} annotations (e.g. {@code readOnlyExpression}
+ * and {@code enumRef}) once, and reuses the parsed {@link Expression} for every subsequent evaluation.
+ * <p>
+ * Expressions can optionally be compiled to bytecode by Spring, by specifying a {@link SpelCompilerMode}. In
+ * {@code MIXED} mode an expression is compiled after it has been interpreted a number of times, and falls back to
+ * interpretation if the compiled form fails, e.g. because {@code #currentUser} is a different type of principal. In
+ * {@code IMMEDIATE} mode such failures are reported as evaluation errors, so it is only suitable where expressions
+ * always see the same types.
+ * <p>
+ * As an {@link ExpressionParser}, it can also be set on a {@code MethodSecurityExpressionHandler} so that the method
+ * security expressions checked for schema links (see {@link LinkPermissionCache}) are parsed once rather than on
+ * every check.
+ *
+ * @since 18/10/26
+ */
+public class CachingExpressionParser implements ExpressionParser {
+    private final SpelExpressionParser parser;
+    private final ParserContext parserContext = new TemplateParserContext();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+    private final Map<String, Expression> plainExpressions = new ConcurrentHashMap<>();
+
+    public CachingExpressionParser() {
+        this(SpelCompilerMode.OFF);
+    }
+
+    public CachingExpressionParser(SpelCompilerMode compilerMode) {
+        this(compilerMode, ClassUtils.getDefaultClassLoader());
+    }
+
+    /**
+     * @param compilerMode whether, and when, to compile expressions to bytecode
+     * @param compilerClassLoader the class loader to load compiled expressions with, which must be able to see the types
+     *                            the expressions refer to
+     */
+    public CachingExpressionParser(SpelCompilerMode compilerMode, ClassLoader compilerClassLoader) {
+        this.parser = new SpelExpressionParser(new SpelParserConfiguration(compilerMode, compilerClassLoader));
+    }
+
+    /**
+     * Returns the parsed form of a template expression such as {@code #{#currentUser.admin}}, parsing it only if it has
+     * not been seen before.
+     *
+     * @param expressionString the template expression
+     * @return the parsed expression, which is safe to evaluate concurrently
+     * @throws ParseException if the expression cannot be parsed
+     */
+    public Expression parseTemplate(String expressionString) {
+        return expressions.computeIfAbsent(expressionString, e -> parser.parseExpression(e, parserContext));
+    }
+
+    /**
+     * Returns the parsed form of a plain expression such as {@code hasRole('ADMIN')}, parsing it only if it has not
+     * been seen before.
+     */
+    @Override
+    public Expression parseExpression(String expressionString) {
+        return plainExpressions.computeIfAbsent(expressionString, parser::parseExpression);
+    }
+
+    /**
+     * As per {@link #parseExpression(String)} or {@link #parseTemplate(String)}, depending on the context. Templates
+     * with delimiters other than {@code #{...}} are parsed every time.
+     */
+    @Override
+    public Expression parseExpression(String expressionString, ParserContext context) {
+        if (context == null || !context.isTemplate()) {
+            return parseExpression(expressionString);
+        }
+        if (context.getExpressionPrefix().equals(parserContext.getExpressionPrefix())
+                && context.getExpressionSuffix().equals(parserContext.getExpressionSuffix())) {
+            return parseTemplate(expressionString);
+        }
+        return parser.parseExpression(expressionString, context);
+    }
+
+    public int size() {
+        return expressions.size() + plainExpressions.size();
+    }
+
+    public void clear() {
+        expressions.clear();
+        plainExpressions.clear();
+    }
+}
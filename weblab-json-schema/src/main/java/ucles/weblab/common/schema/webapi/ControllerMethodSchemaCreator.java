@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.module.jsonSchema.factories.SchemaFactoryWrapper;
@@ -18,8 +19,10 @@ import ucles.weblab.common.i18n.service.LocalisationService;
 import ucles.weblab.common.xc.service.CrossContextConversionService;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
@@ -35,6 +38,8 @@ public class ControllerMethodSchemaCreator {
     private final CrossContextConversionService crossContextConversionService;
     private final EnumSchemaCreator enumSchemaCreator;
     private final LocalisationService localisationService;
+    private final Map<Method, SchemaSkeleton> skeletons = new ConcurrentHashMap<>();
+    private SchemaMetrics metrics = SchemaMetrics.NOOP;
 
     public ControllerMethodSchemaCreator(ObjectMapper objectMapper,
                                          CrossContextConversionService crossContextConversionService,
@@ -46,6 +51,22 @@ public class ControllerMethodSchemaCreator {
         this.localisationService = localisationService;
     }
 
+    /**
+     * Sets where to report the time taken to generate each request parameter schema.
+     *
+     * @param metrics the metrics to report to, or {@link SchemaMetrics#NOOP}
+     */
+    public void setMetrics(SchemaMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Discards the cached request parameter schemas, e.g. because the messages they are localised with have changed.
+     */
+    public void invalidateAllSchemas() {
+        skeletons.clear();
+    }
+
     /**
      * Creates a (serializable) JSON schema object describing the request parameters to a controller method.
      * The parameters can be annotated with {@code javax.validation} constraints as well as {@link JsonProperty @JsonProperty},
@@ -53,31 +74,65 @@ public class ControllerMethodSchemaCreator {
      * {@link JsonSchema @JsonSchema} and {@link JsonSchemaMetadata @JsonSchemaMetadata} to enrich the content of this schema
      * object, otherwise it will simply be parameter names and types.
      * <p>
-     *     The {@code Object} method reference passed here is a {@link LastInvocationAware}
+     *     The {@code Object} method reference passed here is a {@link MethodLink.Invocation}, or a {@link LastInvocationAware}
      *     object obtained from Spring HATEOAS with {@link ControllerLinkBuilder#methodOn(Class, Object...)}. The
      *     {@code controllerMethod} will be used as the ID of the schema itself.
      * </p>
      * <p>
      *     The schma returned is in the <a href='http://tools.ietf.org/html/draft-zyp-json-schema-03'>JSON Schema draft-3</a> model.
      * </p>
-     * @param controllerMethod a {@code LastInvocationAware} method reference to the controller method with all parameters populated
+     * @param controllerMethod a {@code MethodLink.Invocation} or {@code LastInvocationAware} method reference to the controller method with all parameters populated
      * @return a schema describing the request parameters, which can be serialized to JSON itself.
      */
     public com.fasterxml.jackson.module.jsonSchema.JsonSchema createForRequestParams(Object controllerMethod) {
-        Assert.isInstanceOf(LastInvocationAware.class, controllerMethod);
+        final Method method;
+        final String id;
+        if (controllerMethod instanceof MethodLink.Invocation) {
+            method = ((MethodLink.Invocation) controllerMethod).getMethod();
+            id = ((MethodLink.Invocation) controllerMethod).toUri().toString();
+        } else {
+            Assert.isInstanceOf(LastInvocationAware.class, controllerMethod);
+            method = DummyInvocationUtils.getLastInvocationAware(controllerMethod).getLastInvocation().getMethod();
+            id = toUriString(linkTo(controllerMethod), false);
+        }
+        return metrics.timeGeneration(SchemaMetrics.Kind.REQUEST_PARAMS, method.getDeclaringClass(), () -> {
+            com.fasterxml.jackson.module.jsonSchema.JsonSchema schema = getSkeleton(method).overlay(
+                    new AdditionalConstraintResolver(new StandardEvaluationContext()), crossContextConversionService, localisationService);
+            schema.setId(id);
+            return schema;
+        });
+    }
+
+    /**
+     * Returns the invariant skeleton of a method's request parameter schema, generating it the first time the method
+     * is described. Only the localised and evaluated parts of the schema, and its ID, are applied on each call.
+     */
+    private SchemaSkeleton getSkeleton(Method method) {
+        SchemaSkeleton skeleton = skeletons.get(method);
+        if (skeleton == null) {
+            final SchemaSkeleton.Recorder recorder = new SchemaSkeleton.Recorder();
+            skeleton = SchemaSkeleton.compile(generateForRequestParams(method.getParameters(), recorder), recorder);
+            final SchemaSkeleton existing = skeletons.putIfAbsent(method, skeleton);
+            if (existing != null) {
+                skeleton = existing;
+            }
+        }
+        return skeleton;
+    }
+
+    private com.fasterxml.jackson.module.jsonSchema.JsonSchema generateForRequestParams(Parameter[] parameters, SchemaSkeleton.Recorder recorder) {
         StandardEvaluationContext evalContext = new StandardEvaluationContext();
-        Parameter[] parameters = DummyInvocationUtils.getLastInvocationAware(controllerMethod).getLastInvocation().getMethod().getParameters();
         SerializationConfig serializationConfig = objectMapper.getSerializationConfig();
         DefaultSerializerProvider.Impl serializerProvider = ((DefaultSerializerProvider.Impl) objectMapper.getSerializerProvider()).createInstance(serializationConfig, objectMapper.getSerializerFactory());
         // Create a base object schema
-        SuperSchemaFactoryWrapper objectWrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evalContext, localisationService);
+        SuperSchemaFactoryWrapper objectWrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evalContext, localisationService, recorder);
         objectWrapper.setProvider(serializerProvider);
         SuperSchemaFactoryWrapper.ObjectVisitorDecorator propertyEnhancer = (SuperSchemaFactoryWrapper.ObjectVisitorDecorator) objectWrapper.expectObjectFormat(TypeFactory.unknownType());
         ObjectSchema objectSchema = objectWrapper.finalSchema().asObjectSchema();
 
         // Create schemas for each request parameter (as properties) and add them to the object schema
         try {
-            SchemaFactoryWrapper propertyWrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evalContext, localisationService);
+            SchemaFactoryWrapper propertyWrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evalContext, localisationService, recorder);
             propertyWrapper.setProvider(serializerProvider);
             for (Parameter parameter : parameters) {
                 if (parameter.getAnnotation(RequestParam.class) != null) {
@@ -99,7 +154,6 @@ public class ControllerMethodSchemaCreator {
                 }
             }
 
-            objectSchema.setId(toUriString(linkTo(controllerMethod), false));
             return objectSchema;
         } catch (JsonMappingException e) {
             throw new RuntimeException(e);
@@ -107,7 +161,7 @@ public class ControllerMethodSchemaCreator {
     }
 
     /**
-     * Fakes out just enough of a {@link BeanProperty} for a method parameter.
+     * Creates a {@link BeanProperty} for a method parameter.
      * The parameter can then be treated as if it were a property of an object for the purposes of schema generation.
      *
      * @param parameter the parameter in question
@@ -134,24 +188,7 @@ public class ControllerMethodSchemaCreator {
             String defaultValue = getDefaultValue(requestParam, jsonProperty);
             PropertyMetadata propertyMetadata = PropertyMetadata.construct(required, description, index, defaultValue);
 
-            return (BeanProperty) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BeanProperty.class}, (proxy, method, args) -> {
-                switch (method.getName()) {
-                    case "getAnnotation":
-                        return parameter.getAnnotation((Class<Annotation>) args[0]);
-                    case "getType":
-                        return javaType;
-                    case "getName":
-                        return name;
-                    case "getMetadata":
-                        return propertyMetadata;
-                    case "getMember":
-                        return null;
-                    case "findPropertyFormat":
-                        return JsonFormat.Value.empty();
-                    default:
-                        throw new UnsupportedOperationException(method.getName());
-                }
-            });
+            return new RequestParameterProperty(parameter, name, javaType, propertyMetadata);
         }
 
         private boolean isRequired(RequestParam requestParam, JsonProperty jsonProperty) {
@@ -184,4 +221,27 @@ public class ControllerMethodSchemaCreator {
             return null;
         }
     }
+
+    /**
+     * A method parameter treated as if it were a property of an object for the purposes of schema generation. It has
+     * no underlying class member, so its annotations are read from the parameter itself.
+     */
+    private static final class RequestParameterProperty extends BeanProperty.Std {
+        private final Parameter parameter;
+
+        RequestParameterProperty(Parameter parameter, String name, JavaType javaType, PropertyMetadata propertyMetadata) {
+            super(PropertyName.construct(name), javaType, null, null, propertyMetadata);
+            this.parameter = parameter;
+        }
+
+        @Override
+        public <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+            return parameter.getAnnotation(annotationType);
+        }
+
+        @Override
+        public JsonFormat.Value findPropertyFormat(MapperConfig<?> config, Class<?> baseType) {
+            return JsonFormat.Value.empty();
+        }
+    }
 }
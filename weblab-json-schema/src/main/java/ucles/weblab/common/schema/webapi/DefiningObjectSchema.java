@@ -0,0 +1,34 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.ObjectSchema;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Extends object schema with {@code definitions} of the types its properties refer to, as the root of a resource
+ * schema whose repeated types are {@link ResourceSchemaCreator#setReferenceRepeatedTypes referenced}.
+ *
+ * @since 18/10/26
+ */
+public class DefiningObjectSchema extends ObjectSchema {
+    @JsonProperty
+    private Map<String, JsonSchema> definitions;
+
+    public Map<String, JsonSchema> getDefinitions() {
+        return definitions;
+    }
+
+    public void setDefinitions(Map<String, JsonSchema> definitions) {
+        this.definitions = definitions;
+    }
+
+    @Override
+    protected boolean _equals(ObjectSchema that) {
+        return that instanceof DefiningObjectSchema
+                && Objects.equals(definitions, ((DefiningObjectSchema) that).definitions)
+                && super._equals(that);
+    }
+}
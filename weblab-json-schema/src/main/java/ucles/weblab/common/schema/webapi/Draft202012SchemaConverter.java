@@ -0,0 +1,328 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Converts a draft-03 schema, as generated by {@link ResourceSchemaCreator}, to JSON Schema 2020-12.
+ * <p>
+ * As well as translating the keywords which changed meaning between the drafts (e.g. {@code required},
+ * {@code extends}, union {@code type}s and {@code readonly}), any object type which appears more than once in the
+ * schema is hoisted into {@code $defs} once and referenced with {@code $ref} wherever it appears. Annotations which
+ * vary between the places a type is used, such as its title, are kept alongside each {@code $ref}. Keywords with no
+ * 2020-12 equivalent, such as {@code links} and the property ordering {@code id}s, are passed through unchanged.
+ *
+ * @since 18/10/26
+ */
+public class Draft202012SchemaConverter {
+    private static final String DEFS_POINTER = "#/$defs/";
+    private static final String DEFINITIONS_POINTER = "#/definitions/";
+    /**
+     * Keywords which describe a particular use of a type rather than the type itself.
+     */
+    private static final Set<String> ANNOTATIONS = new HashSet<>(Arrays.asList("id", "title", "description", "readOnly", "default", "links"));
+
+    private final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    /**
+     * Converts a schema. The schema passed in is not modified.
+     *
+     * @param draft03 the draft-03 schema
+     * @return the equivalent 2020-12 schema
+     */
+    public ObjectNode convert(JsonNode draft03) {
+        final ObjectNode root = convertSchema(draft03);
+        root.remove("id");
+        if (draft03.has("id")) {
+            root.set("$id", draft03.get("id"));
+        }
+        root.put("$schema", SchemaDialect.DRAFT_2020_12.getUri());
+        return hoistRepeatedTypes(root);
+    }
+
+    private ObjectNode convertSchema(JsonNode schema) {
+        final ObjectNode converted = nodeFactory.objectNode();
+        final Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            final JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "$schema":
+                case "required":
+                    // $schema is replaced at the root, and required has moved to the parent
+                    break;
+                case "properties":
+                    convertProperties(value, converted);
+                    break;
+                case "patternProperties":
+                    converted.set("patternProperties", convertSchemaMap(value));
+                    break;
+                case "definitions":
+                    converted.set("$defs", convertSchemaMap(value));
+                    break;
+                case "$ref":
+                    converted.put("$ref", value.asText().replace(DEFINITIONS_POINTER, DEFS_POINTER));
+                    break;
+                case "additionalProperties":
+                    converted.set("additionalProperties", value.isObject() ? convertSchema(value) : value);
+                    break;
+                case "items":
+                    if (value.isArray()) {
+                        converted.set("prefixItems", convertSchemaArray(value));
+                    } else {
+                        converted.set("items", convertSchema(value));
+                    }
+                    break;
+                case "additionalItems":
+                    converted.set("items", value.isObject() ? convertSchema(value) : value);
+                    break;
+                case "type":
+                    convertType(value, converted);
+                    break;
+                case "extends":
+                    converted.set("allOf", value.isArray() ? convertSchemaArray(value) : nodeFactory.arrayNode().add(convertSchema(value)));
+                    break;
+                case "disallow":
+                    final ObjectNode disallowed = nodeFactory.objectNode();
+                    convertType(value, disallowed);
+                    converted.set("not", disallowed);
+                    break;
+                case "divisibleBy":
+                    converted.set("multipleOf", value);
+                    break;
+                case "exclusiveMinimum":
+                    if (value.asBoolean() && schema.has("minimum")) {
+                        converted.set("exclusiveMinimum", schema.get("minimum"));
+                    }
+                    break;
+                case "exclusiveMaximum":
+                    if (value.asBoolean() && schema.has("maximum")) {
+                        converted.set("exclusiveMaximum", schema.get("maximum"));
+                    }
+                    break;
+                case "minimum":
+                    if (!schema.path("exclusiveMinimum").asBoolean()) {
+                        converted.set("minimum", value);
+                    }
+                    break;
+                case "maximum":
+                    if (!schema.path("exclusiveMaximum").asBoolean()) {
+                        converted.set("maximum", value);
+                    }
+                    break;
+                case "readonly":
+                    converted.set("readOnly", value);
+                    break;
+                default:
+                    converted.set(field.getKey(), value);
+            }
+        }
+        return converted;
+    }
+
+    private void convertProperties(JsonNode properties, ObjectNode converted) {
+        final ObjectNode convertedProperties = converted.putObject("properties");
+        final ArrayNode required = nodeFactory.arrayNode();
+        final Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> property = fields.next();
+            convertedProperties.set(property.getKey(), convertSchema(property.getValue()));
+            if (property.getValue().path("required").asBoolean()) {
+                required.add(property.getKey());
+            }
+        }
+        if (required.size() > 0) {
+            converted.set("required", required);
+        }
+    }
+
+    /**
+     * Converts a draft-03 {@code type}, which may be a union of type names and schemas, to {@code type} or
+     * {@code anyOf}.
+     */
+    private void convertType(JsonNode type, ObjectNode converted) {
+        if (type.isTextual()) {
+            if (!type.asText().equals("any")) {
+                converted.set("type", type);
+            }
+            return;
+        }
+        boolean namesOnly = true;
+        for (JsonNode element : type) {
+            namesOnly &= element.isTextual() && !element.asText().equals("any");
+        }
+        if (namesOnly) {
+            converted.set("type", type);
+            return;
+        }
+        final ArrayNode anyOf = converted.putArray("anyOf");
+        for (JsonNode element : type) {
+            if (element.isTextual()) {
+                final ObjectNode named = nodeFactory.objectNode();
+                convertType(element, named);
+                anyOf.add(named);
+            } else {
+                anyOf.add(convertSchema(element));
+            }
+        }
+    }
+
+    private ObjectNode convertSchemaMap(JsonNode schemas) {
+        final ObjectNode converted = nodeFactory.objectNode();
+        schemas.fields().forEachRemaining(e -> converted.set(e.getKey(), convertSchema(e.getValue())));
+        return converted;
+    }
+
+    private ArrayNode convertSchemaArray(JsonNode schemas) {
+        final ArrayNode converted = nodeFactory.arrayNode();
+        schemas.forEach(schema -> converted.add(convertSchema(schema)));
+        return converted;
+    }
+
+    /**
+     * Moves each object type which appears more than once into {@code $defs}.
+     */
+    private ObjectNode hoistRepeatedTypes(ObjectNode root) {
+        final Map<String, Integer> occurrences = new HashMap<>();
+        forEachSubschema(root, subschema -> {
+            countTypes(subschema, occurrences);
+            return subschema;
+        });
+
+        final Set<String> existingNames = new HashSet<>();
+        root.path("$defs").fieldNames().forEachRemaining(existingNames::add);
+        final Hoister hoister = new Hoister(occurrences, existingNames);
+        forEachSubschema(root, hoister::hoist);
+        if (!hoister.defs.isEmpty()) {
+            // Add to the definitions converted from draft-03, which are already referenced by name
+            final ObjectNode defs = root.has("$defs") ? (ObjectNode) root.get("$defs") : root.putObject("$defs");
+            hoister.defs.forEach(defs::set);
+        }
+        return root;
+    }
+
+    private void countTypes(JsonNode schema, Map<String, Integer> occurrences) {
+        if (!schema.isObject()) {
+            return;
+        }
+        if (isHoistable(schema)) {
+            occurrences.merge(typeKey(schema), 1, Integer::sum);
+        }
+        forEachSubschema((ObjectNode) schema, subschema -> {
+            countTypes(subschema, occurrences);
+            return subschema;
+        });
+    }
+
+    private static boolean isHoistable(JsonNode schema) {
+        return schema.has("properties") && schema.get("properties").size() > 0;
+    }
+
+    /**
+     * Returns the schema without the annotations which may differ between the places the type is used.
+     */
+    private static ObjectNode typeOf(JsonNode schema) {
+        final ObjectNode type = ((ObjectNode) schema).deepCopy();
+        type.remove(ANNOTATIONS);
+        return type;
+    }
+
+    private static String typeKey(JsonNode schema) {
+        return typeOf(schema).toString();
+    }
+
+    /**
+     * Applies a function to each direct subschema of a schema, replacing it with the result.
+     */
+    private static void forEachSubschema(ObjectNode schema, UnaryOperator<JsonNode> function) {
+        for (String keyword : Arrays.asList("properties", "patternProperties", "$defs")) {
+            final JsonNode schemas = schema.get(keyword);
+            if (schemas != null && schemas.isObject()) {
+                final List<String> names = new ArrayList<>();
+                schemas.fieldNames().forEachRemaining(names::add);
+                for (String name : names) {
+                    ((ObjectNode) schemas).set(name, function.apply(schemas.get(name)));
+                }
+            }
+        }
+        for (String keyword : Arrays.asList("additionalProperties", "items", "not")) {
+            final JsonNode subschema = schema.get(keyword);
+            if (subschema != null && subschema.isObject()) {
+                schema.set(keyword, function.apply(subschema));
+            }
+        }
+        for (String keyword : Arrays.asList("prefixItems", "allOf", "anyOf", "oneOf")) {
+            final JsonNode subschemas = schema.get(keyword);
+            if (subschemas != null && subschemas.isArray()) {
+                for (int i = 0; i < subschemas.size(); i++) {
+                    ((ArrayNode) subschemas).set(i, function.apply(subschemas.get(i)));
+                }
+            }
+        }
+    }
+
+    private class Hoister {
+        private final Map<String, Integer> occurrences;
+        private final Set<String> existingNames;
+        private final Map<String, String> names = new HashMap<>();
+        private final Map<String, JsonNode> defs = new LinkedHashMap<>();
+
+        Hoister(Map<String, Integer> occurrences, Set<String> existingNames) {
+            this.occurrences = occurrences;
+            this.existingNames = existingNames;
+        }
+
+        JsonNode hoist(JsonNode schema) {
+            if (!schema.isObject()) {
+                return schema;
+            }
+            if (!isHoistable(schema) || occurrences.getOrDefault(typeKey(schema), 0) < 2) {
+                forEachSubschema((ObjectNode) schema, this::hoist);
+                return schema;
+            }
+
+            final String key = typeKey(schema);
+            String name = names.get(key);
+            if (name == null) {
+                name = defName(schema);
+                names.put(key, name);
+                defs.put(name, nodeFactory.nullNode()); // reserve the name, and keep definitions in first-use order
+                final ObjectNode def = typeOf(schema);
+                forEachSubschema(def, this::hoist);
+                defs.put(name, def);
+            }
+
+            final ObjectNode reference = nodeFactory.objectNode();
+            reference.put("$ref", DEFS_POINTER + name);
+            ANNOTATIONS.stream().filter(schema::has).forEach(annotation -> reference.set(annotation, schema.get(annotation)));
+            return reference;
+        }
+
+        /**
+         * Names a definition after the title of the first place the type is used, if it has one, avoiding the names of
+         * any existing definitions.
+         */
+        private String defName(JsonNode schema) {
+            final String title = schema.path("title").asText("").replaceAll("[^A-Za-z0-9_]", "");
+            final String base = title.isEmpty() ? "type" : title;
+            String name = base;
+            for (int i = 2; defs.containsKey(name) || existingNames.contains(name); i++) {
+                name = base + i;
+            }
+            return name;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A single enum value, with its title and description if it has them.
+ * <p>
+ * Enum sources can provide these directly, e.g. from a repository projection, rather than as full resources from which
+ * only the value and title are kept. See {@link EnumerableListController#enumOptions(String)}.
+ *
+ * @since 18/10/26
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class EnumOption {
+    private final String value;
+    private final String title;
+    private final String description;
+
+    public EnumOption(String value, String title) {
+        this(value, title, null);
+    }
+
+    public EnumOption(String value, String title, String description) {
+        this.value = value;
+        this.title = title;
+        this.description = description;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the display title, or null to display the value
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "EnumOption[" + value + (title == null ? "" : ", title=" + title) + "]";
+    }
+}
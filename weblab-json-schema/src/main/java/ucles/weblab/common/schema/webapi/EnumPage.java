@@ -0,0 +1,35 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the values of a large enumeration, as returned by the values endpoint which a
+ * {@link EnumSchemaCreator#createPagedEnum paged enum schema} links to. If there are more matching values, {@link #getNext()}
+ * is the cursor to request the next page with.
+ *
+ * @since 18/10/26
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class EnumPage {
+    private final List<EnumOption> items;
+    private final String next;
+
+    public EnumPage(List<EnumOption> items, String next) {
+        this.items = Collections.unmodifiableList(items);
+        this.next = next;
+    }
+
+    public List<EnumOption> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the cursor for the next page, or null if this is the last page
+     */
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,61 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves enum schemas from an {@link EnumSchemaRegistry}. The schemas are content-addressed, so they are served as
+ * cacheable forever, gzipped for clients which accept it.
+ * <p>
+ * The controller is mapped to {@code /$enums/{hash}} unless the {@code weblab.schema.enums-path} property specifies
+ * otherwise. Register it as a bean alongside the registry, and it will set the registry's base path to match.
+ * It is deliberately not a {@code @Controller} component, so that applications which scan this package do not get the
+ * endpoint unless they declare it; the type-level {@code @RequestMapping} lets Spring MVC detect it once declared.
+ *
+ * @since 18/10/26
+ */
+@RequestMapping
+public class EnumSchemaController {
+    private static final String IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+    private final EnumSchemaRegistry enumSchemaRegistry;
+
+    public EnumSchemaController(EnumSchemaRegistry enumSchemaRegistry) {
+        this.enumSchemaRegistry = enumSchemaRegistry;
+    }
+
+    /**
+     * Creates a controller which sets the registry's base path to the path the controller is mapped to, so that the
+     * enum references in resource schemas resolve here.
+     *
+     * @param enumsPath the value of {@code weblab.schema.enums-path}
+     * @param contextPath the servlet context path
+     */
+    @Autowired
+    public EnumSchemaController(EnumSchemaRegistry enumSchemaRegistry,
+                                @Value("${weblab.schema.enums-path:/$enums}") String enumsPath,
+                                @Value("${server.servlet.context-path:}") String contextPath) {
+        this(enumSchemaRegistry);
+        enumSchemaRegistry.setBasePath(contextPath + enumsPath + "/");
+    }
+
+    @GetJsonSchema("${weblab.schema.enums-path:/$enums}/{hash}")
+    public ResponseEntity<byte[]> enumSchema(@PathVariable String hash,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return enumSchemaRegistry.get(hash)
+                .map(schema -> schema.toResponseEntity(acceptEncoding, headers -> {
+                    headers.set(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+                    headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+                }))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
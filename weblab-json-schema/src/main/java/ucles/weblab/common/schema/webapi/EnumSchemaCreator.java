@@ -8,15 +8,25 @@ import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonFormatTypes;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchemaIdResolver;
 import com.fasterxml.jackson.module.jsonSchema.factories.JsonSchemaFactory;
+import com.fasterxml.jackson.module.jsonSchema.types.IntegerSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.LinkDescriptionObject;
+import com.fasterxml.jackson.module.jsonSchema.types.ObjectSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.SimpleTypeSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.StringSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.UnionTypeSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.ValueTypeSchema;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpMethod;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
@@ -24,6 +34,7 @@ import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Creates a (draft-3) JSON Schema (http://tools.ietf.org/html/draft-zyp-json-schema-03")
@@ -33,6 +44,48 @@ import static java.util.stream.Collectors.toCollection;
  * @since 14/12/15
  */
 public class EnumSchemaCreator {
+    /** The number of values in a page of a paged enum, if the client does not ask for a particular number. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    /** The most values that a page of a paged enum may contain. */
+    public static final int MAX_PAGE_SIZE = 100;
+    /** The query parameters accepted by the values endpoint of a paged enum. */
+    public static final String QUERY_PARAM = "q";
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String LIMIT_PARAM = "limit";
+
+    private EnumSchemaRegistry enumSchemaRegistry;
+    private SchemaMetrics metrics = SchemaMetrics.NOOP;
+
+    /**
+     * Sets a registry to hold union enum schemas (those with titles), so that resource schemas reference them by URL
+     * rather than inlining them as {@code data:} URIs.
+     *
+     * @param enumSchemaRegistry the registry, or null to inline enum schemas
+     */
+    public void setEnumSchemaRegistry(EnumSchemaRegistry enumSchemaRegistry) {
+        this.enumSchemaRegistry = enumSchemaRegistry;
+    }
+
+    /**
+     * @return the registry for union enum schemas, or null if they are inlined
+     */
+    public EnumSchemaRegistry getEnumSchemaRegistry() {
+        return enumSchemaRegistry;
+    }
+
+    /**
+     * Sets where to report the time taken to create enum schemas. The metrics are also used by the Jackson visitors
+     * which generate resource and request parameter schemas with this creator.
+     *
+     * @param metrics the metrics to report to, or {@link SchemaMetrics#NOOP}
+     */
+    public void setMetrics(SchemaMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SchemaMetrics getMetrics() {
+        return metrics;
+    }
 
     /**
      * Creates an enum schema based off a stream source and a set of mapping functions to extract values, names and
@@ -49,6 +102,20 @@ public class EnumSchemaCreator {
      * @return the enum schema
      */
     public <T> JsonSchema createEnum(Stream<T> sourceStream, Function<T, String> valueFn, Optional<Function<T, String>> nameFn, Optional<Function<T, String>> descriptionFn, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return createEnum(null, sourceStream, valueFn, nameFn, descriptionFn, valueSchemaSupplier);
+    }
+
+    /**
+     * As per {@link #createEnum(Stream, Function, Optional, Optional, Supplier)}, timing the generation against the
+     * type the enum describes.
+     *
+     * @param type the type the enum describes, e.g. the resource class, or null if there is none
+     */
+    public <T> JsonSchema createEnum(Class<?> type, Stream<T> sourceStream, Function<T, String> valueFn, Optional<Function<T, String>> nameFn, Optional<Function<T, String>> descriptionFn, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return metrics.timeGeneration(SchemaMetrics.Kind.ENUM, type, () -> doCreateEnum(sourceStream, valueFn, nameFn, descriptionFn, valueSchemaSupplier));
+    }
+
+    private <T> JsonSchema doCreateEnum(Stream<T> sourceStream, Function<T, String> valueFn, Optional<Function<T, String>> nameFn, Optional<Function<T, String>> descriptionFn, Supplier<ValueTypeSchema> valueSchemaSupplier) {
         JsonSchema jsonSchema;
         if (nameFn.isPresent() || descriptionFn.isPresent()) {
             jsonSchema = new NonBrokenUnionTypeSchema();
@@ -79,6 +146,39 @@ public class EnumSchemaCreator {
         return jsonSchema;
     }
 
+    /**
+     * Creates an enum schema from ready-made enum options, e.g. streamed from a repository projection. If any option
+     * has a title or description, the returned schema will be a union schema where each element has exactly one valid
+     * enum constant. Otherwise, the returned schema will be a simple value type schema.
+     *
+     * @param options stream of enum options
+     * @param valueSchemaSupplier supplier of new schema objects of the correct type for enum values (e.g. {@link JsonSchemaFactory#stringSchema()}).
+     * @return the enum schema
+     */
+    public JsonSchema createEnum(Stream<EnumOption> options, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return createEnum(null, options, valueSchemaSupplier);
+    }
+
+    /**
+     * As per {@link #createEnum(Stream, Supplier)}, timing the generation against the type the enum describes.
+     *
+     * @param type the type the enum describes, e.g. the resource class, or null if there is none
+     */
+    public JsonSchema createEnum(Class<?> type, Stream<EnumOption> options, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return metrics.timeGeneration(SchemaMetrics.Kind.ENUM, type, () -> {
+            final List<EnumOption> optionList;
+            try (Stream<EnumOption> optionStream = options) {
+                optionList = optionStream.collect(toList());
+            }
+            final Function<EnumOption, String> valueFn = EnumOption::getValue;
+            final Optional<Function<EnumOption, String>> nameFn = optionList.stream().anyMatch(o -> o.getTitle() != null)
+                    ? Optional.of(EnumOption::getTitle) : Optional.empty();
+            final Optional<Function<EnumOption, String>> descriptionFn = optionList.stream().anyMatch(o -> o.getDescription() != null)
+                    ? Optional.of(EnumOption::getDescription) : Optional.empty();
+            return doCreateEnum(optionList.stream(), valueFn, nameFn, descriptionFn, valueSchemaSupplier);
+        });
+    }
+
     /**
      * Creates an enum schema based off a constant map.
      * The map keys are the valid enum constants and the map values are the titles to associate with them.
@@ -91,11 +191,24 @@ public class EnumSchemaCreator {
      * @return the enum schema
      */
     public JsonSchema createEnum(Map<String, String> enumValues, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return createEnum(null, enumValues, valueSchemaSupplier);
+    }
+
+    /**
+     * As per {@link #createEnum(Map, Supplier)}, timing the generation against the type the enum describes.
+     *
+     * @param type the type the enum describes, e.g. the Java enum or the bean declaring the constants, or null if there is none
+     */
+    public JsonSchema createEnum(Class<?> type, Map<String, String> enumValues, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        return metrics.timeGeneration(SchemaMetrics.Kind.ENUM, type, () -> doCreateEnum(enumValues, valueSchemaSupplier));
+    }
+
+    private JsonSchema doCreateEnum(Map<String, String> enumValues, Supplier<ValueTypeSchema> valueSchemaSupplier) {
         JsonSchema enumSchema;
         if (enumValues.entrySet().stream().anyMatch(e -> e.getValue() != null && !e.getValue().equals(e.getKey()))) {
             Function<Map.Entry<String, String>, String> valueFn = Map.Entry<String, String>::getKey;
             Optional<Function<Map.Entry<String, String>, String>> nameFn = Optional.of(Map.Entry<String, String>::getValue);
-            return createEnum(enumValues.entrySet().stream(), valueFn, nameFn, Optional.empty(), valueSchemaSupplier);
+            return doCreateEnum(enumValues.entrySet().stream(), valueFn, nameFn, Optional.empty(), valueSchemaSupplier);
         } else {
             enumSchema = valueSchemaSupplier.get();
             enumSchema.asValueTypeSchema().setEnums(enumValues.keySet());
@@ -103,6 +216,139 @@ public class EnumSchemaCreator {
         return enumSchema;
     }
 
+    /**
+     * Creates a compact schema for an enumeration too large to list in full. Rather than the valid values, the schema
+     * has a {@code search} link to an endpoint which returns them as {@link EnumPage}s, accepting these parameters
+     * (which the link's schema describes):
+     * <ul>
+     *     <li>{@value #QUERY_PARAM} - a prefix to match against the start of each value's title (or the value, if it
+     *     has no title), ignoring case</li>
+     *     <li>{@value #CURSOR_PARAM} - the {@link EnumPage#getNext() next} cursor from the previous page</li>
+     *     <li>{@value #LIMIT_PARAM} - the page size, up to {@value #MAX_PAGE_SIZE}</li>
+     * </ul>
+     * The endpoint should use {@link #page} to produce the pages.
+     *
+     * @param valuesHref the URL of the values endpoint
+     * @param valueSchemaSupplier supplier of a new schema object of the correct type for the enum values
+     * @return the enum schema
+     */
+    public JsonSchema createPagedEnum(String valuesHref, Supplier<ValueTypeSchema> valueSchemaSupplier) {
+        final ObjectSchema parameters = new ObjectSchema();
+        parameters.putOptionalProperty(QUERY_PARAM, new StringSchema());
+        parameters.putOptionalProperty(CURSOR_PARAM, new StringSchema());
+        final IntegerSchema limit = new IntegerSchema();
+        limit.setMinimum(1.0);
+        limit.setMaximum((double) MAX_PAGE_SIZE);
+        limit.setDefault(String.valueOf(DEFAULT_PAGE_SIZE));
+        parameters.putOptionalProperty(LIMIT_PARAM, limit);
+
+        final ValueTypeSchema jsonSchema = valueSchemaSupplier.get();
+        jsonSchema.setLinks(new LinkDescriptionObject[]{
+                new LinkDescriptionObject()
+                        .setRel(IanaLinkRelations.SEARCH.value())
+                        .setHref(valuesHref)
+                        .setMethod(HttpMethod.GET.toString())
+                        .setSchema(parameters)
+        });
+        return jsonSchema;
+    }
+
+    /**
+     * Returns a page of the values of a large enumeration, for the values endpoint of a
+     * {@link #createPagedEnum paged enum schema}. Only the values for the page requested are held in memory, so the
+     * source can be a stream over a very large result set e.g. from a Spring Data repository; it is closed once the
+     * page is read. The source is still read from the start for every page, so where the store can filter and limit
+     * the values itself, use {@link #page(OptionFinder, String, String, Integer)} instead.
+     * <p>
+     * The cursor is the value of the last item on the previous page, so the source must be in a stable order with
+     * unique values. If the item a cursor refers to is removed, there are no further pages.
+     *
+     * @param source stream of source objects, in a stable order
+     * @param valueFn function to extract the enum constant value from a source object
+     * @param nameFn optional function to extract the enum constant title (label) from a source object
+     * @param descriptionFn optional function to extract the enum constant description from a source object
+     * @param query prefix to match against the start of each title, or value if there is no title, or null for all values
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of values to return, or null for {@value #DEFAULT_PAGE_SIZE}
+     * @param <T> the type of the source object
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is not one that was returned with a previous page
+     */
+    public <T> EnumPage page(Stream<T> source, Function<T, String> valueFn, Optional<Function<T, String>> nameFn, Optional<Function<T, String>> descriptionFn,
+                             String query, String cursor, Integer limit) {
+        return page((prefix, after, fetchLimit) -> {
+            try (Stream<T> sourceStream = source) {
+                Stream<EnumOption> matches = sourceStream
+                        .map(r -> new EnumOption(valueFn.apply(r),
+                                nameFn.map(f -> f.apply(r)).orElse(null),
+                                descriptionFn.map(f -> f.apply(r)).orElse(null)))
+                        .filter(item -> prefix == null
+                                || Optional.ofNullable(item.getTitle()).orElse(item.getValue()).toLowerCase(Locale.ROOT).startsWith(prefix));
+                if (after != null) {
+                    matches = matches.dropWhile(item -> !after.equals(item.getValue())).skip(1);
+                }
+                return matches.limit(fetchLimit).collect(toList());
+            }
+        }, query, cursor, limit);
+    }
+
+    /**
+     * Finds the options for one page of a large enumeration, for {@link #page(OptionFinder, String, String, Integer)},
+     * so that the store can do the filtering and limiting, e.g. with a query like
+     * <pre>
+     *     where lower(coalesce(title, value)) like :prefix || '%' and (:after is null or value &gt; :after)
+     *     order by value limit :limit
+     * </pre>
+     */
+    @FunctionalInterface
+    public interface OptionFinder {
+        /**
+         * @param prefix lower case prefix which each option's title, or value if it has no title, must start with,
+         *               ignoring case, or null for all options
+         * @param after the value of the option to continue after, or null to start from the first option
+         * @param limit the maximum number of options to return
+         * @return the matching options after {@code after}, in a stable order with unique values
+         */
+        List<EnumOption> find(String prefix, String after, int limit);
+    }
+
+    /**
+     * Returns a page of the values of a large enumeration, for the values endpoint of a
+     * {@link #createPagedEnum paged enum schema}, from a finder which queries for just the values on the page.
+     * The cursor is the value of the last item on the page, which the finder continues after.
+     *
+     * @param finder finds the options for the page
+     * @param query prefix to match against the start of each title, or value if there is no title, or null for all values
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of values to return, or null for {@value #DEFAULT_PAGE_SIZE}
+     * @return the page
+     * @throws IllegalArgumentException if the cursor is not one that was returned with a previous page
+     */
+    public EnumPage page(OptionFinder finder, String query, String cursor, Integer limit) {
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        final String prefix = query == null || query.isEmpty() ? null : query.toLowerCase(Locale.ROOT);
+
+        // Ask for one more than the page, to tell whether there is a next page
+        final List<EnumOption> found = finder.find(prefix, decodeCursor(cursor), pageSize + 1);
+        final List<EnumOption> items = found.size() > pageSize ? new ArrayList<>(found.subList(0, pageSize)) : found;
+        return new EnumPage(items, found.size() > pageSize ? encodeCursor(items.get(items.size() - 1).getValue()) : null);
+    }
+
+    private static String encodeCursor(String lastValue) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastValue.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
     /**
      * The Jackson implementation of UnionTypeSchema is completely broken for serialization.
      * It returns a basic type in the 'type' property, and it returns the union in an 'elements' array.
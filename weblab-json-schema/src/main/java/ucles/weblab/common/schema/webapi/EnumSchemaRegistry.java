@@ -0,0 +1,98 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds each distinct enum schema once, under the hash of its serialized content, so that resource schemas can
+ * reference enums by URL (served by {@link EnumSchemaController}) rather than inlining them.
+ * <p>
+ * Since the URL of an enum schema is derived from its content, it never changes, and clients may cache it indefinitely.
+ * The base path must match the path {@code EnumSchemaController} is mapped to, including any servlet context path;
+ * when the controller is created by Spring it sets the base path from {@code weblab.schema.enums-path}.
+ * Enum schemas are registered as resource schemas are generated, so an enum URL only resolves once a schema which
+ * references it has been generated on this node. A URL handed out by another node, or before a restart, is not found
+ * until then, so use a {@link SchemaPrewarmer} to generate every resource's schema on startup.
+ *
+ * @since 18/10/26
+ */
+public class EnumSchemaRegistry {
+    public static final String DEFAULT_BASE_PATH = "/$enums/";
+
+    private final Map<String, SerializedSchema> schemas = new ConcurrentHashMap<>();
+    private volatile String basePath;
+
+    public EnumSchemaRegistry() {
+        this(DEFAULT_BASE_PATH);
+    }
+
+    /**
+     * @param basePath the path to reference registered schemas under, ending in a {@code /}
+     */
+    public EnumSchemaRegistry(String basePath) {
+        setBasePath(basePath);
+    }
+
+    /**
+     * Sets the path to reference registered schemas under. This must be set before any schemas are generated, since
+     * references already handed out are not changed.
+     *
+     * @param basePath the path to reference registered schemas under, ending in a {@code /}
+     */
+    public void setBasePath(String basePath) {
+        Assert.isTrue(basePath.endsWith("/"), "Base path must end with /");
+        this.basePath = basePath;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * Registers a serialized enum schema.
+     *
+     * @param serializedSchema the canonical serialized schema
+     * @return the hash the schema is registered under
+     */
+    public String register(byte[] serializedSchema) {
+        final String hash = DigestUtils.md5DigestAsHex(serializedSchema);
+        schemas.computeIfAbsent(hash, h -> new SerializedSchema(serializedSchema));
+        return hash;
+    }
+
+    public Optional<SerializedSchema> get(String hash) {
+        return Optional.ofNullable(schemas.get(hash));
+    }
+
+    /**
+     * @return the URI to reference a registered schema by, relative to the server root
+     */
+    public URI referenceTo(String hash) {
+        return URI.create(basePath + hash);
+    }
+
+    /**
+     * Makes a reference from {@link #referenceTo(String)} absolute against the current request's scheme and host. A
+     * draft-3 {@code $ref} is resolved against the nearest enclosing {@code id}, which for a property is its
+     * {@code order:} id, so a reference relative to the server root cannot be resolved by clients. Outside a request,
+     * e.g. when skeletons are generated at build time, the reference is returned unchanged.
+     */
+    static URI absolute(URI reference) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes)) {
+            return reference;
+        }
+        return ServletUriComponentsBuilder.fromCurrentRequestUri().replacePath(reference.getPath()).build().toUri();
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+}
@@ -0,0 +1,105 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Identifies a version of the values of an enumeration, so that an enum schema built from them can be reused until
+ * they change. See {@link EnumerableListController#enumWatermark(String)}.
+ * <p>
+ * A watermark is either the time the values were last modified, e.g. the maximum last-modified timestamp of the
+ * underlying rows, or an opaque version such as a content hash. Only a last-modified watermark gives a
+ * {@code Last-Modified} header.
+ *
+ * @since 18/10/26
+ */
+public final class EnumWatermark {
+    private final String version;
+    private final Instant lastModified;
+
+    private EnumWatermark(String version, Instant lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param lastModified the time any of the values was last added, changed or removed
+     */
+    public static EnumWatermark ofLastModified(Instant lastModified) {
+        Assert.notNull(lastModified, "Last modified time is required");
+        return new EnumWatermark(Long.toString(lastModified.toEpochMilli()), lastModified);
+    }
+
+    /**
+     * @param version an opaque version which changes whenever the values do, e.g. a row version or sequence number
+     */
+    public static EnumWatermark ofVersion(String version) {
+        Assert.hasText(version, "Version is required");
+        return new EnumWatermark(version, null);
+    }
+
+    /**
+     * Computes a content hash of the value/name pairs of an enumeration. This still reads every value, but is much
+     * cheaper than building and serializing the enum schema from them.
+     *
+     * @param source stream of source objects, in the order they appear in the enum
+     * @param valueFn function to extract the enum constant value from a source object
+     * @param nameFn optional function to extract the enum constant title (label) from a source object
+     * @param <T> the type of the source object
+     */
+    public static <T> EnumWatermark ofValues(Stream<T> source, Function<T, String> valueFn, Optional<Function<T, String>> nameFn) {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (Stream<T> sourceStream = source) {
+            sourceStream.forEach(r -> {
+                final byte[] value = valueFn.apply(r).getBytes(StandardCharsets.UTF_8);
+                content.write(value, 0, value.length);
+                content.write(0);
+                nameFn.map(f -> f.apply(r)).ifPresent(name -> {
+                    final byte[] title = name.getBytes(StandardCharsets.UTF_8);
+                    content.write(title, 0, title.length);
+                });
+                content.write('\n');
+            });
+        }
+        return new EnumWatermark(DigestUtils.md5DigestAsHex(content.toByteArray()), null);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Optional<Instant> getLastModified() {
+        return Optional.ofNullable(lastModified);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EnumWatermark that = (EnumWatermark) o;
+        return version.equals(that.version) &&
+                Objects.equals(lastModified, that.lastModified);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, lastModified);
+    }
+
+    @Override
+    public String toString() {
+        return "EnumWatermark[" + version + "]";
+    }
+}
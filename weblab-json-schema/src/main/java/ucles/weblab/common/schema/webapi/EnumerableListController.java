@@ -1,10 +1,14 @@
 package ucles.weblab.common.schema.webapi;
 
 import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 
+import java.net.URI;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * This class is a mixin for {@link SelfDescribingController} which adds methods to get an enum list.
@@ -14,10 +18,173 @@ import java.util.function.Function;
  * @since 14/10/15
  */
 public abstract class EnumerableListController<C extends EnumerableListController<C, R>, R extends RepresentationModel<R>> extends SelfDescribingController<C, R> {
+    private final SchemaCache<EnumSchemaKey, VersionedEnumSchema> enumSchemas = new SchemaCache<>();
 
+    /**
+     * Builds the enum schema for the owner, from its {@link #enumOptions(String) enum options} if the controller
+     * provides them, or else from its {@link #list(String) list} of resources using the functions given.
+     */
     protected com.fasterxml.jackson.module.jsonSchema.JsonSchema enumSchema(String owner, Function<R, String> valueFn, Optional<Function<R, String>> nameFn) {
+        final Optional<Stream<EnumOption>> options = enumOptions(owner);
+        if (options.isPresent()) {
+            return getSchemaCreator().createEnum(options.get(), self().enumerate(owner));
+        }
         return getSchemaCreator().createEnum(list(owner).getList(), self().enumerate(owner), valueFn, nameFn);
     }
 
-    abstract public ResponseEntity<com.fasterxml.jackson.module.jsonSchema.JsonSchema> enumerate(String owner);
+    /**
+     * Returns the owner's enum values as lightweight options, e.g. streamed from a repository projection, so that
+     * building an enum neither assembles resources nor builds their links. Where provided, the options are used by
+     * {@link #enumSchema}, {@link #enumSchemaResponse} and {@link #enumPage} in place of the owner's resources, and
+     * the value and name functions passed to those methods are not used. The stream is closed once it has been read.
+     * <p>
+     * By default there are no options, and enums are built from the owner's {@link #list(String) list}.
+     */
+    protected Optional<Stream<EnumOption>> enumOptions(String owner) {
+        return Optional.empty();
+    }
+
+    /**
+     * As per {@link #enumSchema(String, Function, Optional)} but serialized with an ETag, so that an unchanged enum
+     * can be revalidated by the client without being transferred again, and in the
+     * {@link #requestedSchemaDialect() dialect the request asks for}.
+     * <p>
+     * If the controller provides an {@link #enumWatermark(String) enum watermark} for the owner, the serialized schema
+     * is kept until the watermark moves, so an unchanged enum is neither listed nor rebuilt, and a last-modified
+     * watermark is also sent as {@code Last-Modified}. The kept schemas are bounded in number, and kept separately for
+     * each locale and for each user, since the owner's list may depend on who is asking.
+     */
+    protected ResponseEntity<byte[]> enumSchemaResponse(String owner, Function<R, String> valueFn, Optional<Function<R, String>> nameFn) {
+        final Optional<EnumWatermark> watermark = enumWatermark(owner);
+        if (!watermark.isPresent()) {
+            return negotiatedSchemaResponse(getSchemaCreator().serialize(enumSchema(owner, valueFn, nameFn)));
+        }
+
+        // The schema ID is the full URL, but only its path is used in the key so that the Host header cannot add entries
+        final URI href = WebMvcLinkBuilder.linkTo(self().enumerate(owner)).toUri();
+        final EnumSchemaKey key = new EnumSchemaKey(href.getRawPath() + (href.getRawQuery() == null ? "" : '?' + href.getRawQuery()),
+                SchemaCacheKey.current(getClass(), false, true));
+        VersionedEnumSchema versionedSchema = enumSchemas.getIfPresent(key)
+                .filter(existing -> existing.watermark.equals(watermark.get()) && existing.href.equals(href))
+                .orElse(null);
+        if (versionedSchema == null) {
+            versionedSchema = new VersionedEnumSchema(watermark.get(), href, getSchemaCreator().serialize(enumSchema(owner, valueFn, nameFn)));
+            enumSchemas.put(key, versionedSchema);
+        }
+        final ResponseEntity<byte[]> response = negotiatedSchemaResponse(versionedSchema.schema);
+        return versionedSchema.watermark.getLastModified()
+                .map(lastModified -> ResponseEntity.ok().headers(response.getHeaders()).lastModified(lastModified).body(response.getBody()))
+                .orElse(response);
+    }
+
+    /**
+     * Returns the current version of the owner's enum values, if it can be found more cheaply than listing them, e.g.
+     * from the maximum last-modified timestamp of the underlying rows. While the watermark is unchanged,
+     * {@link #enumSchemaResponse} reuses the enum schema it last built for the owner. Spring MVC answers a request
+     * whose {@code If-None-Match} or {@code If-Modified-Since} matches with a 304, without writing the body.
+     * <p>
+     * By default there is no watermark, and the enum schema is rebuilt on every request.
+     */
+    protected Optional<EnumWatermark> enumWatermark(String owner) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a compact enum schema for owners with too many resources to list in full. The schema links to a values
+     * endpoint, which the controller provides by returning {@link #enumPage} from a method mapped for {@code GET}
+     * with the {@code q}, {@code cursor} and {@code limit} request parameters.
+     *
+     * @param valuesMethod a {@code LastInvocationAware} method reference to the values endpoint for the owner
+     */
+    protected ResponseEntity<byte[]> pagedEnumSchemaResponse(String owner, Object valuesMethod) {
+        return negotiatedSchemaResponse(getSchemaCreator().serialize(getSchemaCreator().createPagedEnum(self().enumerate(owner), valuesMethod)));
+    }
+
+    /**
+     * Returns a page of the values for the owner's resources, for the values endpoint of a
+     * {@link #pagedEnumSchemaResponse paged enum schema}.
+     */
+    protected EnumPage enumPage(String owner, Function<R, String> valueFn, Optional<Function<R, String>> nameFn,
+                                String query, String cursor, Integer limit) {
+        final EnumSchemaCreator enumSchemaCreator = getSchemaCreator().getEnumSchemaCreator();
+        final Optional<EnumSchemaCreator.OptionFinder> finder = enumOptionFinder(owner);
+        if (finder.isPresent()) {
+            return enumSchemaCreator.page(finder.get(), query, cursor, limit);
+        }
+        final Optional<Stream<EnumOption>> options = enumOptions(owner);
+        if (options.isPresent()) {
+            return enumSchemaCreator.page(options.get(), EnumOption::getValue, Optional.of(EnumOption::getTitle),
+                    Optional.of(EnumOption::getDescription), query, cursor, limit);
+        }
+        return enumSchemaCreator.page(enumSource(owner), valueFn, nameFn, Optional.empty(), query, cursor, limit);
+    }
+
+    /**
+     * Returns a finder for the owner's options on one page of {@link #enumPage}, which pushes the prefix filter, the
+     * cursor and the limit down to the repository, e.g.
+     * <pre>
+     *     return Optional.of((prefix, after, limit) -&gt; optionRepository.findPage(owner, prefix, after, limit));
+     * </pre>
+     * See {@link EnumSchemaCreator.OptionFinder} for the query to run. Where provided, it is used in place of
+     * {@link #enumOptions(String)} and {@link #enumSource(String)} for paging.
+     * <p>
+     * By default there is no finder, and {@link #enumPage} reads through the owner's options or resources for every page.
+     */
+    protected Optional<EnumSchemaCreator.OptionFinder> enumOptionFinder(String owner) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the owner's resources to page through for {@link #enumPage}. By default, this is the owner's
+     * {@link #list(String) list}, which is loaded in full; override it to stream from the repository instead, so that
+     * only the requested page is held in memory. The stream is still read from the start for every page, so provide an
+     * {@link #enumOptionFinder(String) enum option finder} to query for just the page instead.
+     */
+    protected Stream<R> enumSource(String owner) {
+        return list(owner).getList().stream();
+    }
+
+    abstract public ResponseEntity<?> enumerate(String owner);
+
+    private static class VersionedEnumSchema {
+        final EnumWatermark watermark;
+        final URI href;
+        final SerializedSchema schema;
+
+        VersionedEnumSchema(EnumWatermark watermark, URI href, SerializedSchema schema) {
+            this.watermark = watermark;
+            this.href = href;
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * Identifies an owner's enum schema by the path of its URL and the locale and user it was built for.
+     */
+    private static final class EnumSchemaKey {
+        final String path;
+        final SchemaCacheKey caller;
+
+        EnumSchemaKey(String path, SchemaCacheKey caller) {
+            this.path = path;
+            this.caller = caller;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            EnumSchemaKey that = (EnumSchemaKey) o;
+            return path.equals(that.path) && caller.equals(that.caller);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, caller);
+        }
+    }
 }
@@ -12,12 +12,17 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
 
 /**
- * Shorthand for GET mapping which produces JSON Schema.
+ * Shorthand for GET mapping which produces JSON Schema. The binary encodings are only served by handler methods which
+ * negotiate them, e.g. with {@link SchemaCreatingController#negotiatedSchemaResponse(SerializedSchema)}.
  *
  * Derived from spring-composed
  * @author Sam Brannen (see See https://github.com/sbrannen/spring-composed/tree/master/src/main/java/org/springframework/composed/web/rest)
  */
-@RequestMapping(method = GET, produces = SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8_VALUE)
+@RequestMapping(method = GET, produces = {
+        SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8_VALUE,
+        SchemaMediaTypes.APPLICATION_SCHEMA_SMILE_VALUE,
+        SchemaMediaTypes.APPLICATION_SCHEMA_CBOR_VALUE
+})
 @Target(METHOD)
 @Retention(RUNTIME)
 @Documented
@@ -0,0 +1,43 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.ReferenceSchema;
+import org.springframework.beans.BeanUtils;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Makes shallow copies of Jackson schema objects, so that a shared (e.g. cached) schema can be decorated for one
+ * request without affecting any other.
+ * <p>
+ * Only the copied node is new: its children are shared with the original, apart from an object schema's properties
+ * map and a {@link DefiningObjectSchema}'s definitions map, which are copied so that properties and definitions can be
+ * replaced on the copy. Reference schemas, which have no default constructor, are copied with their reference.
+ *
+ * @since 18/10/26
+ */
+final class JsonSchemaCopier {
+    private JsonSchemaCopier() {
+        // Prevent instantiation
+    }
+
+    @SuppressWarnings("unchecked")
+    static <S extends JsonSchema> S shallowCopy(S source) {
+        final S copy;
+        if (source instanceof TypedReferenceSchema) {
+            copy = (S) new TypedReferenceSchema(((TypedReferenceSchema) source).get$ref(), source.getType());
+        } else if (source instanceof ReferenceSchema) {
+            copy = (S) new ReferenceSchema(((ReferenceSchema) source).get$ref());
+        } else {
+            copy = (S) BeanUtils.instantiateClass(source.getClass());
+        }
+        BeanUtils.copyProperties(source, copy);
+        if (source.isObjectSchema() && source.asObjectSchema().getProperties() != null) {
+            copy.asObjectSchema().setProperties(new LinkedHashMap<>(source.asObjectSchema().getProperties()));
+        }
+        if (source instanceof DefiningObjectSchema && ((DefiningObjectSchema) source).getDefinitions() != null) {
+            ((DefiningObjectSchema) copy).setDefinitions(new LinkedHashMap<>(((DefiningObjectSchema) source).getDefinitions()));
+        }
+        return copy;
+    }
+}
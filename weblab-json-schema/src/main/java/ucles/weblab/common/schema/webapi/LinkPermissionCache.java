@@ -0,0 +1,226 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpNot;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.hateoas.server.core.MethodInvocation;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreFilter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.Assert;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Remembers whether the current user may follow a schema link, so that method security expressions are not evaluated
+ * for the {@code instances} and {@code create} links every time a schema is described. See
+ * {@link ResourceSchemaCreator#setLinkPermissionCache(LinkPermissionCache)}.
+ * <p>
+ * Decisions are cached against the controller method and the user's authentication type and granted authorities, so
+ * only checks which depend on nothing else are cached: methods with no security annotations, {@link Secured @Secured}
+ * methods, and methods whose {@link PreAuthorize @PreAuthorize} expression only calls the built-in role and
+ * authentication checks such as {@code hasRole} and {@code isAuthenticated}. Checks which refer to method arguments,
+ * the principal or beans, or which use post-invocation annotations, are evaluated every time; to avoid re-parsing
+ * their expressions, set a {@link CachingExpressionParser} on the security expression handler.
+ * <p>
+ * Cached decisions are kept until {@link #invalidateAll() invalidated}, or for the {@link #setTimeToLive time to live}
+ * if there is one, e.g. where role assignments can change at runtime.
+ *
+ * @since 18/10/26
+ */
+public class LinkPermissionCache {
+    /**
+     * The {@code SecurityExpressionRoot} methods whose result depends only on the authentication type and authorities.
+     */
+    private static final Set<String> AUTHORITY_METHODS = new HashSet<>(Arrays.asList(
+            "hasRole", "hasAnyRole", "hasAuthority", "hasAnyAuthority", "permitAll", "denyAll",
+            "isAnonymous", "isAuthenticated", "isRememberMe", "isFullyAuthenticated"));
+    private static final Set<String> AUTHORITY_PROPERTIES = new HashSet<>(Arrays.asList(
+            "permitAll", "denyAll"));
+
+    private final SchemaCache<Key, Decision> decisions;
+    private final CachingExpressionParser expressionParser = new CachingExpressionParser();
+    private final Map<Method, Boolean> cacheable = new ConcurrentHashMap<>();
+    private Duration timeToLive;
+
+    public LinkPermissionCache() {
+        this(SchemaCache.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize the maximum number of decisions to keep
+     */
+    public LinkPermissionCache(int maximumSize) {
+        this.decisions = new SchemaCache<>(maximumSize);
+    }
+
+    /**
+     * Sets how long a decision is used for before it is checked again, or null (the default) to keep decisions until
+     * they are invalidated or evicted.
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        Assert.isTrue(timeToLive == null || !timeToLive.isNegative(), "Time to live must not be negative");
+        this.timeToLive = timeToLive;
+    }
+
+    public SchemaCache<?, ?> getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Discards all cached decisions.
+     */
+    public void invalidateAll() {
+        decisions.invalidateAll();
+    }
+
+    /**
+     * Returns whether the current user may invoke a controller method, from the cache if the decision does not depend
+     * on the invocation's arguments.
+     *
+     * @param invocation the invocation to check
+     * @param checker the security check to make on a cache miss
+     * @return true if the invocation is permitted
+     */
+    public boolean check(MethodInvocation invocation, Predicate<MethodInvocation> checker) {
+        final Method method = invocation.getMethod();
+        if (!cacheable.computeIfAbsent(method, m -> isCacheable(m, invocation.getTargetType()))) {
+            return checker.test(invocation);
+        }
+
+        final Key key = Key.current(method);
+        Decision decision = decisions.get(key, k -> new Decision(checker.test(invocation)));
+        if (timeToLive != null && decision.isOlderThan(timeToLive)) {
+            decisions.invalidate(key);
+            decision = decisions.get(key, k -> new Decision(checker.test(invocation)));
+        }
+        return decision.permitted;
+    }
+
+    /**
+     * Returns whether the security check on a method depends only on the user's authentication type and authorities.
+     */
+    boolean isCacheable(Method method, Class<?> targetType) {
+        for (Class<? extends Annotation> postInvocation : Arrays.asList(PostAuthorize.class, PostFilter.class, PreFilter.class)) {
+            if (AnnotatedElementUtils.hasAnnotation(method, postInvocation)) {
+                return false;
+            }
+        }
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PreAuthorize.class);
+        if (preAuthorize == null && targetType != null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(targetType, PreAuthorize.class);
+        }
+        if (preAuthorize == null) {
+            return true;
+        }
+        try {
+            final Expression expression = expressionParser.parseExpression(preAuthorize.value());
+            return expression instanceof SpelExpression && dependsOnlyOnAuthorities(((SpelExpression) expression).getAST());
+        } catch (ParseException e) {
+            // let the security checker report it
+            return false;
+        }
+    }
+
+    private static boolean dependsOnlyOnAuthorities(SpelNode node) {
+        if (node instanceof MethodReference) {
+            if (!AUTHORITY_METHODS.contains(((MethodReference) node).getName())) {
+                return false;
+            }
+        } else if (node instanceof PropertyOrFieldReference) {
+            if (!AUTHORITY_PROPERTIES.contains(((PropertyOrFieldReference) node).getName())) {
+                return false;
+            }
+        } else if (!(node instanceof Literal || node instanceof OpAnd || node instanceof OpOr || node instanceof OpNot
+                || node instanceof CompoundExpression)) {
+            return false;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (!dependsOnlyOnAuthorities(node.getChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Key {
+        private final Method method;
+        private final Class<?> authenticationType;
+        private final Set<String> authorities;
+
+        private Key(Method method, Class<?> authenticationType, Set<String> authorities) {
+            this.method = method;
+            this.authenticationType = authenticationType;
+            this.authorities = authorities;
+        }
+
+        static Key current(Method method) {
+            final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null) {
+                return new Key(method, null, Collections.emptySet());
+            }
+            final Set<String> authorities = new TreeSet<>();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                authorities.add(authority.getAuthority());
+            }
+            return new Key(method, authentication.getClass(), authorities);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return method.equals(key.method) &&
+                    Objects.equals(authenticationType, key.authenticationType) &&
+                    authorities.equals(key.authorities);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, authenticationType, authorities);
+        }
+    }
+
+    private static final class Decision {
+        private final boolean permitted;
+        private final long decidedAt = System.nanoTime();
+
+        Decision(boolean permitted) {
+            this.permitted = permitted;
+        }
+
+        boolean isOlderThan(Duration timeToLive) {
+            return System.nanoTime() - decidedAt > timeToLive.toNanos();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.SynthesizingMethodParameter;
+import org.springframework.hateoas.server.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.server.core.MethodInvocation;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriTemplate;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A link to a controller method, with the method's request mapping compiled into a URI template once so that links
+ * can be built for each request without the {@code methodOn} proxies and mapping introspection of
+ * {@link org.springframework.hateoas.server.mvc.WebMvcLinkBuilder#linkTo(Object) linkTo}. Only the base URL of the
+ * current request is looked up per request, and it is kept in a request attribute for subsequent links.
+ * <p>
+ * {@link Invocation}s of a method link can be passed to {@link ResourceSchemaCreator} in place of {@code methodOn}
+ * method references, e.g.
+ * <pre>
+ *     private final MethodLink listLink = MethodLink.to(PersonController.class, "list", String.class);
+ *     ...
+ *     schemaCreator.createSerialized(PersonResource.class, describeLink.with(), Optional.of(listLink.with(owner)), Optional.empty());
+ * </pre>
+ * The path variables and {@code @RequestParam}s of a link are taken from the arguments it is invoked with. Methods
+ * whose mappings use property placeholders, or which have other kinds of request parameters, are linked to with
+ * {@link MvcUriComponentsBuilder} instead, which still avoids the proxies.
+ *
+ * @since 18/10/26
+ */
+public final class MethodLink {
+    private static final String BASE_URL_ATTRIBUTE = MethodLink.class.getName() + ".BASE_URL";
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    private static final AnnotationMappingDiscoverer MAPPINGS = new AnnotationMappingDiscoverer(RequestMapping.class);
+
+    private final Class<?> controllerType;
+    private final Method method;
+    private final UriTemplate pathTemplate;
+    private final String[] pathVariables;
+    private final String[] requestParams;
+
+    private MethodLink(Class<?> controllerType, Method method) {
+        this.controllerType = controllerType;
+        this.method = method;
+        final String mapping = MAPPINGS.getMapping(controllerType, method);
+        final int parameterCount = method.getParameterCount();
+        final String[] pathVariableNames = new String[parameterCount];
+        final String[] requestParamNames = new String[parameterCount];
+        boolean compilable = mapping != null && !mapping.contains("${");
+        for (int i = 0; i < parameterCount && compilable; i++) {
+            final MethodParameter parameter = new SynthesizingMethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+            final PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+            final RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (pathVariable != null) {
+                pathVariableNames[i] = StringUtils.hasText(pathVariable.name()) ? pathVariable.name() : parameter.getParameterName();
+                compilable = pathVariableNames[i] != null;
+            } else if (requestParam != null) {
+                requestParamNames[i] = StringUtils.hasText(requestParam.name()) ? requestParam.name() : parameter.getParameterName();
+                compilable = requestParamNames[i] != null && !Map.class.isAssignableFrom(parameter.getParameterType());
+            } else {
+                compilable = parameter.hasParameterAnnotation(RequestBody.class)
+                        || parameter.hasParameterAnnotation(AuthenticationPrincipal.class)
+                        || Principal.class.isAssignableFrom(parameter.getParameterType());
+            }
+        }
+        this.pathTemplate = compilable ? new UriTemplate(mapping) : null;
+        this.pathVariables = pathVariableNames;
+        this.requestParams = requestParamNames;
+    }
+
+    /**
+     * Compiles a link to a controller method.
+     *
+     * @param controllerType the controller class, whose mapping is prefixed to the method's
+     * @param method the handler method
+     */
+    public static MethodLink to(Class<?> controllerType, Method method) {
+        return new MethodLink(ClassUtils.getUserClass(controllerType), BridgeMethodResolver.findBridgedMethod(method));
+    }
+
+    /**
+     * Compiles a link to a controller method, found by name and parameter types.
+     *
+     * @throws IllegalArgumentException if there is no such method
+     */
+    public static MethodLink to(Class<?> controllerType, String methodName, Class<?>... parameterTypes) {
+        final Method method = ReflectionUtils.findMethod(ClassUtils.getUserClass(controllerType), methodName, parameterTypes);
+        Assert.notNull(method, "No method " + methodName + " on " + controllerType.getName());
+        return to(controllerType, method);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return whether links are built from the compiled template, rather than by {@link MvcUriComponentsBuilder}
+     */
+    public boolean isCompiled() {
+        return pathTemplate != null;
+    }
+
+    /**
+     * Returns an invocation of the method, which is linked to with the path variables and request parameters among
+     * the arguments. Arguments which are not part of the link, such as the principal, may be null.
+     */
+    public Invocation with(Object... arguments) {
+        Assert.isTrue(arguments.length == method.getParameterCount(), "Expected " + method.getParameterCount() + " arguments for " + method);
+        return new Invocation(arguments);
+    }
+
+    URI toUri(Object[] arguments) {
+        if (pathTemplate == null) {
+            return MvcUriComponentsBuilder.fromMethod(controllerType, method, arguments).build().toUri();
+        }
+
+        final Map<String, Object> variables = new HashMap<>();
+        UriComponentsBuilder query = null;
+        for (int i = 0; i < arguments.length; i++) {
+            if (pathVariables[i] != null) {
+                variables.put(pathVariables[i], arguments[i]);
+            } else if (requestParams[i] != null && arguments[i] != null) {
+                if (query == null) {
+                    query = UriComponentsBuilder.newInstance();
+                }
+                if (arguments[i] instanceof Collection) {
+                    query.queryParam(requestParams[i], ((Collection<?>) arguments[i]).toArray());
+                } else {
+                    query.queryParam(requestParams[i], arguments[i]);
+                }
+            }
+        }
+        final String path = pathTemplate.expand(variables).toString();
+        return URI.create(query == null ? baseUrl() + path : baseUrl() + path + query.encode().build().toUriString());
+    }
+
+    /**
+     * Returns the URL of the current request's servlet mapping, working it out once per request.
+     */
+    private static String baseUrl() {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        String baseUrl = attributes == null ? null : (String) attributes.getAttribute(BASE_URL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUrl == null) {
+            baseUrl = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            if (attributes != null) {
+                attributes.setAttribute(BASE_URL_ATTRIBUTE, baseUrl, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+        return baseUrl;
+    }
+
+    /**
+     * An invocation of a {@link MethodLink}, which can be checked by method security like a {@code methodOn} method
+     * reference.
+     */
+    public final class Invocation implements MethodInvocation {
+        private final Object[] arguments;
+
+        private Invocation(Object[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Class<?> getTargetType() {
+            return controllerType;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return arguments;
+        }
+
+        public URI toUri() {
+            return MethodLink.this.toUri(arguments);
+        }
+
+        @Override
+        public String toString() {
+            return toUri().toString();
+        }
+    }
+}
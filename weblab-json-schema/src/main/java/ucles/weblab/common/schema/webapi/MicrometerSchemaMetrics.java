@@ -0,0 +1,100 @@
+package ucles.weblab.common.schema.webapi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reports schema generation to a Micrometer {@link MeterRegistry}:
+ * <ul>
+ *     <li>{@code weblab.schema.generation} timers, tagged with the {@code kind} of schema and the {@code type} described</li>
+ *     <li>{@code weblab.schema.expression.evaluations}, {@code weblab.schema.localisation.lookups} and
+ *     {@code weblab.schema.enum.datauri.encodings} counters</li>
+ *     <li>{@code weblab.schema.cache.size} and {@code weblab.schema.cache.hit.ratio} gauges, tagged with the {@code cache} name,
+ *     which follow the cache most recently monitored under that name</li>
+ * </ul>
+ * Micrometer is an optional dependency, so use {@link #forRegistry(MeterRegistry)} with an optional registry bean e.g.
+ * {@code MicrometerSchemaMetrics.forRegistry(meterRegistry.getIfAvailable())}.
+ *
+ * @since 18/10/26
+ */
+public class MicrometerSchemaMetrics implements SchemaMetrics {
+    private static final String NO_TYPE = "none";
+
+    private final MeterRegistry registry;
+    private final Map<Kind, Map<Class<?>, Timer>> timers = new EnumMap<>(Kind.class);
+    private final Map<Kind, Timer> untypedTimers = new EnumMap<>(Kind.class);
+    private final Counter expressionEvaluations;
+    private final Counter localisationLookups;
+    private final Counter enumDataUriEncodings;
+    private final Map<String, AtomicReference<SchemaCache<?, ?>>> caches = new ConcurrentHashMap<>();
+
+    public MicrometerSchemaMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Kind kind : Kind.values()) {
+            timers.put(kind, new ConcurrentHashMap<>());
+            untypedTimers.put(kind, timer(kind, NO_TYPE));
+        }
+        expressionEvaluations = registry.counter("weblab.schema.expression.evaluations");
+        localisationLookups = registry.counter("weblab.schema.localisation.lookups");
+        enumDataUriEncodings = registry.counter("weblab.schema.enum.datauri.encodings");
+    }
+
+    /**
+     * @return metrics reporting to the registry, or {@link SchemaMetrics#NOOP} if there is no registry
+     */
+    public static SchemaMetrics forRegistry(MeterRegistry registry) {
+        return registry == null ? SchemaMetrics.NOOP : new MicrometerSchemaMetrics(registry);
+    }
+
+    @Override
+    public void recordGeneration(Kind kind, Class<?> type, long nanos) {
+        final Timer timer = type == null ? untypedTimers.get(kind)
+                : timers.get(kind).computeIfAbsent(type, t -> timer(kind, t.getName()));
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void expressionEvaluated() {
+        expressionEvaluations.increment();
+    }
+
+    @Override
+    public void messageLookedUp() {
+        localisationLookups.increment();
+    }
+
+    @Override
+    public void enumDataUriEncoded() {
+        enumDataUriEncodings.increment();
+    }
+
+    @Override
+    public void monitorCache(String name, SchemaCache<?, ?> cache) {
+        // Micrometer returns the existing gauge when one is registered again, so the gauges read whichever cache is current
+        caches.computeIfAbsent(name, n -> {
+            final AtomicReference<SchemaCache<?, ?>> current = new AtomicReference<>(cache);
+            Gauge.builder("weblab.schema.cache.size", () -> current.get().size())
+                    .tag("cache", name)
+                    .register(registry);
+            Gauge.builder("weblab.schema.cache.hit.ratio", () -> current.get().getStats().getHitRatio())
+                    .tag("cache", name)
+                    .register(registry);
+            return current;
+        }).set(cache);
+    }
+
+    private Timer timer(Kind kind, String type) {
+        return Timer.builder("weblab.schema.generation")
+                .tag("kind", kind.name().toLowerCase())
+                .tag("type", type)
+                .register(registry);
+    }
+}
@@ -0,0 +1,219 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonValueFormat;
+import com.fasterxml.jackson.module.jsonSchema.validation.ValidationConstraintResolver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything about a property's annotations that is relevant to its schema, decoded once per declaring class and
+ * property so that schema generation reads flat fields rather than repeatedly looking annotations up reflectively.
+ * <p>
+ * Expressions are held unevaluated, since their values depend on the request.
+ *
+ * @since 18/10/26
+ */
+final class PropertySchemaDescriptor {
+    private static final Map<Key, PropertySchemaDescriptor> DESCRIPTORS = new ConcurrentHashMap<>();
+
+    private final Integer arrayMaxItems;
+    private final Integer arrayMinItems;
+    private final Double numberMaximum;
+    private final Double numberMinimum;
+    private final Boolean numberExclusiveMaximum;
+    private final Boolean numberExclusiveMinimum;
+    private final Integer stringMaxLength;
+    private final Integer stringMinLength;
+    private final String stringPattern;
+    private final String pattern;
+    private final JsonValueFormat valueFormat;
+    private final Map<String, String> enumConstants;
+    private final String enumRef;
+    private final Boolean readOnly;
+    private final String readOnlyExpression;
+    private final Boolean notNull;
+    private final String title;
+    private final String titleKey;
+    private final String description;
+    private final String descriptionKey;
+    private final String defaultValue;
+    private final int order;
+    private final String orderId;
+
+    private PropertySchemaDescriptor(BeanProperty prop, ValidationConstraintResolver constraintResolver,
+                                     AdditionalConstraintResolver additionalConstraintResolver) {
+        arrayMaxItems = constraintResolver.getArrayMaxItems(prop);
+        arrayMinItems = constraintResolver.getArrayMinItems(prop);
+        numberMaximum = constraintResolver.getNumberMaximum(prop);
+        numberMinimum = constraintResolver.getNumberMinimum(prop);
+        numberExclusiveMaximum = additionalConstraintResolver.getNumberExclusiveMaximum(prop).orElse(null);
+        numberExclusiveMinimum = additionalConstraintResolver.getNumberExclusiveMinimum(prop).orElse(null);
+        stringMaxLength = constraintResolver.getStringMaxLength(prop);
+        stringMinLength = constraintResolver.getStringMinLength(prop);
+        stringPattern = constraintResolver.getStringPattern(prop);
+        pattern = additionalConstraintResolver.getPattern(prop).orElse(null);
+        valueFormat = additionalConstraintResolver.getValueFormat(prop).orElse(null);
+        enumConstants = additionalConstraintResolver.getEnumConstants(prop).map(Collections::unmodifiableMap).orElse(null);
+        enumRef = additionalConstraintResolver.getEnumRefSource(prop).orElse(null);
+        readOnly = additionalConstraintResolver.getReadOnly(prop).orElse(null);
+        readOnlyExpression = additionalConstraintResolver.getReadOnlyExpressionSource(prop).orElse(null);
+        notNull = additionalConstraintResolver.getNotNull(prop).orElse(null);
+
+        final Optional<JsonSchemaMetadata> metadata = Optional.ofNullable(prop.getAnnotation(JsonSchemaMetadata.class));
+        title = metadata.map(JsonSchemaMetadata::title).filter(s -> !s.isEmpty()).orElse(null);
+        titleKey = metadata.map(JsonSchemaMetadata::titleKey).filter(s -> !s.isEmpty()).orElse(null);
+        description = metadata.map(JsonSchemaMetadata::description).filter(s -> !s.isEmpty()).orElse(null);
+        descriptionKey = metadata.map(JsonSchemaMetadata::descriptionKey).filter(s -> !s.isEmpty()).orElse(null);
+        defaultValue = metadata.map(JsonSchemaMetadata::defaultValue).filter(s -> !s.isEmpty()).orElse(null);
+        order = metadata.map(JsonSchemaMetadata::order).orElse(JsonSchemaMetadata.MAX_ORDER);
+        orderId = String.format("order:%03d_%s", order, prop.getName());
+    }
+
+    /**
+     * Returns the descriptor for a property, decoding its annotations the first time the property is seen. Properties
+     * without an underlying class member (e.g. method parameters) are decoded every time.
+     */
+    static PropertySchemaDescriptor of(BeanProperty prop, ValidationConstraintResolver constraintResolver,
+                                       AdditionalConstraintResolver additionalConstraintResolver) {
+        final AnnotatedMember member = prop.getMember();
+        if (member == null || prop.getName() == null) {
+            return new PropertySchemaDescriptor(prop, constraintResolver, additionalConstraintResolver);
+        }
+        return DESCRIPTORS.computeIfAbsent(new Key(member.getDeclaringClass(), prop.getName()),
+                k -> new PropertySchemaDescriptor(prop, constraintResolver, additionalConstraintResolver));
+    }
+
+    Integer getArrayMaxItems() {
+        return arrayMaxItems;
+    }
+
+    Integer getArrayMinItems() {
+        return arrayMinItems;
+    }
+
+    Double getNumberMaximum() {
+        return numberMaximum;
+    }
+
+    Double getNumberMinimum() {
+        return numberMinimum;
+    }
+
+    Optional<Boolean> getNumberExclusiveMaximum() {
+        return Optional.ofNullable(numberExclusiveMaximum);
+    }
+
+    Optional<Boolean> getNumberExclusiveMinimum() {
+        return Optional.ofNullable(numberExclusiveMinimum);
+    }
+
+    Integer getStringMaxLength() {
+        return stringMaxLength;
+    }
+
+    Integer getStringMinLength() {
+        return stringMinLength;
+    }
+
+    /**
+     * @return the {@code javax.validation} pattern, or null
+     */
+    String getStringPattern() {
+        return stringPattern;
+    }
+
+    /**
+     * @return the {@code @JsonSchema} pattern, which applies if there is no {@code javax.validation} pattern
+     */
+    Optional<String> getPattern() {
+        return Optional.ofNullable(pattern);
+    }
+
+    Optional<JsonValueFormat> getValueFormat() {
+        return Optional.ofNullable(valueFormat);
+    }
+
+    Optional<Map<String, String>> getEnumConstants() {
+        return Optional.ofNullable(enumConstants);
+    }
+
+    Optional<String> getEnumRef() {
+        return Optional.ofNullable(enumRef);
+    }
+
+    Optional<Boolean> getReadOnly() {
+        return Optional.ofNullable(readOnly);
+    }
+
+    Optional<String> getReadOnlyExpression() {
+        return Optional.ofNullable(readOnlyExpression);
+    }
+
+    Optional<Boolean> getNotNull() {
+        return Optional.ofNullable(notNull);
+    }
+
+    Optional<String> getTitle() {
+        return Optional.ofNullable(title);
+    }
+
+    Optional<String> getTitleKey() {
+        return Optional.ofNullable(titleKey);
+    }
+
+    Optional<String> getDescription() {
+        return Optional.ofNullable(description);
+    }
+
+    Optional<String> getDescriptionKey() {
+        return Optional.ofNullable(descriptionKey);
+    }
+
+    Optional<String> getDefaultValue() {
+        return Optional.ofNullable(defaultValue);
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the temporary ID which orders the property's schema amongst its siblings, by order then name.
+     */
+    String getOrderId() {
+        return orderId;
+    }
+
+    private static final class Key {
+        private final Class<?> declaringClass;
+        private final String name;
+
+        Key(Class<?> declaringClass, String name) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return declaringClass.equals(key.declaringClass) && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(declaringClass, name);
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package ucles.weblab.common.schema.webapi;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.factories.JsonSchemaFactory;
-import com.fasterxml.jackson.module.jsonSchema.factories.SchemaFactoryWrapper;
 import com.fasterxml.jackson.module.jsonSchema.types.LinkDescriptionObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.ResolvableType;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.server.core.DummyInvocationUtils;
@@ -20,11 +33,24 @@ import ucles.weblab.common.i18n.service.LocalisationService;
 import ucles.weblab.common.security.SecurityChecker;
 import ucles.weblab.common.xc.service.CrossContextConversionService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static ucles.weblab.common.webapi.LinkRelation.CREATE;
@@ -38,13 +64,28 @@ import static ucles.weblab.common.webapi.LinkRelation.INSTANCES;
  */
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 public class ResourceSchemaCreator {
+    private static final Logger log = LoggerFactory.getLogger(ResourceSchemaCreator.class);
     public static final String HTTP_JSON_SCHEMA_ORG_DRAFT_03_SCHEMA = "http://json-schema.org/draft-03/schema#";
+    private static final String CURRENT_USER = "currentUser";
+    private static final String CURRENT_INSTANCE = "currentInstance";
     private final SecurityChecker securityChecker;
     private final ObjectMapper objectMapper;
     private final CrossContextConversionService crossContextConversionService;
     private final EnumSchemaCreator enumSchemaCreator;
     private final JsonSchemaFactory schemaFactory;
     private final LocalisationService localisationService;
+    private final Map<Class<?>, ExpressionVariables> expressionVariables = new ConcurrentHashMap<>();
+    private final Map<Class<?>, SchemaSkeleton> skeletons = new ConcurrentHashMap<>();
+    private final Draft202012SchemaConverter draft202012Converter = new Draft202012SchemaConverter();
+    private final SchemaCache<String, SerializedSchema> convertedSchemaCache = new SchemaCache<>();
+    private final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+    private SchemaCache<SchemaCacheKey, JsonSchema> schemaCache;
+    private SchemaCache<SerializedSchema.Key, SerializedSchema> serializedSchemaCache;
+    private CachingExpressionParser expressionParser = new CachingExpressionParser();
+    private LinkPermissionCache linkPermissionCache;
+    private boolean useGeneratedSkeletons = true;
+    private boolean referenceRepeatedTypes;
+    private SchemaMetrics metrics = SchemaMetrics.NOOP;
 
     public ResourceSchemaCreator(SecurityChecker securityChecker,
                                  ObjectMapper objectMapper,
@@ -59,6 +100,151 @@ public class ResourceSchemaCreator {
         this.localisationService = localisationService;
     }
 
+    /**
+     * Enables caching of generated resource schemas. Schemas returned from {@code create} methods are then shallow
+     * copies of the cached schema, so callers may decorate the top level of the schema (e.g. its ID and links) but
+     * must not modify the property schemas within it.
+     *
+     * @param schemaCache the cache to use, or null to disable caching
+     */
+    public void setSchemaCache(SchemaCache<SchemaCacheKey, JsonSchema> schemaCache) {
+        this.schemaCache = schemaCache;
+        if (schemaCache != null) {
+            metrics.monitorCache("resource", schemaCache);
+        }
+    }
+
+    public EnumSchemaCreator getEnumSchemaCreator() {
+        return enumSchemaCreator;
+    }
+
+    public Optional<SchemaCache<SchemaCacheKey, JsonSchema>> getSchemaCache() {
+        return Optional.ofNullable(schemaCache);
+    }
+
+    /**
+     * Sets the parser used for {@code readOnlyExpression} and {@code enumRef} expressions, e.g. to one which compiles
+     * expressions with {@link org.springframework.expression.spel.SpelCompilerMode#MIXED}. Parsed expressions are
+     * cached by the parser, so each expression is parsed only once.
+     */
+    public void setExpressionParser(CachingExpressionParser expressionParser) {
+        Assert.notNull(expressionParser, "Expression parser must not be null");
+        this.expressionParser = expressionParser;
+    }
+
+    /**
+     * Enables caching of the security decisions made for the {@code instances} and {@code create} links in schemas,
+     * for those controller methods whose checks depend only on the user's authorities.
+     *
+     * @param linkPermissionCache the cache to use, or null to check every link every time
+     */
+    public void setLinkPermissionCache(LinkPermissionCache linkPermissionCache) {
+        this.linkPermissionCache = linkPermissionCache;
+        if (linkPermissionCache != null) {
+            metrics.monitorCache("linkPermission", linkPermissionCache.getDecisions());
+        }
+    }
+
+    /**
+     * Controls whether schema skeletons generated at build time by {@link SchemaSkeletonGenerator} are used in
+     * preference to introspecting resource classes at runtime. Enabled by default, but should be disabled if the
+     * {@code ObjectMapper} used at runtime is configured differently from the one the skeletons were generated with.
+     */
+    public void setUseGeneratedSkeletons(boolean useGeneratedSkeletons) {
+        this.useGeneratedSkeletons = useGeneratedSkeletons;
+    }
+
+    /**
+     * Controls whether an object type which appears more than once in a resource, or within itself, is described in
+     * full only once, in the {@code definitions} of the resource's schema, instead of Jackson's default of a copy or an
+     * unresolvable {@code urn:jsonschema} reference. Each use of the type keeps its own title, order and other
+     * constraints, and extends a draft-3 {@code $ref} to the definition which is absolute, i.e. the schema's own
+     * {@code id} followed by the definition's JSON pointer, since a relative reference would be resolved against the
+     * use's {@code order:} id. This makes heavily composed resources' schemas smaller and quicker to serialize, but
+     * clients must resolve {@code $ref}s. Disabled by default.
+     * <p>
+     * Schema skeletons generated at build time describe every occurrence in full, so are not used while this is
+     * enabled. Set this before any schemas are generated.
+     */
+    public void setReferenceRepeatedTypes(boolean referenceRepeatedTypes) {
+        this.referenceRepeatedTypes = referenceRepeatedTypes;
+    }
+
+    /**
+     * Enables caching of serialized, decorated resource schemas for
+     * {@link #createSerialized(Class, Object, Optional, Optional)}, so that repeat requests for a schema neither
+     * regenerate nor re-serialize it.
+     *
+     * @param serializedSchemaCache the cache to use, or null to disable caching
+     */
+    public void setSerializedSchemaCache(SchemaCache<SerializedSchema.Key, SerializedSchema> serializedSchemaCache) {
+        this.serializedSchemaCache = serializedSchemaCache;
+        if (serializedSchemaCache != null) {
+            metrics.monitorCache("serialized", serializedSchemaCache);
+        }
+    }
+
+    /**
+     * Sets where to report the time taken to generate each resource's schema, the number of expressions evaluated,
+     * and the size and hit ratio of the schema caches.
+     *
+     * @param metrics the metrics to report to, or {@link SchemaMetrics#NOOP}
+     */
+    public void setMetrics(SchemaMetrics metrics) {
+        this.metrics = metrics;
+        getSchemaCache().ifPresent(cache -> metrics.monitorCache("resource", cache));
+        getSerializedSchemaCache().ifPresent(cache -> metrics.monitorCache("serialized", cache));
+        metrics.monitorCache("converted", convertedSchemaCache);
+        if (linkPermissionCache != null) {
+            metrics.monitorCache("linkPermission", linkPermissionCache.getDecisions());
+        }
+    }
+
+    public Optional<SchemaCache<SerializedSchema.Key, SerializedSchema>> getSerializedSchemaCache() {
+        return Optional.ofNullable(serializedSchemaCache);
+    }
+
+    /**
+     * Registers a callback for whenever cached schemas are discarded, e.g. to discard anything derived from them.
+     */
+    public void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Discards any cached schemas for a resource class, e.g. because the messages it is localised with have changed.
+     */
+    public void invalidateSchemas(Class<?> resourceClass) {
+        expressionVariables.remove(resourceClass);
+        skeletons.remove(resourceClass);
+        if (schemaCache != null) {
+            schemaCache.invalidateIf(key -> key.getResourceClass().equals(resourceClass));
+        }
+        if (serializedSchemaCache != null) {
+            serializedSchemaCache.invalidateIf(key -> key.getSchemaKey().getResourceClass().equals(resourceClass));
+        }
+        invalidationListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Discards all cached schemas.
+     */
+    public void invalidateAllSchemas() {
+        expressionVariables.clear();
+        skeletons.clear();
+        if (schemaCache != null) {
+            schemaCache.invalidateAll();
+        }
+        if (serializedSchemaCache != null) {
+            serializedSchemaCache.invalidateAll();
+        }
+        convertedSchemaCache.invalidateAll();
+        if (linkPermissionCache != null) {
+            linkPermissionCache.invalidateAll();
+        }
+        invalidationListeners.forEach(Runnable::run);
+    }
+
     /**
      * Creates a (serializable) JSON schema object describing a resource. The resource can be annotated with {@code javax.validation}
      * constraints as well as {@link JsonSchema @JsonSchema} and {@link JsonSchemaMetadata @JsonSchemaMetadata}
@@ -81,6 +267,7 @@ public class ResourceSchemaCreator {
     public JsonSchema create(Class resourceClass, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
         JsonSchema jsonSchema = createFullSchema(resourceClass, null);
         decorateJsonSchema(jsonSchema, schemaMethod, listControllerMethod, createControllerMethod);
+        resolveReferences(resourceClass, jsonSchema);
 
         return jsonSchema;
     }
@@ -100,6 +287,7 @@ public class ResourceSchemaCreator {
     ) {
         JsonSchema jsonSchema = createFullSchema((Class<T>)resource.getClass(), resource);
         decorateJsonSchema(jsonSchema, schemaMethod, listControllerMethod, createControllerMethod);
+        resolveReferences(resource.getClass(), jsonSchema);
         return jsonSchema;
     }
 
@@ -115,23 +303,220 @@ public class ResourceSchemaCreator {
     public <T extends RepresentationModel<T>> JsonSchema create(Class<T> resourceClass, URI schemaUri, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
         JsonSchema jsonSchema = createFullSchema(resourceClass, null);
         decorateJsonSchema(jsonSchema, schemaUri, listControllerMethod, createControllerMethod);
+        resolveReferences(resourceClass, jsonSchema);
 
         return jsonSchema;
     }
 
+    /**
+     * As per {@link #create(Class, Object, Optional, Optional)} except that the schema is returned serialized, with an
+     * ETag. If a {@link #setSerializedSchemaCache serialized schema cache} is configured, the links are still checked
+     * against the current user's permissions on every call, but the schema is generated and serialized only once for
+     * each distinct set of links, locale and authorities.
+     * <p>
+     * Links passed as ready-made {@link LinkDescriptionObject}s are identified in the cache by their rel, method and
+     * href alone.
+     *
+     * @param resourceClass the resource to describe
+     * @param schemaMethod a {@code LastInvocationAware} method reference to the schema controller method
+     * @param listControllerMethod  a {@code LastInvocationAware} method reference to the controller method to GET a list of instances of these resources
+     * @param createControllerMethod a {@code LastInvocationAware} method reference to the controller method to POST a new isntance of this resource
+     * @return the serialized schema
+     */
+    @SuppressWarnings("unchecked")
+    public SerializedSchema createSerialized(Class resourceClass, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
+        final String id = href(schemaMethod);
+        final LinkDescriptionObject[] links = createLinks(listControllerMethod, createControllerMethod);
+        final Supplier<SerializedSchema> generator = () -> {
+            JsonSchema jsonSchema = createFullSchema(resourceClass, null);
+            decorateJsonSchema(jsonSchema, id, links);
+            resolveReferences(resourceClass, jsonSchema);
+            return serialize(jsonSchema);
+        };
+
+        if (serializedSchemaCache == null) {
+            return generator.get();
+        }
+
+        return serializedSchemaCache.get(serializedSchemaKey(resourceClass, expressionVariables(resourceClass), id, links), k -> generator.get());
+    }
+
+    /**
+     * As per {@link #createSerialized(Class, Object, Optional, Optional)}, in the given dialect. Schemas are generated
+     * as draft-03 and then converted, so the draft-03 schema is cached as usual, and each converted schema is cached
+     * against the content of the draft-03 schema it was converted from.
+     *
+     * @param dialect the dialect to serialize the schema in, usually {@link SchemaDialect#negotiate negotiated} with the client
+     * @return the serialized schema, with the dialect's content type
+     */
+    public SerializedSchema createSerialized(Class resourceClass, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod,
+                                             SchemaDialect dialect) {
+        final SerializedSchema draft03 = createSerialized(resourceClass, schemaMethod, listControllerMethod, createControllerMethod);
+        return convert(draft03, dialect);
+    }
+
+    /**
+     * Converts a draft-03 schema serialized by this creator to another dialect.
+     */
+    public SerializedSchema convert(SerializedSchema draft03, SchemaDialect dialect) {
+        if (dialect == SchemaDialect.DRAFT_03) {
+            return draft03;
+        }
+        return convertedSchemaCache.get(dialect + " " + draft03.getETag(), k -> {
+            try {
+                return new SerializedSchema(objectMapper.writeValueAsBytes(draft202012Converter.convert(objectMapper.readTree(draft03.getBytes()))),
+                        dialect.getMediaType());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Converts a draft-03 schema serialized by this creator to another dialect and encoding. The binary encodings are
+     * transcoded from the JSON of the converted schema, token by token, so every encoding shares the cached schema
+     * and is itself cached against the content of the draft-03 schema.
+     *
+     * @throws IllegalStateException if the encoding's Jackson data format is not on the classpath
+     */
+    public SerializedSchema convert(SerializedSchema draft03, SchemaDialect dialect, SchemaEncoding encoding) {
+        final SerializedSchema json = convert(draft03, dialect);
+        if (encoding == SchemaEncoding.JSON) {
+            return json;
+        }
+        return convertedSchemaCache.get(encoding + " " + json.getETag(), k -> {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(json.getBytes().length);
+            try (JsonParser parser = objectMapper.getFactory().createParser(json.getBytes());
+                 JsonGenerator generator = encoding.getFactory().createGenerator(out)) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new SerializedSchema(out.toByteArray(), encoding.getMediaType(dialect));
+        });
+    }
+
+    /**
+     * As per {@link #create(Class, Object, Optional, Optional)} except that the schema is written straight to a
+     * generator as it is generated, rather than built as a {@link JsonSchema} object. The resource's skeleton is
+     * written from a template shared between requests, so this allocates far less for a large resource than creating
+     * and serializing the schema. The output is the same schema, although fields which depend on the request may be
+     * written in a different order.
+     * <p>
+     * The schema caches are neither used nor populated, so this suits resources whose schemas vary too much to cache
+     * well. Since nothing is buffered, there is no ETag. The generator should be created by the {@code ObjectMapper}
+     * this creator was constructed with, so that it can write the links.
+     *
+     * @param resourceClass the resource to describe
+     * @param schemaMethod a {@code LastInvocationAware} method reference to the schema controller method
+     * @param listControllerMethod  a {@code LastInvocationAware} method reference to the controller method to GET a list of instances of these resources
+     * @param createControllerMethod a {@code LastInvocationAware} method reference to the controller method to POST a new isntance of this resource
+     * @param generator the generator to write the schema to
+     */
+    public void write(Class<?> resourceClass, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod,
+                      JsonGenerator generator) throws IOException {
+        final Map<String, Object> rootFields = new LinkedHashMap<>();
+        rootFields.put("id", href(schemaMethod));
+        rootFields.put("$schema", HTTP_JSON_SCHEMA_ORG_DRAFT_03_SCHEMA);
+        final LinkDescriptionObject[] links = createLinks(listControllerMethod, createControllerMethod);
+        if (links.length > 0) {
+            rootFields.put("links", links);
+        }
+
+        final long start = System.nanoTime();
+        final StandardEvaluationContext evaluationContext = newEvaluationContext(null);
+        getSkeleton(resourceClass).write(objectMapper, generator, rootFields,
+                new AdditionalConstraintResolver(evaluationContext, expressionParser, metrics),
+                crossContextConversionService,
+                localisationService);
+        metrics.recordGeneration(SchemaMetrics.Kind.RESOURCE, resourceClass, System.nanoTime() - start);
+    }
+
+    /**
+     * As per {@link #write(Class, Object, Optional, Optional, JsonGenerator)}, writing to an output stream e.g. that
+     * of the HTTP response. The stream is flushed but not closed.
+     */
+    public void write(Class<?> resourceClass, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod,
+                      OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(resourceClass, schemaMethod, listControllerMethod, createControllerMethod, generator);
+        }
+    }
+
+    /**
+     * Prepares the parts of a resource class's schema which do not depend on the request, so that the skeleton is
+     * compiled, its enum schemas are registered, Jackson's serializers are initialised and the skeleton's messages are
+     * loaded in the given locale. Nothing which depends on the request, such as links, {@code enumRef} URLs or
+     * expressions, is evaluated, so this can run outside a request.
+     *
+     * @param resourceClass the resource to describe
+     * @param locale the locale to load messages in
+     */
+    public void prewarm(Class<?> resourceClass, Locale locale) {
+        final LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+        LocaleContextHolder.setLocale(locale);
+        try {
+            getSkeleton(resourceClass).prewarm(objectMapper, localisationService);
+        } finally {
+            LocaleContextHolder.setLocaleContext(previousLocaleContext);
+        }
+    }
+
+    /**
+     * Serializes a schema to its canonical form, using the same {@code ObjectMapper} that introspects resources.
+     */
+    public SerializedSchema serialize(JsonSchema jsonSchema) {
+        try {
+            return new SerializedSchema(objectMapper.writeValueAsBytes(jsonSchema));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public <T extends Object> JsonSchema createEnum(List<T> resources, Object enumMethod, Function<T, String> valueFn, Optional<Function<T, String>> nameFn) {
         final Stream<T> resourceStream = resources.stream();
         return createEnum(resourceStream, enumMethod, valueFn, nameFn, Optional.empty());
     }
 
     public <T extends Object> JsonSchema createEnum(Stream<T> resourceStream, Object enumMethod, Function<T, String> valueFn, Optional<Function<T, String>> nameFn, Optional<Function<T, String>> descriptionFn) {
-        JsonSchema jsonSchema = enumSchemaCreator.createEnum(resourceStream, valueFn, nameFn, descriptionFn, schemaFactory::stringSchema);
+        JsonSchema jsonSchema = enumSchemaCreator.createEnum(enumType(enumMethod), resourceStream, valueFn, nameFn, descriptionFn, schemaFactory::stringSchema);
+        decorateJsonSchema(jsonSchema, enumMethod, Optional.empty(), Optional.empty());
+        return jsonSchema;
+    }
+
+    /**
+     * Creates an enum schema from ready-made enum options, e.g. streamed from a repository projection, so that no
+     * resources need to be assembled. See {@link EnumSchemaCreator#createEnum(Stream, Supplier)}.
+     *
+     * @param options stream of enum options
+     * @param enumMethod a {@code LastInvocationAware} method reference to the enum schema controller method
+     * @return the enum schema
+     */
+    public JsonSchema createEnum(Stream<EnumOption> options, Object enumMethod) {
+        JsonSchema jsonSchema = enumSchemaCreator.createEnum(enumType(enumMethod), options, schemaFactory::stringSchema);
         decorateJsonSchema(jsonSchema, enumMethod, Optional.empty(), Optional.empty());
         return jsonSchema;
     }
 
     /**
-     * Sets up a SchemaFactoryWrapper and variables for the spring evaluation context.
+     * Creates a compact schema for an enumeration too large to list in full, which links to an endpoint returning
+     * pages of its values instead. See {@link EnumSchemaCreator#createPagedEnum(String, Supplier)}.
+     *
+     * @param enumMethod a {@code LastInvocationAware} method reference to the enum schema controller method
+     * @param valuesMethod a {@code LastInvocationAware} method reference to the controller method returning {@link EnumPage}s
+     * @return the enum schema
+     */
+    public JsonSchema createPagedEnum(Object enumMethod, Object valuesMethod) {
+        JsonSchema jsonSchema = enumSchemaCreator.createPagedEnum(href(valuesMethod), schemaFactory::stringSchema);
+        decorateJsonSchema(jsonSchema, enumMethod, Optional.empty(), Optional.empty());
+        return jsonSchema;
+    }
+
+    /**
+     * Returns the schema for a resource class, from the schema cache if there is one and the schema does not depend
+     * on the resource instance.
      * @param resourceClass - the resource class to make the schema from
      * @param resource - This will be set on the StandardEvaluationContext as 'currentInstance'
      */
@@ -139,74 +524,242 @@ public class ResourceSchemaCreator {
             Class<T> resourceClass,
             T resource
     ) {
-        try {
-            StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
-            if (resource != null) {
-                evaluationContext.setVariable("currentInstance", resource);
+        if (schemaCache == null) {
+            return generateFullSchema(resourceClass, resource);
+        }
+
+        final ExpressionVariables variables = expressionVariables(resourceClass);
+        if (resource != null && variables.currentInstance) {
+            // The schema depends on the instance itself, so cannot be shared
+            return generateFullSchema(resourceClass, resource);
+        }
+
+        final SchemaCacheKey key = SchemaCacheKey.current(resourceClass, resource != null, variables.currentUser);
+        return JsonSchemaCopier.shallowCopy(schemaCache.get(key, k -> generateFullSchema(resourceClass, resource)));
+    }
+
+    /**
+     * Sets up variables for the spring evaluation context and overlays the dynamic parts of the schema on the
+     * resource's skeleton.
+     * @param resourceClass - the resource class to make the schema from
+     * @param resource - This will be set on the StandardEvaluationContext as 'currentInstance'
+     */
+    private <T extends RepresentationModel<T>> JsonSchema generateFullSchema(
+            Class<T> resourceClass,
+            T resource
+    ) {
+        final StandardEvaluationContext evaluationContext = newEvaluationContext(resource);
+        final JsonSchema jsonSchema = metrics.timeGeneration(SchemaMetrics.Kind.RESOURCE, resourceClass, () ->
+                getSkeleton(resourceClass).overlay(new AdditionalConstraintResolver(evaluationContext, expressionParser, metrics),
+                                                   crossContextConversionService,
+                                                   localisationService));
+        return jsonSchema;
+    }
+
+    /**
+     * Returns which of the evaluation context's variables the resource's expressions refer to, and so which requests
+     * its schema can be shared between. This is worked out from the expressions themselves, not from evaluating them,
+     * as an expression may not read a variable every time, e.g. {@code #currentUser == null or #currentInstance.open}.
+     */
+    private ExpressionVariables expressionVariables(Class<?> resourceClass) {
+        return expressionVariables.computeIfAbsent(resourceClass,
+                c -> ExpressionVariables.referencedBy(getSkeleton(c).getExpressions(), expressionParser));
+    }
+
+    private StandardEvaluationContext newEvaluationContext(Object resource) {
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        if (resource != null) {
+            evaluationContext.setVariable(CURRENT_INSTANCE, resource);
+        }
+        Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
+                .map(Authentication::getPrincipal)
+                .ifPresent(currentUser -> evaluationContext.setVariable(CURRENT_USER, currentUser));
+        return evaluationContext;
+    }
+
+    /**
+     * Returns the invariant skeleton of the resource's schema. The first time it is needed, this is loaded from the
+     * skeleton generated at build time if there is one, and otherwise by introspecting the resource class with Jackson.
+     */
+    private SchemaSkeleton getSkeleton(Class<?> resourceClass) {
+        SchemaSkeleton skeleton = skeletons.get(resourceClass);
+        if (skeleton == null) {
+            try {
+                Optional<SchemaSkeleton> generated = useGeneratedSkeletons && !referenceRepeatedTypes
+                        ? SchemaSkeleton.load(resourceClass, objectMapper).filter(s -> registerEnumSchemas(resourceClass, s))
+                        : Optional.empty();
+                skeleton = generated.isPresent() ? generated.get()
+                        : SchemaSkeleton.generate(resourceClass, objectMapper, enumSchemaCreator, crossContextConversionService, localisationService,
+                                                  referenceRepeatedTypes, expressionParser);
+            } catch (JsonMappingException e) {
+                throw new RuntimeException(e);
             }
-             Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication())
-                        .map(Authentication::getPrincipal)
-                        .ifPresent(currentUser -> evaluationContext.setVariable("currentUser", currentUser));
-
-            SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(crossContextConversionService,
-                                                                         enumSchemaCreator,
-                                                                         objectMapper,
-                                                                         evaluationContext, localisationService);
-            objectMapper.acceptJsonFormatVisitor(objectMapper.constructType(resourceClass), wrapper);
-            return wrapper.finalSchema();
-        } catch (JsonMappingException e) {
-            throw new RuntimeException(e);
+            final SchemaSkeleton existing = skeletons.putIfAbsent(resourceClass, skeleton);
+            if (existing != null) {
+                skeleton = existing;
+            }
+        }
+        return skeleton;
+    }
+
+    /**
+     * Registers the enum schemas referenced by a skeleton generated at build time.
+     *
+     * @return false if the skeleton references an enum registry which is not configured here, so cannot be used
+     */
+    private boolean registerEnumSchemas(Class<?> resourceClass, SchemaSkeleton skeleton) {
+        if (skeleton.getEnumSchemas().isEmpty()) {
+            return true;
         }
+        final EnumSchemaRegistry enumSchemaRegistry = enumSchemaCreator.getEnumSchemaRegistry();
+        if (enumSchemaRegistry == null || !enumSchemaRegistry.getBasePath().equals(skeleton.getEnumBasePath())) {
+            log.warn("Ignoring generated schema skeleton for {} as it references enum schemas under {}, which is not the configured enum schema registry",
+                    resourceClass.getName(), skeleton.getEnumBasePath());
+            return false;
+        }
+        skeleton.getEnumSchemas().values().forEach(enumSchemaRegistry::register);
+        return true;
+    }
+
+    private SerializedSchema.Key serializedSchemaKey(Class<?> resourceClass, ExpressionVariables variables, String id, LinkDescriptionObject[] links) {
+        final List<String> linkKeys = Arrays.stream(links)
+                .map(l -> l.getRel() + ' ' + l.getMethod() + ' ' + l.getHref())
+                .collect(Collectors.toList());
+        return new SerializedSchema.Key(SchemaCacheKey.current(resourceClass, false, variables.currentUser), id, linkKeys);
     }
 
     private void decorateJsonSchema(JsonSchema jsonSchema, Object schemaMethod, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
-        jsonSchema.setId(WebMvcLinkBuilder.linkTo(schemaMethod).toString());
-        decorateJsonSchema(jsonSchema, listControllerMethod, createControllerMethod);
+        decorateJsonSchema(jsonSchema, href(schemaMethod), createLinks(listControllerMethod, createControllerMethod));
     }
 
     private void decorateJsonSchema(JsonSchema jsonSchema, URI schemaUri, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
-        jsonSchema.setId(schemaUri.toString());
-        decorateJsonSchema(jsonSchema, listControllerMethod, createControllerMethod);
+        decorateJsonSchema(jsonSchema, schemaUri.toString(), createLinks(listControllerMethod, createControllerMethod));
     }
 
-    private void decorateJsonSchema(JsonSchema jsonSchema, Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
+    private void decorateJsonSchema(JsonSchema jsonSchema, String id, LinkDescriptionObject[] linkDescriptionObjects) {
+        jsonSchema.setId(id);
         jsonSchema.set$schema(HTTP_JSON_SCHEMA_ORG_DRAFT_03_SCHEMA);
+        if (linkDescriptionObjects.length > 0) {
+            jsonSchema.asSimpleTypeSchema().setLinks(linkDescriptionObjects);
+        }
+    }
+
+    /**
+     * Makes the references to repeated types' definitions absolute against the schema's id, once it has been set.
+     */
+    private void resolveReferences(Class<?> resourceClass, JsonSchema jsonSchema) {
+        if (referenceRepeatedTypes) {
+            getSkeleton(resourceClass).resolveReferences(jsonSchema, jsonSchema.getId());
+        }
+    }
 
+    private LinkDescriptionObject[] createLinks(Optional<Object> listControllerMethod, Optional<Object> createControllerMethod) {
         Optional<LinkDescriptionObject> instances = listControllerMethod
                 .map(m -> m instanceof LinkDescriptionObject ? (LinkDescriptionObject) m : null);
         if (!instances.isPresent()) {
             instances = listControllerMethod
-                    .flatMap(this::linkIfPermittedTo)
-                    .map(l -> new LinkDescriptionObject().setHref(l.toString()).setRel(INSTANCES.rel()).setMethod(HttpMethod.GET.toString()));
+                    .flatMap(this::hrefIfPermitted)
+                    .map(href -> new LinkDescriptionObject().setHref(href).setRel(INSTANCES.rel()).setMethod(HttpMethod.GET.toString()));
         }
 
         Optional<LinkDescriptionObject> create = createControllerMethod
                         .map(m -> m instanceof LinkDescriptionObject ? (LinkDescriptionObject) m : null);
         if (!create.isPresent()) {
             create = createControllerMethod
-                    .flatMap(this::linkIfPermittedTo)
-                    .map(l -> new LinkDescriptionObject().setHref(l.toString()).setRel(CREATE.rel()).setMethod(HttpMethod.POST.toString()));
+                    .flatMap(this::hrefIfPermitted)
+                    .map(href -> new LinkDescriptionObject().setHref(href).setRel(CREATE.rel()).setMethod(HttpMethod.POST.toString()));
         }
 
-        LinkDescriptionObject[] linkDescriptionObjects = Arrays.asList(instances, create).stream()
+        return Arrays.asList(instances, create).stream()
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .toArray(LinkDescriptionObject[]::new);
+    }
 
-        if (linkDescriptionObjects.length > 0) {
-            jsonSchema.asSimpleTypeSchema().setLinks(linkDescriptionObjects);
+    /**
+     * Returns the href of a method reference, which is either a {@link MethodLink.Invocation} or a
+     * {@code LastInvocationAware} proxy from {@code methodOn}.
+     */
+    private static String href(Object invocationValue) {
+        if (invocationValue instanceof MethodLink.Invocation) {
+            return ((MethodLink.Invocation) invocationValue).toUri().toString();
         }
+        return WebMvcLinkBuilder.linkTo(invocationValue).toString();
     }
 
-    Optional<WebMvcLinkBuilder> linkIfPermittedTo(Object invocationValue) {
-        LastInvocationAware invocations = DummyInvocationUtils.getLastInvocationAware(invocationValue);
+    private static MethodInvocation invocation(Object invocationValue) {
+        return invocationValue instanceof MethodLink.Invocation ? (MethodInvocation) invocationValue
+                : DummyInvocationUtils.getLastInvocationAware(invocationValue).getLastInvocation();
+    }
 
-        MethodInvocation invocation = invocations.getLastInvocation();
-        if (securityChecker.check(invocation)) {
-            return Optional.of(WebMvcLinkBuilder.linkTo(invocationValue));
+    /**
+     * Returns the type an enum served by a controller method describes: the resource class of a
+     * {@link SelfDescribingController}, or else the controller class.
+     */
+    private static Class<?> enumType(Object enumMethod) {
+        final Class<?> controllerType = invocation(enumMethod).getTargetType();
+        final Class<?> resourceType = ResolvableType.forClass(controllerType).as(SelfDescribingController.class).getGeneric(1).resolve();
+        return resourceType != null ? resourceType : controllerType;
+    }
+
+    Optional<String> hrefIfPermitted(Object invocationValue) {
+        final MethodInvocation invocation = invocation(invocationValue);
+        final boolean permitted = linkPermissionCache == null ? securityChecker.check(invocation)
+                : linkPermissionCache.check(invocation, securityChecker::check);
+        if (permitted) {
+            return Optional.of(href(invocationValue));
         } else {
             return Optional.empty();
         }
     }
 
+    /**
+     * Records which request-dependent variables a resource's expressions read, so that cached schemas can be keyed
+     * on them.
+     */
+    private static final class ExpressionVariables {
+        private final boolean currentUser;
+        private final boolean currentInstance;
+
+        ExpressionVariables(boolean currentUser, boolean currentInstance) {
+            this.currentUser = currentUser;
+            this.currentInstance = currentInstance;
+        }
+
+        /**
+         * Finds the variables referred to anywhere in some template expressions. An expression which cannot be parsed
+         * is assumed to refer to every variable; it is reported when it is evaluated.
+         */
+        static ExpressionVariables referencedBy(List<String> expressions, CachingExpressionParser expressionParser) {
+            final Set<String> variables = new HashSet<>();
+            for (String expression : expressions) {
+                try {
+                    collectVariables(expressionParser.parseTemplate(expression), variables);
+                } catch (ParseException e) {
+                    return new ExpressionVariables(true, true);
+                }
+            }
+            return new ExpressionVariables(variables.contains(CURRENT_USER), variables.contains(CURRENT_INSTANCE));
+        }
+
+        private static void collectVariables(Expression expression, Set<String> variables) {
+            if (expression instanceof CompositeStringExpression) {
+                for (Expression part : ((CompositeStringExpression) expression).getExpressions()) {
+                    collectVariables(part, variables);
+                }
+            } else if (expression instanceof SpelExpression) {
+                collectVariables(((SpelExpression) expression).getAST(), variables);
+            }
+        }
+
+        private static void collectVariables(SpelNode node, Set<String> variables) {
+            if (node instanceof VariableReference) {
+                // The AST form of a variable reference is its name prefixed with '#'
+                variables.add(node.toStringAST().substring(1));
+            }
+            for (int i = 0; i < node.getChildCount(); i++) {
+                collectVariables(node.getChild(i), variables);
+            }
+        }
+    }
 }
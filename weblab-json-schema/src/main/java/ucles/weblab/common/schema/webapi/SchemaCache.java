@@ -0,0 +1,179 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, least-recently-used cache for generated schemas (or anything derived from them), with hit, miss and
+ * eviction statistics.
+ * <p>
+ * Values are computed outside of the cache lock, so two threads missing on the same key at the same time may both
+ * compute the value. Schema generation is idempotent, so this is preferred to holding a lock across generation.
+ *
+ * @param <K> the key type, which must implement {@code equals} and {@code hashCode}
+ * @param <V> the cached value type
+ * @since 18/10/26
+ */
+public class SchemaCache<K, V> {
+    public static final int DEFAULT_MAXIMUM_SIZE = 500;
+
+    private final int maximumSize;
+    private final Map<K, V> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SchemaCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public SchemaCache(int maximumSize) {
+        Assert.isTrue(maximumSize > 0, "Maximum size must be positive");
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > SchemaCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value cached against the key, computing and caching it if it is not present.
+     *
+     * @param key the cache key
+     * @param loader function to compute the value on a miss - if it returns null, nothing is cached
+     * @return the cached or newly computed value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = lookup(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value cached against the key, if any. Counts towards the hit/miss statistics.
+     */
+    public Optional<V> getIfPresent(K key) {
+        return Optional.ofNullable(lookup(key));
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Discards all entries whose keys match the predicate e.g. all the entries for a particular resource class.
+     */
+    public void invalidateIf(Predicate<? super K> keyPredicate) {
+        synchronized (entries) {
+            entries.keySet().removeIf(keyPredicate);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private V lookup(K key) {
+        final V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * A point-in-time snapshot of the cache statistics.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int size;
+
+        Stats(long hitCount, long missCount, long evictionCount, int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getRequestCount() {
+            return hitCount + missCount;
+        }
+
+        /**
+         * @return the proportion of lookups which were hits, or 1.0 if there have been no lookups
+         */
+        public double getHitRatio() {
+            final long requestCount = getRequestCount();
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SchemaCache.Stats[hits=%d, misses=%d, evictions=%d, size=%d]", hitCount, missCount, evictionCount, size);
+        }
+    }
+}
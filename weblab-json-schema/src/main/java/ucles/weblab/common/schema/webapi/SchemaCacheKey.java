@@ -0,0 +1,127 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Identifies a generated resource schema in a {@link SchemaCache}. The key covers everything the generated schema
+ * depends on: the resource class, the current locale (for localised titles and descriptions), the current user's
+ * granted authorities (for links and expressions), whether an instance was supplied for {@code #currentInstance}, and
+ * the scheme, host and context path of the current request, against which links and enum references are absolute.
+ * <p>
+ * Where a resource's expressions refer to {@code #currentUser} directly, the principal name is also included so that
+ * one user's schema is never served to another.
+ *
+ * @since 18/10/26
+ */
+public final class SchemaCacheKey {
+    private final Class<?> resourceClass;
+    private final Locale locale;
+    private final Set<String> authorities;
+    private final String principalName;
+    private final boolean instanceSupplied;
+    private final String baseUrl;
+
+    SchemaCacheKey(Class<?> resourceClass, Locale locale, Set<String> authorities, String principalName, boolean instanceSupplied, String baseUrl) {
+        this.resourceClass = resourceClass;
+        this.locale = locale;
+        this.authorities = authorities;
+        this.principalName = principalName;
+        this.instanceSupplied = instanceSupplied;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Creates a key for the current thread's locale and security context.
+     *
+     * @param resourceClass the resource being described
+     * @param instanceSupplied true if a {@code currentInstance} is available to expressions
+     * @param includePrincipal true if the schema depends on the identity of the principal and not just their authorities
+     * @return the key
+     */
+    static SchemaCacheKey current(Class<?> resourceClass, boolean instanceSupplied, boolean includePrincipal) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        final Set<String> authorities;
+        if (authentication == null) {
+            authorities = Collections.emptySet();
+        } else {
+            final Set<String> sorted = new TreeSet<>();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                sorted.add(authority.getAuthority());
+            }
+            authorities = Collections.unmodifiableSet(sorted);
+        }
+        final String principalName = includePrincipal && authentication != null ? authentication.getName() : null;
+        return new SchemaCacheKey(resourceClass, LocaleContextHolder.getLocale(), authorities, principalName, instanceSupplied, currentBaseUrl());
+    }
+
+    /**
+     * Returns the scheme, host, port and context path of the current request, which URLs in schemas are built from,
+     * or null outside a request.
+     */
+    static String currentBaseUrl() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes
+                ? ServletUriComponentsBuilder.fromCurrentContextPath().toUriString()
+                : null;
+    }
+
+    public Class<?> getResourceClass() {
+        return resourceClass;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public Set<String> getAuthorities() {
+        return authorities;
+    }
+
+    public boolean isInstanceSupplied() {
+        return instanceSupplied;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SchemaCacheKey that = (SchemaCacheKey) o;
+        return instanceSupplied == that.instanceSupplied &&
+                resourceClass.equals(that.resourceClass) &&
+                Objects.equals(locale, that.locale) &&
+                authorities.equals(that.authorities) &&
+                Objects.equals(principalName, that.principalName) &&
+                Objects.equals(baseUrl, that.baseUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resourceClass, locale, authorities, principalName, instanceSupplied, baseUrl);
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaCacheKey[" + resourceClass.getName() + ", locale=" + locale + ", authorities=" + authorities
+                + (principalName == null ? "" : ", principal=" + principalName) + ", instanceSupplied=" + instanceSupplied
+                + (baseUrl == null ? "" : ", baseUrl=" + baseUrl) + "]";
+    }
+}
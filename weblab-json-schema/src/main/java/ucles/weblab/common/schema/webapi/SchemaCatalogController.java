@@ -0,0 +1,371 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ucles.weblab.common.xc.service.CrossContextMapping;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Lists every schema the application serves, with a hash of its content for the caller, so that a client holding
+ * schemas locally can tell which are stale and refetch only those.
+ * <p>
+ * The catalog is made up of the {@code GET} handler methods which produce {@code application/schema+json} and can be
+ * called without any path variables or required parameters: the {@code describe} method of each
+ * {@link SchemaProvidingController}, enum endpoints such as those mapped with {@link CrossContextMapping} (whose URN is
+ * listed alongside the URL), and any other schema endpoints of that kind. Each hash is the entity tag a client would
+ * get from fetching the schema itself with the caller's locale, authorities and name, and endpoints which the caller
+ * may not access, whether by the application's URL security or by method security, are left out. The response is of the form:
+ * <pre>
+ *     {
+ *         "schemas": [
+ *             { "url": "http://example.com/people/$schema/", "hash": "0cc175b9c0f1b6a831c399e269772661" },
+ *             { "url": "http://example.com/$businessstreams", "urn": "urn:xc:form:businessstreams", "hash": "..." }
+ *         ]
+ *     }
+ * </pre>
+ * Hashes are computed per locale, set of authorities and principal as they are first asked for, and kept until the schemas they
+ * were computed from are {@link ResourceSchemaCreator#addInvalidationListener invalidated}, or for at most
+ * {@link #setMaxAge(Duration) a minute} since enum endpoints may change without the schema caches knowing.
+ * <p>
+ * The controller is mapped to {@code /$catalog} unless the {@code weblab.schema.catalog-path} property specifies
+ * otherwise. Register it as a bean alongside the schema providing controllers.
+ * It is deliberately not a {@code @Controller} component, so that applications which scan this package do not get the
+ * endpoint unless they declare it; the type-level {@code @RequestMapping} lets Spring MVC detect it once declared.
+ *
+ * @since 18/10/26
+ */
+@RequestMapping
+public class SchemaCatalogController implements DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ObjectMapper objectMapper;
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final SchemaCache<String, Hash> hashCache = new SchemaCache<>(SchemaCache.DEFAULT_MAXIMUM_SIZE * 4);
+    private volatile List<Entry> entries;
+    private final ExecutorService defaultExecutor = SchemaExecutors.bounded("schema-catalog");
+    private Executor executor = defaultExecutor;
+    private Duration maxAge = Duration.ofMinutes(1);
+    private WebInvocationPrivilegeEvaluator privilegeEvaluator;
+
+    public SchemaCatalogController(ObjectMapper objectMapper, RequestMappingHandlerMapping handlerMapping) {
+        this.objectMapper = objectMapper;
+        this.handlerMapping = handlerMapping;
+    }
+
+    /**
+     * @param schemaCreator the creator of the schemas to list, whose invalidation also invalidates the hashes
+     */
+    public SchemaCatalogController(ObjectMapper objectMapper, RequestMappingHandlerMapping handlerMapping, ResourceSchemaCreator schemaCreator) {
+        this(objectMapper, handlerMapping);
+        schemaCreator.addInvalidationListener(this::invalidate);
+    }
+
+    /**
+     * Sets the executor to compute hashes on. Defaults to a bounded pool of this controller's own, since
+     * the work blocks and should not tie up the common fork-join pool.
+     */
+    public void setExecutor(Executor executor) {
+        Assert.notNull(executor, "Executor is required");
+        this.executor = executor;
+    }
+
+    @Override
+    public void destroy() {
+        defaultExecutor.shutdown();
+    }
+
+    /**
+     * Sets how long a computed hash is used for before it is computed again. Defaults to a minute.
+     */
+    public void setMaxAge(Duration maxAge) {
+        Assert.isTrue(!maxAge.isNegative(), "Maximum age must not be negative");
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Sets the evaluator of the application's URL security, so that schemas the caller could not fetch directly are
+     * not listed. Spring Security's web configuration provides one, and without it only method security applies.
+     */
+    @Autowired(required = false)
+    public void setPrivilegeEvaluator(WebInvocationPrivilegeEvaluator privilegeEvaluator) {
+        this.privilegeEvaluator = privilegeEvaluator;
+    }
+
+    public SchemaCache<String, Hash> getHashCache() {
+        return hashCache;
+    }
+
+    /**
+     * Discards all computed hashes.
+     */
+    public void invalidate() {
+        hashCache.invalidateAll();
+    }
+
+    @GetMapping(value = "${weblab.schema.catalog-path:/$catalog}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> catalog(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        final String callerKey = callerKey();
+        final SchemaRequestContext context = SchemaRequestContext.capture();
+        final List<CompletableFuture<Optional<ObjectNode>>> listings = entries().stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> context.run(() -> list(entry, callerKey)), executor))
+                .collect(Collectors.toList());
+
+        final ObjectNode catalog = objectMapper.createObjectNode();
+        final ArrayNode schemas = catalog.putArray("schemas");
+        listings.forEach(listing -> listing.join().ifPresent(schemas::add));
+        try {
+            return new SerializedSchema(objectMapper.writeValueAsBytes(catalog), MediaType.APPLICATION_JSON).toResponseEntity(acceptEncoding, headers -> {
+                headers.setCacheControl(CacheControl.noCache().cachePrivate());
+                headers.setVary(Arrays.asList(HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.AUTHORIZATION));
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize schema catalog", e);
+        }
+    }
+
+    private Optional<ObjectNode> list(Entry entry, String callerKey) {
+        final String key = entry.path + '\n' + callerKey;
+        Hash hash = hashCache.get(key, k -> hash(entry));
+        if (hash.isOlderThan(maxAge)) {
+            hashCache.invalidate(key);
+            hash = hashCache.get(key, k -> hash(entry));
+        }
+        if (hash.value == null) {
+            return Optional.empty();
+        }
+
+        final ObjectNode listing = objectMapper.createObjectNode();
+        listing.put("url", ServletUriComponentsBuilder.fromCurrentContextPath().path(entry.path).toUriString());
+        entry.urn.ifPresent(urn -> listing.put("urn", urn));
+        listing.put("hash", hash.value);
+        return Optional.of(listing);
+    }
+
+    /**
+     * Computes the hash of a schema by calling its endpoint in the current context, if the caller may request it.
+     */
+    private Hash hash(Entry entry) {
+        if (!isAllowed(entry.path)) {
+            logger.debug("Not listing " + entry.path + " in schema catalog as the caller may not request it");
+            return Hash.none();
+        }
+
+        final HandlerMethod handlerMethod = entry.handlerMethod.createWithResolvedBean();
+        final Object bean = handlerMethod.getBean();
+        final Object result;
+        try {
+            // Call the method through the bean's proxy, if any, so that method security applies
+            final Method method = AopUtils.selectInvocableMethod(handlerMethod.getBridgedMethod(), bean.getClass());
+            result = AopUtils.invokeJoinpointUsingReflection(bean, method, arguments(handlerMethod));
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // typically an AccessDeniedException, as the caller may not see every schema
+            logger.debug("Not listing " + entry.path + " in schema catalog", e);
+            return Hash.none();
+        }
+
+        Object body = result;
+        if (result instanceof ResponseEntity) {
+            final ResponseEntity<?> response = (ResponseEntity<?>) result;
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return Hash.none();
+            }
+            final String eTag = response.getHeaders().getETag();
+            if (eTag != null) {
+                return new Hash(eTag.replaceFirst("^W/", "").replace("\"", ""));
+            }
+            body = response.getBody();
+        }
+        if (body == null) {
+            return Hash.none();
+        }
+        try {
+            return new Hash(DigestUtils.md5DigestAsHex(body instanceof byte[] ? (byte[]) body : objectMapper.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            logger.warn("Unable to hash " + entry.path + " for schema catalog", e);
+            return Hash.none();
+        }
+    }
+
+    /**
+     * Returns whether the application's URL security lets the current caller {@code GET} a path.
+     */
+    private boolean isAllowed(String path) {
+        if (privilegeEvaluator == null) {
+            return true;
+        }
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        final String contextPath = attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest().getContextPath() : "";
+        return privilegeEvaluator.isAllowed(contextPath, path, RequestMethod.GET.name(), SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * Returns arguments for a handler method which can be listed, as the current request would have had them.
+     */
+    private static Object[] arguments(HandlerMethod handlerMethod) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        final MethodParameter[] parameters = handlerMethod.getMethodParameters();
+        final Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            final MethodParameter parameter = parameters[i];
+            final Class<?> type = parameter.getParameterType();
+            if (parameter.hasParameterAnnotation(AuthenticationPrincipal.class)) {
+                final Object principal = authentication == null ? null : authentication.getPrincipal();
+                arguments[i] = type.isInstance(principal) ? principal : null;
+            } else if (Principal.class.isAssignableFrom(type)) {
+                arguments[i] = type.isInstance(authentication) ? authentication : null;
+            } else if (parameter.hasParameterAnnotation(RequestHeader.class)) {
+                arguments[i] = currentRequestHeader(parameter.getParameterAnnotation(RequestHeader.class).name());
+            } else if (type == Optional.class) {
+                arguments[i] = Optional.empty();
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Returns whether a handler method can be called with only the arguments {@link #arguments} supplies.
+     */
+    private static boolean isListable(HandlerMethod handlerMethod) {
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            final RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            final RequestHeader requestHeader = parameter.getParameterAnnotation(RequestHeader.class);
+            final boolean listable = parameter.hasParameterAnnotation(AuthenticationPrincipal.class)
+                    || Principal.class.isAssignableFrom(parameter.getParameterType())
+                    || parameter.getParameterType() == Optional.class
+                    || requestParam != null && !requestParam.required() && requestParam.defaultValue().equals(ValueConstants.DEFAULT_NONE)
+                    || requestHeader != null && !requestHeader.required() && !requestHeader.name().isEmpty();
+            if (!listable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Entry> entries() {
+        List<Entry> result = entries;
+        if (result == null) {
+            result = new ArrayList<>();
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> mapping : handlerMapping.getHandlerMethods().entrySet()) {
+                final RequestMappingInfo info = mapping.getKey();
+                final HandlerMethod handlerMethod = mapping.getValue();
+                final Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+                final boolean producesSchema = info.getProducesCondition().getProducibleMediaTypes().stream()
+                        .anyMatch(SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8::isCompatibleWith);
+                if ((methods.isEmpty() || methods.contains(RequestMethod.GET)) && producesSchema && isListable(handlerMethod)) {
+                    final Optional<String> urn = Optional.ofNullable(handlerMethod.getMethodAnnotation(CrossContextMapping.class))
+                            .map(CrossContextMapping::value);
+                    info.getPatternsCondition().getPatterns().stream()
+                            .filter(pattern -> !pattern.contains("{") && !pattern.contains("*"))
+                            .forEach(pattern -> result.add(new Entry(pattern, urn, handlerMethod)));
+                }
+            }
+            result.sort((a, b) -> a.path.compareTo(b.path));
+            entries = Collections.unmodifiableList(result);
+            logger.info("Listing " + result.size() + " schemas in schema catalog");
+        }
+        return result;
+    }
+
+    /**
+     * Identifies what the schemas depend on about the caller: their locale, granted authorities, the base URL they
+     * called, which links in the schemas are absolute against, and, as any schema may refer to {@code #currentUser} as
+     * {@link SchemaCacheKey} allows for, their name.
+     */
+    private static String callerKey() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        final Set<String> authorities = new TreeSet<>();
+        String principalName = "";
+        if (authentication != null) {
+            authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).forEach(authorities::add);
+            principalName = authentication.getName();
+        }
+        return LocaleContextHolder.getLocale() + "\n" + authorities + "\n" + principalName + "\n" + SchemaCacheKey.currentBaseUrl();
+    }
+
+    private static String currentRequestHeader(String name) {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest().getHeader(name) : null;
+    }
+
+    private static final class Entry {
+        final String path;
+        final Optional<String> urn;
+        final HandlerMethod handlerMethod;
+
+        Entry(String path, Optional<String> urn, HandlerMethod handlerMethod) {
+            this.path = path;
+            this.urn = urn;
+            this.handlerMethod = handlerMethod;
+        }
+    }
+
+    /**
+     * The hash of a schema for a caller, or none if the caller cannot fetch the schema.
+     */
+    public static final class Hash {
+        final String value;
+        private final long computedAt = System.nanoTime();
+
+        Hash(String value) {
+            this.value = value;
+        }
+
+        static Hash none() {
+            return new Hash(null);
+        }
+
+        boolean isOlderThan(Duration maxAge) {
+            return System.nanoTime() - computedAt > maxAge.toNanos();
+        }
+    }
+}
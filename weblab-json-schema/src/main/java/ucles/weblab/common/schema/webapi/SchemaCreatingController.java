@@ -3,6 +3,13 @@ package ucles.weblab.common.schema.webapi;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.LinkDescriptionObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.Arrays;
 
@@ -36,4 +43,55 @@ public class SchemaCreatingController<C extends SchemaCreatingController<C>> {
         copy[links.length] = link;
         schema.asSimpleTypeSchema().setLinks(copy);
     }
+
+    /**
+     * Returns the schema dialect the current request asks for with the {@code profile} parameter of its
+     * {@code Accept} header, or draft-03 if it does not ask for one this library can serve.
+     */
+    protected SchemaDialect requestedSchemaDialect() {
+        final String accept = currentRequestHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return SchemaDialect.DRAFT_03;
+        }
+        try {
+            return SchemaDialect.negotiate(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return SchemaDialect.DRAFT_03;
+        }
+    }
+
+    /**
+     * Returns the schema encoding the current request asks for in its {@code Accept} header, or JSON if it does not
+     * explicitly ask for an available binary encoding.
+     */
+    protected SchemaEncoding requestedSchemaEncoding() {
+        final String accept = currentRequestHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return SchemaEncoding.JSON;
+        }
+        try {
+            return SchemaEncoding.negotiate(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return SchemaEncoding.JSON;
+        }
+    }
+
+    /**
+     * Returns a draft-03 schema as a response in the {@link #requestedSchemaDialect() dialect} and
+     * {@link #requestedSchemaEncoding() encoding} the request asks for, gzipped if the request accepts it, with
+     * {@code Vary} set accordingly since the same URL serves every variant.
+     */
+    protected ResponseEntity<byte[]> negotiatedSchemaResponse(SerializedSchema draft03) {
+        return getSchemaCreator().convert(draft03, requestedSchemaDialect(), requestedSchemaEncoding())
+                .toResponseEntity(currentRequestHeader(HttpHeaders.ACCEPT_ENCODING),
+                        headers -> headers.setVary(Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    private static String currentRequestHeader(String name) {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest().getHeader(name);
+    }
 }
@@ -0,0 +1,75 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JSON Schema dialects which schemas can be served in. Schemas are generated as draft-03, and converted to other
+ * dialects by {@link Draft202012SchemaConverter} when a client asks for them.
+ * <p>
+ * Clients choose a dialect with the {@code profile} parameter of {@code application/schema+json} in the
+ * {@code Accept} header, e.g. {@code Accept: application/schema+json; profile="https://json-schema.org/draft/2020-12/schema"}.
+ * The profile may equally be given on the binary {@link SchemaEncoding encodings}. Without a recognised profile,
+ * schemas are served as draft-03.
+ *
+ * @since 18/10/26
+ */
+public enum SchemaDialect {
+    DRAFT_03(ResourceSchemaCreator.HTTP_JSON_SCHEMA_ORG_DRAFT_03_SCHEMA),
+    DRAFT_2020_12("https://json-schema.org/draft/2020-12/schema");
+
+    private final String uri;
+    private final MediaType mediaType;
+
+    SchemaDialect(String uri) {
+        this.uri = uri;
+        final Map<String, String> parameters = new LinkedHashMap<>(SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8.getParameters());
+        parameters.put(SchemaMediaTypes.PROFILE_PARAMETER, '"' + uri + '"');
+        this.mediaType = new MediaType(SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8, parameters);
+    }
+
+    /**
+     * @return the meta-schema URI, as used for {@code $schema}
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the content type of a schema in this dialect, with its {@code profile} parameter
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the dialect to serve, from the media types a client accepts. The first acceptable media type with a
+     * recognised profile wins. Media types with a quality of 0 are not acceptable, so their profiles are ignored.
+     *
+     * @param acceptableMediaTypes the media types from the {@code Accept} header, in order of preference
+     * @return the dialect to serve
+     */
+    public static SchemaDialect negotiate(List<MediaType> acceptableMediaTypes) {
+        final List<MediaType> sorted = new ArrayList<>(acceptableMediaTypes);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType acceptable : sorted) {
+            final String profile = acceptable.getParameter(SchemaMediaTypes.PROFILE_PARAMETER);
+            if (profile == null || acceptable.getQualityValue() == 0 || Arrays.stream(SchemaEncoding.values()).noneMatch(e -> acceptable.isCompatibleWith(e.getMediaType()))) {
+                continue;
+            }
+            final String unquoted = profile.startsWith("\"") && profile.endsWith("\"") && profile.length() > 1
+                    ? profile.substring(1, profile.length() - 1) : profile;
+            for (SchemaDialect dialect : values()) {
+                if (dialect.uri.equals(unquoted) || dialect.uri.equals(unquoted + '#')) {
+                    return dialect;
+                }
+            }
+        }
+        return DRAFT_03;
+    }
+}
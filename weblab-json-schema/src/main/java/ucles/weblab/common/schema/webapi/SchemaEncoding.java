@@ -0,0 +1,97 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The encodings which schemas can be served in. Schemas are serialized as JSON, and transcoded to the binary encodings
+ * for clients which ask for them in their {@code Accept} header, e.g. services which fetch schemas frequently and
+ * have no need for text. A binary encoding is only available if its Jackson data format is on the classpath.
+ *
+ * @since 18/10/26
+ */
+public enum SchemaEncoding {
+    JSON(SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8, null),
+    SMILE(SchemaMediaTypes.APPLICATION_SCHEMA_SMILE, "com.fasterxml.jackson.dataformat.smile.SmileFactory"),
+    CBOR(SchemaMediaTypes.APPLICATION_SCHEMA_CBOR, "com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+
+    private final MediaType mediaType;
+    private final String factoryClassName;
+    private final boolean available;
+    private volatile JsonFactory factory;
+
+    SchemaEncoding(MediaType mediaType, String factoryClassName) {
+        this.mediaType = mediaType;
+        this.factoryClassName = factoryClassName;
+        this.available = factoryClassName == null || ClassUtils.isPresent(factoryClassName, SchemaEncoding.class.getClassLoader());
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return the content type of a schema in this encoding and the given dialect
+     */
+    public MediaType getMediaType(SchemaDialect dialect) {
+        if (this == JSON) {
+            return dialect.getMediaType();
+        }
+        return new MediaType(mediaType, Collections.singletonMap(SchemaMediaTypes.PROFILE_PARAMETER, '"' + dialect.getUri() + '"'));
+    }
+
+    /**
+     * @return whether the Jackson data format for this encoding is on the classpath
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns a factory for generators which write this encoding. Not used for {@link #JSON}, which is written by the
+     * {@code ObjectMapper} the schemas are generated with.
+     *
+     * @throws IllegalStateException if the encoding is not {@link #isAvailable() available}
+     */
+    JsonFactory getFactory() {
+        if (!available) {
+            throw new IllegalStateException("Jackson data format for " + this + " is not on the classpath");
+        }
+        JsonFactory jsonFactory = factory;
+        if (jsonFactory == null) {
+            jsonFactory = factoryClassName == null ? new JsonFactory()
+                    : (JsonFactory) BeanUtils.instantiateClass(ClassUtils.resolveClassName(factoryClassName, SchemaEncoding.class.getClassLoader()));
+            factory = jsonFactory;
+        }
+        return jsonFactory;
+    }
+
+    /**
+     * Picks the encoding to serve, from the media types a client accepts. A binary encoding is only chosen if the
+     * client names it explicitly and it is available, so wildcards get JSON.
+     *
+     * @param acceptableMediaTypes the media types from the {@code Accept} header, in order of preference
+     * @return the encoding to serve
+     */
+    public static SchemaEncoding negotiate(List<MediaType> acceptableMediaTypes) {
+        final List<MediaType> sorted = new ArrayList<>(acceptableMediaTypes);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType acceptable : sorted) {
+            if (acceptable.getQualityValue() == 0) {
+                continue;
+            }
+            for (SchemaEncoding encoding : values()) {
+                if (encoding.available && acceptable.equalsTypeAndSubtype(encoding.mediaType)) {
+                    return encoding;
+                }
+            }
+        }
+        return JSON;
+    }
+}
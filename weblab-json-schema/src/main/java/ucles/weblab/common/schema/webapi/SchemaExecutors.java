@@ -0,0 +1,43 @@
+package ucles.weblab.common.schema.webapi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors which the schema endpoints fan work out to by default. Schema generation blocks, e.g. on
+ * security checks and enum endpoints, so it is kept off the common fork-join pool.
+ *
+ * @since 18/10/26
+ */
+final class SchemaExecutors {
+    private static final int QUEUE_CAPACITY = 64;
+
+    private SchemaExecutors() {
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads, with up to as many threads as processors (but at most 4) which stop
+     * when idle. Once its queue is full, further tasks run on the submitting thread, which slows the caller down
+     * rather than letting one request queue unbounded work.
+     *
+     * @param name the prefix for the names of the pool's threads
+     * @return the executor, which the caller should shut down when it is no longer needed
+     */
+    static ExecutorService bounded(String name) {
+        final int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    final Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
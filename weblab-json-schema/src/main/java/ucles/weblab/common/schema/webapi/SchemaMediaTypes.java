@@ -10,6 +10,20 @@ import org.springframework.http.MediaType;
 public final class SchemaMediaTypes {
     public static final String APPLICATION_SCHEMA_JSON_UTF8_VALUE = "application/schema+json;charset=UTF-8";
     public static final MediaType APPLICATION_SCHEMA_JSON_UTF8 = MediaType.valueOf(APPLICATION_SCHEMA_JSON_UTF8_VALUE);
+    /**
+     * Jackson Smile binary encoding of a schema. See {@link SchemaEncoding#SMILE}.
+     */
+    public static final String APPLICATION_SCHEMA_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SCHEMA_SMILE = MediaType.valueOf(APPLICATION_SCHEMA_SMILE_VALUE);
+    /**
+     * CBOR binary encoding of a schema. See {@link SchemaEncoding#CBOR}.
+     */
+    public static final String APPLICATION_SCHEMA_CBOR_VALUE = "application/cbor";
+    public static final MediaType APPLICATION_SCHEMA_CBOR = MediaType.valueOf(APPLICATION_SCHEMA_CBOR_VALUE);
+    /**
+     * The media type parameter naming the dialect a schema is written in.
+     */
+    public static final String PROFILE_PARAMETER = "profile";
 
     private SchemaMediaTypes() {
         // Prevent instantiation
@@ -0,0 +1,74 @@
+package ucles.weblab.common.schema.webapi;
+
+import java.util.function.Supplier;
+
+/**
+ * Receives measurements of schema generation. The default, {@link #NOOP}, discards them, so schema generation costs
+ * nothing extra unless metrics are configured e.g. with {@link MicrometerSchemaMetrics}.
+ * <p>
+ * Set the same instance on each of {@link ResourceSchemaCreator}, {@link ControllerMethodSchemaCreator},
+ * {@link EnumSchemaCreator} (which also passes it to the Jackson visitors) and
+ * {@link ucles.weblab.common.i18n.service.impl.LocalisationServiceImpl}.
+ *
+ * @since 18/10/26
+ */
+public interface SchemaMetrics {
+    SchemaMetrics NOOP = new SchemaMetrics() { };
+
+    /**
+     * The kinds of schema which are generated.
+     */
+    enum Kind {
+        RESOURCE, REQUEST_PARAMS, ENUM
+    }
+
+    /**
+     * Records the time taken to generate a schema.
+     *
+     * @param kind the kind of schema generated
+     * @param type the resource or controller class described, or null if none e.g. for an enum
+     * @param nanos the time taken in nanoseconds
+     */
+    default void recordGeneration(Kind kind, Class<?> type, long nanos) {
+    }
+
+    /**
+     * Generates a schema, recording the time taken.
+     */
+    default <T> T timeGeneration(Kind kind, Class<?> type, Supplier<T> generation) {
+        final long start = System.nanoTime();
+        try {
+            return generation.get();
+        } finally {
+            recordGeneration(kind, type, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records that a SpEL expression (an {@code enumRef} or {@code readOnlyExpression}) was evaluated.
+     */
+    default void expressionEvaluated() {
+    }
+
+    /**
+     * Records that a localised message was looked up.
+     */
+    default void messageLookedUp() {
+    }
+
+    /**
+     * Records that an enum schema was encoded as a {@code data:} URI rather than referenced from an
+     * {@link EnumSchemaRegistry}.
+     */
+    default void enumDataUriEncoded() {
+    }
+
+    /**
+     * Starts reporting the size and hit ratio of a schema cache.
+     *
+     * @param name the name to tag the cache's measurements with
+     * @param cache the cache
+     */
+    default void monitorCache(String name, SchemaCache<?, ?> cache) {
+    }
+}
@@ -0,0 +1,160 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares the schemas of all {@link SchemaProvidingController self-describing controllers} in the context when it is
+ * refreshed, so that the first requests after a deploy do not pay for introspecting resources and initialising Jackson.
+ * Only the parts of the schemas which do not depend on the request are {@link ResourceSchemaCreator#prewarm prepared},
+ * since there is no request to build links and {@code enumRef} URLs against.
+ * <p>
+ * Only the refresh of the context the prewarmer is declared in starts warm-up, not that of a parent or child context.
+ * Schemas are prepared in parallel on a bounded pool, for each of the configured locales, and the time taken for each
+ * resource class is logged and available from {@link #getTimings()}. By default, warm-up runs in the background and
+ * {@link #getCompletion()} can be used e.g. by a readiness check. If {@link #setBlocking(boolean) blocking} is set, the
+ * context refresh waits until warm-up is complete, which delays the application being reported as ready.
+ * <p>
+ * Warming up also registers the enum schemas of every resource in the {@link EnumSchemaRegistry}, if one is
+ * configured, so that enum URLs handed out by other nodes or before a restart resolve once warm-up has finished.
+ *
+ * @since 18/10/26
+ */
+public class SchemaPrewarmer implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ResourceSchemaCreator schemaCreator;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final Map<Class<?>, Long> timings = new ConcurrentHashMap<>();
+    private List<Locale> locales = Collections.singletonList(Locale.getDefault());
+    private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private boolean blocking;
+    private ApplicationContext applicationContext;
+
+    public SchemaPrewarmer(ResourceSchemaCreator schemaCreator) {
+        this.schemaCreator = schemaCreator;
+    }
+
+    /**
+     * Sets the locales to generate schemas for. Defaults to the JVM default locale.
+     */
+    public void setLocales(List<Locale> locales) {
+        Assert.notEmpty(locales, "At least one locale is required");
+        this.locales = locales;
+    }
+
+    /**
+     * Sets the maximum number of schemas to generate at once. Defaults to the number of processors, up to 4.
+     */
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether the context refresh should wait for warm-up to complete.
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * @return a future which completes when warm-up has finished, whether or not every schema was generated successfully
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * @return the time taken in milliseconds to generate each resource class's schema, in all locales
+     */
+    public Map<Class<?>, Long> getTimings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (applicationContext != null && event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        final Set<Class<?>> resourceClasses = new LinkedHashSet<>();
+        for (SchemaProvidingController<?> controller : event.getApplicationContext().getBeansOfType(SchemaProvidingController.class).values()) {
+            controller.getDescribedResourceClass().ifPresent(resourceClasses::add);
+        }
+        prewarm(resourceClasses);
+
+        if (blocking) {
+            completion.join();
+        }
+    }
+
+    void prewarm(Collection<Class<?>> resourceClasses) {
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, new PrewarmThreadFactory());
+        final CompletableFuture<?>[] tasks = resourceClasses.stream()
+                .map(resourceClass -> CompletableFuture.runAsync(() -> prewarm(resourceClass), executor))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(tasks).whenComplete((result, e) -> {
+            executor.shutdown();
+            logger.info("Pre-warmed " + resourceClasses.size() + " resource schemas in " + locales.size() + " locale(s) in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            completion.complete(null);
+        });
+    }
+
+    private void prewarm(Class<?> resourceClass) {
+        final long start = System.currentTimeMillis();
+        try {
+            for (Locale locale : locales) {
+                schemaCreator.prewarm(resourceClass, locale);
+            }
+            final long elapsed = System.currentTimeMillis() - start;
+            timings.put(resourceClass, elapsed);
+            logger.info("Pre-warmed schema for " + resourceClass.getName() + " in " + elapsed + "ms");
+        } catch (RuntimeException e) {
+            logger.warn("Unable to pre-warm schema for " + resourceClass.getName(), e);
+        }
+    }
+
+    private static class PrewarmThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "schema-prewarm-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package ucles.weblab.common.schema.webapi;
 
-import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import ucles.weblab.common.identity.domain.Belongs;
 
+import java.util.Optional;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
@@ -18,8 +19,20 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public abstract class SchemaProvidingController<Self extends SchemaProvidingController<Self>>
         extends SchemaCreatingController<Self> {
 
+    /**
+     * Returns the schema, typically as the {@link SerializedSchema#toResponseEntity() bytes of a SerializedSchema} so
+     * that clients can revalidate it with {@code If-None-Match}.
+     */
     @GetJsonSchema("/$schema/")
-    public abstract ResponseEntity<JsonSchema> describe(@AuthenticationPrincipal Belongs principal);
+    public abstract ResponseEntity<?> describe(@AuthenticationPrincipal Belongs principal);
+
+    /**
+     * Returns the resource class which {@link #describe} describes, if there is one, so that its schema can be
+     * generated ahead of time e.g. by {@link SchemaPrewarmer}.
+     */
+    public Optional<Class<?>> getDescribedResourceClass() {
+        return Optional.empty();
+    }
 
     protected void addDescribedByLink(RepresentationModel<?> resource) {
         resource.add(linkTo(self().describe(null)).withRel(IanaLinkRelations.DESCRIBED_BY));
@@ -0,0 +1,98 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The request, security and locale context of a request, captured so that schema endpoints can be called on its
+ * behalf from other threads, e.g. to serve several schemas in one response.
+ * <p>
+ * The request is presented to the endpoints without its {@code Accept} and {@code Accept-Encoding} headers, so that
+ * they respond with uncompressed JSON in the default dialect whatever the caller asked for.
+ *
+ * @since 18/10/26
+ */
+final class SchemaRequestContext {
+    private static final Set<String> HIDDEN_HEADERS = new HashSet<>(Arrays.asList(
+            HttpHeaders.ACCEPT.toLowerCase(Locale.ROOT), HttpHeaders.ACCEPT_ENCODING.toLowerCase(Locale.ROOT)));
+
+    private final RequestAttributes requestAttributes;
+    private final SecurityContext securityContext;
+    private final LocaleContext localeContext;
+
+    private SchemaRequestContext(RequestAttributes requestAttributes, SecurityContext securityContext, LocaleContext localeContext) {
+        this.requestAttributes = requestAttributes;
+        this.securityContext = securityContext;
+        this.localeContext = localeContext;
+    }
+
+    /**
+     * Captures the context of the current thread.
+     */
+    static SchemaRequestContext capture() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            attributes = new ServletRequestAttributes(new SchemaRequest(((ServletRequestAttributes) attributes).getRequest()));
+        }
+        return new SchemaRequestContext(attributes, SecurityContextHolder.getContext(), LocaleContextHolder.getLocaleContext());
+    }
+
+    /**
+     * Calls a function in the captured context, and then restores the context of the calling thread.
+     */
+    <T> T run(Supplier<T> supplier) {
+        final RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+        final SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+        final LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        SecurityContextHolder.setContext(securityContext);
+        LocaleContextHolder.setLocaleContext(localeContext);
+        try {
+            return supplier.get();
+        } finally {
+            RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+            SecurityContextHolder.setContext(previousSecurityContext);
+            LocaleContextHolder.setLocaleContext(previousLocaleContext);
+        }
+    }
+
+    private static class SchemaRequest extends HttpServletRequestWrapper {
+        SchemaRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HIDDEN_HEADERS.contains(name.toLowerCase(Locale.ROOT)) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HIDDEN_HEADERS.contains(name.toLowerCase(Locale.ROOT)) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            final List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(name -> HIDDEN_HEADERS.contains(name.toLowerCase(Locale.ROOT)));
+            return Collections.enumeration(names);
+        }
+    }
+}
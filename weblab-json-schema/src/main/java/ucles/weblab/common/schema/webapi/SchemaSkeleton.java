@@ -0,0 +1,689 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonFormatTypes;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
+import com.fasterxml.jackson.module.jsonSchema.factories.SchemaFactoryWrapper;
+import com.fasterxml.jackson.module.jsonSchema.types.ArraySchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ClassUtils;
+import ucles.weblab.common.i18n.service.LocalisationService;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The invariant part of a resource schema, compiled once per resource class, together with the slots within it which
+ * depend on the request: {@code readOnlyExpression} and {@code enumRef} expressions, localised titles and
+ * descriptions, references to union enum schemas in an {@link EnumSchemaRegistry}, which are absolute against the
+ * request's host, and references to the definitions of repeated types, which are absolute against the schema's id.
+ * <p>
+ * The skeleton itself is never modified. {@link #overlay} copies only the schema nodes on the paths to dynamic slots,
+ * so the cost of each request is proportional to the number of dynamic slots rather than the size of the schema.
+ *
+ * @since 18/10/26
+ */
+final class SchemaSkeleton {
+    /**
+     * Classpath location of skeletons generated at build time by {@link SchemaSkeletonGenerator}.
+     */
+    static final String RESOURCE_LOCATION = "META-INF/weblab/schema-skeletons/";
+    private static final int RESOURCE_FORMAT_VERSION = 2;
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaSkeleton.class);
+    private static final Object ITEMS = new Object();
+
+    private final JsonSchema schema;
+    private final List<DynamicSlot> slots;
+    private final String enumBasePath;
+    private final Map<String, byte[]> enumSchemas;
+    private final Set<String> messageKeys;
+    private volatile JsonNode template;
+    private volatile SlotTree slotTree;
+
+    private SchemaSkeleton(JsonSchema schema, List<DynamicSlot> slots, String enumBasePath, Map<String, byte[]> enumSchemas) {
+        this.schema = schema;
+        this.slots = slots;
+        this.enumBasePath = enumBasePath;
+        this.enumSchemas = enumSchemas;
+        this.messageKeys = new LinkedHashSet<>();
+        for (DynamicSlot slot : slots) {
+            if (slot.titleKey != null) {
+                messageKeys.add(slot.titleKey);
+            }
+            if (slot.descriptionKey != null) {
+                messageKeys.add(slot.descriptionKey);
+            }
+        }
+    }
+
+    /**
+     * Introspects a resource class with Jackson to create its skeleton.
+     */
+    static SchemaSkeleton generate(Class<?> resourceClass,
+                                   ObjectMapper objectMapper,
+                                   EnumSchemaCreator enumSchemaCreator,
+                                   CrossContextConversionService crossContextConversionService,
+                                   LocalisationService localisationService) throws JsonMappingException {
+        return generate(resourceClass, objectMapper, enumSchemaCreator, crossContextConversionService, localisationService, false,
+                AdditionalConstraintResolver.DEFAULT_EXPRESSION_PARSER);
+    }
+
+    /**
+     * Introspects a resource class with Jackson to create its skeleton, optionally describing each repeated object type
+     * only once and referring to it elsewhere, and parsing expressions with the given parser.
+     */
+    static SchemaSkeleton generate(Class<?> resourceClass,
+                                   ObjectMapper objectMapper,
+                                   EnumSchemaCreator enumSchemaCreator,
+                                   CrossContextConversionService crossContextConversionService,
+                                   LocalisationService localisationService,
+                                   boolean referenceRepeatedTypes,
+                                   CachingExpressionParser expressionParser) throws JsonMappingException {
+        final Recorder recorder = new Recorder();
+        final SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(crossContextConversionService,
+                                                                           enumSchemaCreator,
+                                                                           objectMapper,
+                                                                           new StandardEvaluationContext(),
+                                                                           localisationService,
+                                                                           recorder,
+                                                                           referenceRepeatedTypes,
+                                                                           expressionParser);
+        objectMapper.acceptJsonFormatVisitor(objectMapper.constructType(resourceClass), wrapper);
+        return compile(wrapper.finalSchema(), recorder);
+    }
+
+    /**
+     * Loads the skeleton generated at build time for a resource class, if there is one.
+     *
+     * @return the skeleton, or empty if there is no usable generated skeleton on the classpath
+     */
+    static Optional<SchemaSkeleton> load(Class<?> resourceClass, ObjectMapper objectMapper) {
+        final ClassLoader classLoader = Optional.ofNullable(resourceClass.getClassLoader()).orElseGet(ClassUtils::getDefaultClassLoader);
+        try (InputStream in = classLoader.getResourceAsStream(resourceName(resourceClass))) {
+            if (in == null) {
+                return Optional.empty();
+            }
+            final JsonNode tree = objectMapper.readTree(in);
+            if (tree.path("version").asInt() != RESOURCE_FORMAT_VERSION) {
+                log.warn("Ignoring generated schema skeleton for {} with unsupported version {}", resourceClass.getName(), tree.path("version"));
+                return Optional.empty();
+            }
+            return Optional.of(fromTree(tree, objectMapper));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable generated schema skeleton for " + resourceClass.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    static String resourceName(Class<?> resourceClass) {
+        return RESOURCE_LOCATION + resourceClass.getName() + ".json";
+    }
+
+    /**
+     * Creates a skeleton from a schema generated by a {@link SuperSchemaFactoryWrapper} in recording mode, resolving
+     * each recorded slot to its path from the root of the schema.
+     *
+     * @param schema the generated schema, with no dynamic values applied
+     * @param recorder the recorder the wrapper recorded dynamic slots into
+     * @return the skeleton
+     */
+    static SchemaSkeleton compile(JsonSchema schema, Recorder recorder) {
+        final Map<JsonSchema, List<Object>> paths = new IdentityHashMap<>();
+        collectPaths(schema, new ArrayList<>(), paths);
+
+        final List<DynamicSlot> slots = new ArrayList<>();
+        recorder.slots.forEach((node, slot) -> {
+            final List<Object> path = paths.get(node);
+            if (path == null) {
+                log.warn("Dropping dynamic slot for schema node {} which cannot be reached through properties or items, so its expressions and messages will not be applied",
+                        node.getId());
+            } else {
+                slot.path = Collections.unmodifiableList(path);
+                slots.add(slot);
+            }
+        });
+        return new SchemaSkeleton(schema, Collections.unmodifiableList(slots), recorder.enumBasePath, Collections.unmodifiableMap(recorder.enumSchemas));
+    }
+
+    private static void collectPaths(JsonSchema node, List<Object> path, Map<JsonSchema, List<Object>> paths) {
+        if (node == null || paths.containsKey(node)) {
+            return;
+        }
+        paths.put(node, path);
+        if (node.isObjectSchema() && node.asObjectSchema().getProperties() != null) {
+            node.asObjectSchema().getProperties().forEach((name, property) -> collectPaths(property, append(path, name), paths));
+            if (node instanceof DefiningObjectSchema && ((DefiningObjectSchema) node).getDefinitions() != null) {
+                ((DefiningObjectSchema) node).getDefinitions().forEach((name, definition) ->
+                        collectPaths(definition, append(path, new Definition(name)), paths));
+            }
+        } else if (node.isArraySchema() && node.asArraySchema().getItems() != null) {
+            final ArraySchema.Items items = node.asArraySchema().getItems();
+            if (items.isSingleItems()) {
+                collectPaths(items.asSingleItems().getSchema(), append(path, ITEMS), paths);
+            } else if (items.isArrayItems()) {
+                final JsonSchema[] tuple = items.asArrayItems().getJsonSchemas();
+                for (int i = 0; i < tuple.length; i++) {
+                    collectPaths(tuple[i], append(path, i), paths);
+                }
+            }
+        }
+    }
+
+    private static List<Object> append(List<Object> path, Object step) {
+        final List<Object> result = new ArrayList<>(path.size() + 1);
+        result.addAll(path);
+        result.add(step);
+        return result;
+    }
+
+    /**
+     * Converts the skeleton to JSON, for storage as a classpath resource. Paths to dynamic slots are written as arrays
+     * of property names, with {@code null} standing for the items of an array, an index for an item of a tuple and
+     * {@code {"definition": name}} for a definition.
+     */
+    ObjectNode toTree(ObjectMapper objectMapper) {
+        final ObjectNode tree = objectMapper.createObjectNode();
+        tree.put("version", RESOURCE_FORMAT_VERSION);
+        tree.set("schema", objectMapper.valueToTree(schema));
+        final ArrayNode slotsNode = tree.putArray("slots");
+        for (DynamicSlot slot : slots) {
+            final ObjectNode slotNode = slotsNode.addObject();
+            final ArrayNode pathNode = slotNode.putArray("path");
+            slot.path.forEach(step -> {
+                if (step == ITEMS) {
+                    pathNode.addNull();
+                } else if (step instanceof Integer) {
+                    pathNode.add((Integer) step);
+                } else if (step instanceof Definition) {
+                    pathNode.addObject().put("definition", ((Definition) step).name);
+                } else {
+                    pathNode.add((String) step);
+                }
+            });
+            slotNode.put("titleKey", slot.titleKey);
+            slotNode.put("descriptionKey", slot.descriptionKey);
+            slotNode.put("enumRef", slot.enumRef);
+            slotNode.put("enumSchemaRef", slot.enumSchemaRef);
+            slotNode.put("readOnlyExpression", slot.readOnlyExpression);
+            slotNode.put("definitionRef", slot.definitionRef);
+        }
+        tree.put("enumBasePath", enumBasePath);
+        final ObjectNode enumSchemasNode = tree.putObject("enumSchemas");
+        enumSchemas.forEach((hash, serializedSchema) -> enumSchemasNode.put(hash, new String(serializedSchema, StandardCharsets.UTF_8)));
+        return tree;
+    }
+
+    static SchemaSkeleton fromTree(JsonNode tree, ObjectMapper objectMapper) throws IOException {
+        final JsonSchema schema = objectMapper.treeToValue(tree.get("schema"), JsonSchema.class);
+        final List<DynamicSlot> slots = new ArrayList<>();
+        for (JsonNode slotNode : tree.path("slots")) {
+            final DynamicSlot slot = new DynamicSlot();
+            final List<Object> path = new ArrayList<>();
+            slotNode.path("path").forEach(step -> path.add(step.isNull() ? ITEMS
+                    : step.isInt() ? (Object) step.intValue()
+                    : step.isObject() ? new Definition(step.path("definition").asText())
+                    : step.asText()));
+            slot.path = Collections.unmodifiableList(path);
+            slot.titleKey = slotNode.path("titleKey").textValue();
+            slot.descriptionKey = slotNode.path("descriptionKey").textValue();
+            slot.enumRef = slotNode.path("enumRef").textValue();
+            slot.enumSchemaRef = slotNode.path("enumSchemaRef").textValue();
+            slot.readOnlyExpression = slotNode.path("readOnlyExpression").textValue();
+            slot.definitionRef = slotNode.path("definitionRef").textValue();
+            slots.add(slot);
+        }
+        final Map<String, byte[]> enumSchemas = new LinkedHashMap<>();
+        tree.path("enumSchemas").fields().forEachRemaining(e -> enumSchemas.put(e.getKey(), e.getValue().asText().getBytes(StandardCharsets.UTF_8)));
+        return new SchemaSkeleton(schema, Collections.unmodifiableList(slots), tree.path("enumBasePath").textValue(), Collections.unmodifiableMap(enumSchemas));
+    }
+
+    /**
+     * Returns the {@code enumRef} and {@code readOnlyExpression} template expressions evaluated for each overlay.
+     */
+    List<String> getExpressions() {
+        final List<String> expressions = new ArrayList<>();
+        for (DynamicSlot slot : slots) {
+            if (slot.enumRef != null) {
+                expressions.add(slot.enumRef);
+            }
+            if (slot.readOnlyExpression != null) {
+                expressions.add(slot.readOnlyExpression);
+            }
+        }
+        return expressions;
+    }
+
+    /**
+     * Returns the serialized union enum schemas which this skeleton references from an {@link EnumSchemaRegistry}, by
+     * hash. A skeleton loaded from a classpath resource needs these registering before it is used.
+     */
+    Map<String, byte[]> getEnumSchemas() {
+        return enumSchemas;
+    }
+
+    /**
+     * Returns the base path of the {@link EnumSchemaRegistry} the skeleton's enum references were generated against, or
+     * null if it references none.
+     */
+    String getEnumBasePath() {
+        return enumBasePath;
+    }
+
+    /**
+     * Applies the dynamic slots for the current request to a copy of the skeleton. References to definitions are left
+     * relative, to be made absolute by {@link #resolveReferences} once the schema's id is known.
+     *
+     * @param constraintResolver resolver holding the evaluation context for the current request
+     * @param crossContextConversionService used to convert evaluated {@code enumRef} URNs to URLs
+     * @param localisationService used to look up localised titles and descriptions in the current locale
+     * @return a schema which shares all unchanged nodes with the skeleton
+     */
+    JsonSchema overlay(AdditionalConstraintResolver constraintResolver,
+                       CrossContextConversionService crossContextConversionService,
+                       LocalisationService localisationService) {
+        final Map<JsonSchema, JsonSchema> copies = new IdentityHashMap<>();
+        final JsonSchema root = JsonSchemaCopier.shallowCopy(schema);
+        copies.put(schema, root);
+        final Map<String, String> messages = localisationService.resolveMessages(messageKeys);
+
+        for (DynamicSlot slot : slots) {
+            if (!slot.isOverlaid()) {
+                continue;
+            }
+            final JsonSchema node = copyAlong(schema, slot.path, copies);
+            if (slot.titleKey != null) {
+                Optional.ofNullable(messages.get(slot.titleKey)).ifPresent(node.asSimpleTypeSchema()::setTitle);
+            }
+            if (slot.descriptionKey != null) {
+                Optional.ofNullable(messages.get(slot.descriptionKey)).ifPresent(node.asSimpleTypeSchema()::setDescription);
+            }
+            if (slot.enumSchemaRef != null) {
+                node.setExtends(new JsonSchema[]{
+                        new TypedReferenceSchema(EnumSchemaRegistry.absolute(URI.create(slot.enumSchemaRef)).toString(), node.getType())
+                });
+            }
+            if (slot.enumRef != null) {
+                constraintResolver.evaluateEnumRef(slot.enumRef).map(crossContextConversionService::asUrl).ifPresent(ref ->
+                        node.setExtends(new JsonSchema[]{
+                                new TypedReferenceSchema(ref.toString(), node.getType())
+                        }));
+            }
+            if (slot.readOnlyExpression != null) {
+                constraintResolver.evaluateReadOnlyExpression(slot.readOnlyExpression).ifPresent(node::setReadonly);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Makes the references to definitions in a schema overlaid on this skeleton absolute, by prefixing them with the
+     * schema's id. Draft-3 resolves a reference against the nearest enclosing {@code id}, which for a property is its
+     * {@code order:} id rather than the schema's, so a fragment alone would not resolve.
+     *
+     * @param overlaid a schema {@link #overlay overlaid} on this skeleton, whose root may be modified but whose other
+     *                 nodes may be shared with other schemas, so are copied before they are changed
+     * @param id the id of the schema
+     */
+    void resolveReferences(JsonSchema overlaid, String id) {
+        final Map<JsonSchema, JsonSchema> copies = new IdentityHashMap<>();
+        copies.put(overlaid, overlaid);
+        for (DynamicSlot slot : slots) {
+            if (slot.definitionRef != null) {
+                copyAlong(overlaid, slot.path, copies).setExtends(new JsonSchema[] {
+                        new TypedReferenceSchema(id + slot.definitionRef, JsonFormatTypes.OBJECT)
+                });
+            }
+        }
+    }
+
+    /**
+     * Writes the skeleton with the dynamic slots for the current request applied straight to a generator, without
+     * building a schema object for the request. The skeleton's invariant parts are written from a JSON template which
+     * is built the first time the skeleton is written, and only the nodes on the path to a dynamic slot are visited
+     * field by field.
+     *
+     * @param objectMapper the mapper to build the template with
+     * @param generator the generator to write to
+     * @param rootFields fields to add to, or replace in, the root object, including its {@code id}
+     * @param constraintResolver resolver holding the evaluation context for the current request
+     * @param crossContextConversionService used to convert evaluated {@code enumRef} URNs to URLs
+     * @param localisationService used to look up localised titles and descriptions in the current locale
+     */
+    void write(ObjectMapper objectMapper,
+               JsonGenerator generator,
+               Map<String, ?> rootFields,
+               AdditionalConstraintResolver constraintResolver,
+               CrossContextConversionService crossContextConversionService,
+               LocalisationService localisationService) throws IOException {
+        buildTemplate(objectMapper);
+        new StreamingOverlay(generator, constraintResolver, crossContextConversionService, localisationService.resolveMessages(messageKeys),
+                (String) rootFields.get("id")).write(template, slotTree, rootFields);
+    }
+
+    /**
+     * Builds the template for {@link #write} and loads the skeleton's messages in the current locale, without
+     * evaluating anything which depends on the request.
+     */
+    void prewarm(ObjectMapper objectMapper, LocalisationService localisationService) {
+        buildTemplate(objectMapper);
+        localisationService.resolveMessages(messageKeys);
+    }
+
+    private void buildTemplate(ObjectMapper objectMapper) {
+        if (template == null) {
+            slotTree = SlotTree.of(slots);
+            template = objectMapper.valueToTree(schema);
+        }
+    }
+
+    /**
+     * Returns the copy of the node at the end of the path from a root, copying it and each of its ancestors first if
+     * necessary.
+     */
+    private static JsonSchema copyAlong(JsonSchema root, List<Object> path, Map<JsonSchema, JsonSchema> copies) {
+        JsonSchema original = root;
+        JsonSchema copy = copies.get(root);
+        for (Object step : path) {
+            final JsonSchema originalChild = step == ITEMS
+                    ? original.asArraySchema().getItems().asSingleItems().getSchema()
+                    : step instanceof Integer
+                    ? original.asArraySchema().getItems().asArrayItems().getJsonSchemas()[(Integer) step]
+                    : step instanceof Definition
+                    ? ((DefiningObjectSchema) original).getDefinitions().get(((Definition) step).name)
+                    : original.asObjectSchema().getProperties().get(step);
+            JsonSchema childCopy = copies.get(originalChild);
+            if (childCopy == null) {
+                childCopy = JsonSchemaCopier.shallowCopy(originalChild);
+                copies.put(originalChild, childCopy);
+                if (step == ITEMS) {
+                    copy.asArraySchema().setItemsSchema(childCopy);
+                } else if (step instanceof Integer) {
+                    final JsonSchema[] tuple = copy.asArraySchema().getItems().asArrayItems().getJsonSchemas().clone();
+                    tuple[(Integer) step] = childCopy;
+                    copy.asArraySchema().setItems(new ArraySchema.ArrayItems(tuple));
+                } else if (step instanceof Definition) {
+                    ((DefiningObjectSchema) copy).getDefinitions().put(((Definition) step).name, childCopy);
+                } else {
+                    copy.asObjectSchema().getProperties().put((String) step, childCopy);
+                }
+            }
+            original = originalChild;
+            copy = childCopy;
+        }
+        return copy;
+    }
+
+    /**
+     * Collects the dynamic slots found while a schema is generated, against the schema nodes they apply to.
+     */
+    static class Recorder {
+        private final Map<JsonSchema, DynamicSlot> slots = new IdentityHashMap<>();
+        private final Map<String, byte[]> enumSchemas = new LinkedHashMap<>();
+        private String enumBasePath;
+
+        void titleKey(JsonSchema node, String key) {
+            slot(node).titleKey = key;
+        }
+
+        void descriptionKey(JsonSchema node, String key) {
+            slot(node).descriptionKey = key;
+        }
+
+        void enumRef(JsonSchema node, String expression) {
+            slot(node).enumRef = expression;
+        }
+
+        void enumSchemaRef(JsonSchema node, String reference) {
+            slot(node).enumSchemaRef = reference;
+        }
+
+        void readOnlyExpression(JsonSchema node, String expression) {
+            slot(node).readOnlyExpression = expression;
+        }
+
+        void definitionRef(JsonSchema node, String fragment) {
+            slot(node).definitionRef = fragment;
+        }
+
+        /**
+         * Moves the slot recorded for a node to the node which replaces it in the schema.
+         */
+        void replaced(JsonSchema node, JsonSchema replacement) {
+            Optional.ofNullable(slots.remove(node)).ifPresent(slot -> slots.put(replacement, slot));
+        }
+
+        void enumSchema(String basePath, String hash, byte[] serializedSchema) {
+            enumBasePath = basePath;
+            enumSchemas.put(hash, serializedSchema);
+        }
+
+        /**
+         * Forgets the slots recorded for a node and everything below it, for a subtree that has been replaced
+         * and so will never be reached when the skeleton is compiled.
+         */
+        void discard(JsonSchema node) {
+            if (node == null) {
+                return;
+            }
+            slots.remove(node);
+            if (node.isObjectSchema() && node.asObjectSchema().getProperties() != null) {
+                node.asObjectSchema().getProperties().values().forEach(this::discard);
+            } else if (node.isArraySchema() && node.asArraySchema().getItems() != null) {
+                final ArraySchema.Items items = node.asArraySchema().getItems();
+                if (items.isSingleItems()) {
+                    discard(items.asSingleItems().getSchema());
+                } else if (items.isArrayItems()) {
+                    Arrays.stream(items.asArrayItems().getJsonSchemas()).forEach(this::discard);
+                }
+            }
+        }
+
+        private DynamicSlot slot(JsonSchema node) {
+            return slots.computeIfAbsent(node, n -> new DynamicSlot());
+        }
+    }
+
+    /**
+     * Indexes the dynamic slots by their path, so that the streaming writer can tell which nodes need visiting.
+     */
+    private static final class SlotTree {
+        private final Map<Object, SlotTree> children = new HashMap<>();
+        private DynamicSlot slot;
+
+        static SlotTree of(List<DynamicSlot> slots) {
+            final SlotTree root = new SlotTree();
+            for (DynamicSlot slot : slots) {
+                SlotTree tree = root;
+                for (Object step : slot.path) {
+                    tree = tree.children.computeIfAbsent(step, s -> new SlotTree());
+                }
+                tree.slot = slot;
+            }
+            return root;
+        }
+    }
+
+    /**
+     * Writes the template for a single request, evaluating each dynamic slot as it is reached.
+     */
+    private static final class StreamingOverlay {
+        private final JsonGenerator generator;
+        private final AdditionalConstraintResolver constraintResolver;
+        private final CrossContextConversionService crossContextConversionService;
+        private final Map<String, String> messages;
+        private final String id;
+
+        StreamingOverlay(JsonGenerator generator,
+                         AdditionalConstraintResolver constraintResolver,
+                         CrossContextConversionService crossContextConversionService,
+                         Map<String, String> messages,
+                         String id) {
+            this.generator = generator;
+            this.constraintResolver = constraintResolver;
+            this.crossContextConversionService = crossContextConversionService;
+            this.messages = messages;
+            this.id = id;
+        }
+
+        void write(JsonNode node, SlotTree tree, Map<String, ?> extraFields) throws IOException {
+            if (tree == null) {
+                generator.writeTree(node);
+                return;
+            }
+
+            final Map<String, Object> overrides = new LinkedHashMap<>(extraFields);
+            if (tree.slot != null) {
+                evaluate(tree.slot, node, overrides);
+            }
+
+            generator.writeStartObject();
+            final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                final String name = field.getKey();
+                if (overrides.containsKey(name)) {
+                    continue;
+                }
+                generator.writeFieldName(name);
+                if (name.equals("properties") && field.getValue().isObject()) {
+                    writeProperties(field.getValue(), tree);
+                } else if (name.equals("definitions") && field.getValue().isObject()) {
+                    writeDefinitions(field.getValue(), tree);
+                } else if (name.equals("items") && field.getValue().isObject()) {
+                    write(field.getValue(), tree.children.get(ITEMS), Collections.emptyMap());
+                } else if (name.equals("items") && field.getValue().isArray()) {
+                    writeTuple(field.getValue(), tree);
+                } else {
+                    generator.writeTree(field.getValue());
+                }
+            }
+            for (Map.Entry<String, Object> override : overrides.entrySet()) {
+                generator.writeObjectField(override.getKey(), override.getValue());
+            }
+            generator.writeEndObject();
+        }
+
+        private void writeProperties(JsonNode properties, SlotTree tree) throws IOException {
+            generator.writeStartObject();
+            final Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> property = fields.next();
+                generator.writeFieldName(property.getKey());
+                write(property.getValue(), tree.children.get(property.getKey()), Collections.emptyMap());
+            }
+            generator.writeEndObject();
+        }
+
+        private void writeDefinitions(JsonNode definitions, SlotTree tree) throws IOException {
+            generator.writeStartObject();
+            final Iterator<Map.Entry<String, JsonNode>> fields = definitions.fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> definition = fields.next();
+                generator.writeFieldName(definition.getKey());
+                write(definition.getValue(), tree.children.get(new Definition(definition.getKey())), Collections.emptyMap());
+            }
+            generator.writeEndObject();
+        }
+
+        private void writeTuple(JsonNode items, SlotTree tree) throws IOException {
+            generator.writeStartArray();
+            for (int i = 0; i < items.size(); i++) {
+                write(items.get(i), tree.children.get(i), Collections.emptyMap());
+            }
+            generator.writeEndArray();
+        }
+
+        /**
+         * Evaluates a slot as {@link #overlay} and {@link #resolveReferences} would, collecting the fields it changes.
+         */
+        private void evaluate(DynamicSlot slot, JsonNode node, Map<String, Object> overrides) {
+            if (slot.titleKey != null) {
+                Optional.ofNullable(messages.get(slot.titleKey)).ifPresent(title -> overrides.put("title", title));
+            }
+            if (slot.descriptionKey != null) {
+                Optional.ofNullable(messages.get(slot.descriptionKey)).ifPresent(description -> overrides.put("description", description));
+            }
+            if (slot.enumSchemaRef != null) {
+                overrides.put("extends", new JsonSchema[]{
+                        new TypedReferenceSchema(EnumSchemaRegistry.absolute(URI.create(slot.enumSchemaRef)).toString(),
+                                JsonFormatTypes.forValue(node.path("type").asText()))
+                });
+            }
+            if (slot.enumRef != null) {
+                constraintResolver.evaluateEnumRef(slot.enumRef).map(crossContextConversionService::asUrl).ifPresent(ref ->
+                        overrides.put("extends", new JsonSchema[]{
+                                new TypedReferenceSchema(ref.toString(), JsonFormatTypes.forValue(node.path("type").asText()))
+                        }));
+            }
+            if (slot.readOnlyExpression != null) {
+                constraintResolver.evaluateReadOnlyExpression(slot.readOnlyExpression).ifPresent(readOnly -> overrides.put("readonly", readOnly));
+            }
+            if (slot.definitionRef != null && id != null) {
+                overrides.put("extends", new JsonSchema[]{
+                        new TypedReferenceSchema(id + slot.definitionRef, JsonFormatTypes.OBJECT)
+                });
+            }
+        }
+    }
+
+    private static class DynamicSlot {
+        private List<Object> path;
+        private String titleKey;
+        private String descriptionKey;
+        private String enumRef;
+        private String enumSchemaRef;
+        private String readOnlyExpression;
+        private String definitionRef;
+
+        /**
+         * @return whether the slot has anything to apply in {@link #overlay}, rather than only a reference to resolve
+         */
+        boolean isOverlaid() {
+            return titleKey != null || descriptionKey != null || enumRef != null || enumSchemaRef != null || readOnlyExpression != null;
+        }
+    }
+
+    /**
+     * A step in the path to a dynamic slot, into a definition of a repeated type.
+     */
+    private static final class Definition {
+        private final String name;
+
+        Definition(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Definition && name.equals(((Definition) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
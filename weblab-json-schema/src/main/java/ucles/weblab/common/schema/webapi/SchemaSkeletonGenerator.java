@@ -0,0 +1,147 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Generates schema skeletons for resource classes at build time, as classpath resources which
+ * {@link ResourceSchemaCreator} loads in preference to introspecting the classes at runtime.
+ * <p>
+ * Skeletons are generated by the same code that {@code ResourceSchemaCreator} would use at runtime, so they need the
+ * compiled resource classes, and should be generated in the {@code process-classes} phase e.g.
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *     &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;phase&gt;process-classes&lt;/phase&gt;
+ *             &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;mainClass&gt;ucles.weblab.common.schema.webapi.SchemaSkeletonGenerator&lt;/mainClass&gt;
+ *                 &lt;arguments&gt;
+ *                     &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *                     &lt;argument&gt;com.example.webapi&lt;/argument&gt;
+ *                 &lt;/arguments&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * The arguments are the output directory followed by any number of resource class names, or package names to scan
+ * for {@link RepresentationModel} subclasses. If the application's {@code ObjectMapper} is not the Jackson default,
+ * an option {@code --object-mapper=com.example.MapperSupplier} names a {@code Supplier<ObjectMapper>} class which
+ * creates one configured the same way, since the skeleton depends on how the mapper sees the resource. If the
+ * application uses an {@link EnumSchemaRegistry}, an option {@code --enum-base-path=/$enums/} gives its base path.
+ *
+ * @since 18/10/26
+ */
+public class SchemaSkeletonGenerator {
+    private static final Logger log = LoggerFactory.getLogger(SchemaSkeletonGenerator.class);
+    private static final String OBJECT_MAPPER_OPTION = "--object-mapper=";
+    private static final String ENUM_BASE_PATH_OPTION = "--enum-base-path=";
+
+    private final ObjectMapper objectMapper;
+    private final EnumSchemaCreator enumSchemaCreator = new EnumSchemaCreator();
+
+    public SchemaSkeletonGenerator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Generates skeletons which reference union enum schemas from a registry, rather than inlining them. The registry
+     * configured at runtime must have the same base path, or the skeletons will be ignored.
+     */
+    public void setEnumSchemaRegistry(EnumSchemaRegistry enumSchemaRegistry) {
+        enumSchemaCreator.setEnumSchemaRegistry(enumSchemaRegistry);
+    }
+
+    /**
+     * Writes the skeleton for a resource class beneath an output directory.
+     *
+     * @return the file written
+     */
+    public Path generate(Class<?> resourceClass, Path outputDirectory) throws IOException {
+        final SchemaSkeleton skeleton;
+        try {
+            // Nothing is evaluated or localised while generating a skeleton, so no services are needed.
+            skeleton = SchemaSkeleton.generate(resourceClass, objectMapper, enumSchemaCreator, null, null);
+        } catch (JsonMappingException e) {
+            throw new IOException("Unable to generate schema skeleton for " + resourceClass.getName(), e);
+        }
+        final Path file = outputDirectory.resolve(SchemaSkeleton.resourceName(resourceClass));
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            objectMapper.writeValue(out, skeleton.toTree(objectMapper));
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: SchemaSkeletonGenerator [--object-mapper=<supplier class>] [--enum-base-path=<path>] "
+                    + "<output directory> <class or package>...");
+        }
+        final ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        ObjectMapper objectMapper = new ObjectMapper();
+        EnumSchemaRegistry enumSchemaRegistry = null;
+        final List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(OBJECT_MAPPER_OPTION)) {
+                objectMapper = supplyObjectMapper(ClassUtils.forName(arg.substring(OBJECT_MAPPER_OPTION.length()), classLoader));
+            } else if (arg.startsWith(ENUM_BASE_PATH_OPTION)) {
+                enumSchemaRegistry = new EnumSchemaRegistry(arg.substring(ENUM_BASE_PATH_OPTION.length()));
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        final Path outputDirectory = Paths.get(arguments.get(0));
+        final SchemaSkeletonGenerator generator = new SchemaSkeletonGenerator(objectMapper);
+        generator.setEnumSchemaRegistry(enumSchemaRegistry);
+        for (Class<?> resourceClass : resolveClasses(arguments.subList(1, arguments.size()), classLoader)) {
+            final Path file = generator.generate(resourceClass, outputDirectory);
+            log.info("Generated schema skeleton for {} in {}", resourceClass.getName(), file);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectMapper supplyObjectMapper(Class<?> supplierClass) {
+        return ((Supplier<ObjectMapper>) BeanUtils.instantiateClass(supplierClass)).get();
+    }
+
+    private static Set<Class<?>> resolveClasses(List<String> names, ClassLoader classLoader) throws ClassNotFoundException {
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        final ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AssignableTypeFilter(RepresentationModel.class));
+        for (String name : names) {
+            if (ClassUtils.isPresent(name, classLoader)) {
+                classes.add(ClassUtils.forName(name, classLoader));
+            } else {
+                for (BeanDefinition candidate : scanner.findCandidateComponents(name)) {
+                    classes.add(ClassUtils.forName(candidate.getBeanClassName(), classLoader));
+                }
+            }
+        }
+        return classes;
+    }
+}
@@ -1,6 +1,5 @@
 package ucles.weblab.common.schema.webapi;
 
-import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -21,21 +20,32 @@ public abstract class SelfDescribingController<C extends SelfDescribingControlle
         extends SchemaProvidingController<C> {
 
     private final Class<R> resourceClass;
+    private final MethodLink describeLink;
+    private final MethodLink listLink;
+    private final MethodLink createLink;
 
     public SelfDescribingController() {
         this.resourceClass = (Class) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[1];
+        this.describeLink = MethodLink.to(getClass(), "describe", Belongs.class);
+        this.listLink = MethodLink.to(getClass(), "list", String.class);
+        this.createLink = MethodLink.to(getClass(), "create", String.class, RepresentationModel.class);
     }
 
     @Override
-    public ResponseEntity<JsonSchema> describe(@AuthenticationPrincipal Belongs principal) {
+    public Optional<Class<?>> getDescribedResourceClass() {
+        return Optional.of(resourceClass);
+    }
+
+    @Override
+    public ResponseEntity<?> describe(@AuthenticationPrincipal Belongs principal) {
         final Optional<String> ownerHandle = Optional.ofNullable(principal).map(Belongs::getOwnerHandle);
 
         // The ResourceSchemaCreator will only add these methods if you're permitted to access them, so we can pass them
-        JsonSchema schema = getSchemaCreator().create(resourceClass,
-                self().describe(principal),
-                ownerHandle.map(centreNumber -> self().list(centreNumber)),
-                ownerHandle.map(centreNumber -> self().create(centreNumber, null)));
-        return ResponseEntity.ok(schema);
+        SerializedSchema schema = getSchemaCreator().createSerialized(resourceClass,
+                describeLink.with(principal),
+                ownerHandle.<Object>map(centreNumber -> listLink.with(centreNumber)),
+                ownerHandle.<Object>map(centreNumber -> createLink.with(centreNumber, null)));
+        return negotiatedSchemaResponse(schema);
     }
 
     abstract public ResourceListWrapper<R> list(String owner);
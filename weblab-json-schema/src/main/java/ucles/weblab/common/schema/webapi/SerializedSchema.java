@@ -0,0 +1,218 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A schema in its canonical serialized form (UTF-8 JSON), together with a strong ETag derived from the content.
+ * <p>
+ * Returning {@link #toResponseEntity()} from a {@code GET} handler method lets Spring MVC answer a matching
+ * {@code If-None-Match} with a 304 without writing the body, and a cached instance can be returned without
+ * re-serializing the schema at all.
+ * <p>
+ * A gzip encoding of the schema is kept alongside it, compressed the first time a client which accepts gzip asks for
+ * it, so that a cached instance is served to such clients with no compression work per request. Containers do not
+ * compress responses which already have a {@code Content-Encoding}.
+ *
+ * @since 18/10/26
+ */
+public final class SerializedSchema {
+    private static final String GZIP = "gzip";
+    /**
+     * Below this size, gzip saves too little to be worth the {@code Content-Encoding} header.
+     */
+    private static final int MIN_GZIP_SIZE = 256;
+
+    private final byte[] bytes;
+    private final String eTag;
+    private final MediaType contentType;
+    private volatile byte[] gzippedBytes;
+
+    public SerializedSchema(byte[] bytes) {
+        this(bytes, SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8);
+    }
+
+    /**
+     * @param bytes the serialized schema
+     * @param contentType the content type to serve the schema as, e.g. {@link SchemaDialect#getMediaType()}
+     */
+    public SerializedSchema(byte[] bytes, MediaType contentType) {
+        this.bytes = bytes;
+        this.eTag = '"' + DigestUtils.md5DigestAsHex(bytes) + '"';
+        this.contentType = contentType;
+    }
+
+    /**
+     * Returns the serialized schema. The array is shared, and must not be modified.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the quoted strong entity tag for the serialized schema
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the schema gzipped, compressing it the first time. The array is shared, and must not be modified.
+     */
+    public byte[] getGzippedBytes() {
+        byte[] gzipped = gzippedBytes;
+        if (gzipped == null) {
+            gzipped = gzip(bytes);
+            gzippedBytes = gzipped;
+        }
+        return gzipped;
+    }
+
+    /**
+     * @return the quoted strong entity tag for the gzipped schema, which differs from that of the schema itself
+     */
+    public String getGzippedETag() {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    public ResponseEntity<byte[]> toResponseEntity() {
+        return toResponseEntity(headers -> { });
+    }
+
+    /**
+     * As per {@link #toResponseEntity()}, with additional headers e.g. {@code Vary}.
+     */
+    public ResponseEntity<byte[]> toResponseEntity(Consumer<HttpHeaders> headers) {
+        return toResponseEntity(null, headers);
+    }
+
+    /**
+     * As per {@link #toResponseEntity(Consumer)}, gzipped if the request's {@code Accept-Encoding} allows it and the
+     * schema is large enough to be worth compressing. The caller should add {@code Accept-Encoding} to {@code Vary}.
+     *
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request, or null
+     * @param headers additional headers
+     */
+    public ResponseEntity<byte[]> toResponseEntity(String acceptEncoding, Consumer<HttpHeaders> headers) {
+        final boolean gzip = bytes.length >= MIN_GZIP_SIZE && acceptsGzip(acceptEncoding);
+        return ResponseEntity.ok()
+                .eTag(gzip ? getGzippedETag() : eTag)
+                .contentType(contentType)
+                .headers(h -> {
+                    if (gzip) {
+                        h.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                    }
+                })
+                .headers(headers)
+                .body(gzip ? getGzippedBytes() : bytes);
+    }
+
+    /**
+     * Returns whether an {@code Accept-Encoding} header allows gzip, by name or else with {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = true;
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        acceptable = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        acceptable = false;
+                    }
+                }
+            }
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                gzip = acceptable;
+            } else if (name.equals("*")) {
+                any = acceptable;
+            }
+        }
+        return gzip != null ? gzip : any != null && any;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        // Each schema is compressed once and served many times, so spend the time on the best compression
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedSchema[" + bytes.length + " bytes, eTag=" + eTag + "]";
+    }
+
+    /**
+     * Identifies a serialized schema in a {@link SchemaCache}. As well as everything which the schema itself depends
+     * on, this includes the schema ID and the links added to it, which vary with the request URL and the current
+     * user's permissions.
+     */
+    public static final class Key {
+        private final SchemaCacheKey schemaKey;
+        private final String id;
+        private final List<String> links;
+
+        Key(SchemaCacheKey schemaKey, String id, List<String> links) {
+            this.schemaKey = schemaKey;
+            this.id = id;
+            this.links = links;
+        }
+
+        public SchemaCacheKey getSchemaKey() {
+            return schemaKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return schemaKey.equals(key.schemaKey) &&
+                    id.equals(key.id) &&
+                    links.equals(key.links);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(schemaKey, id, links);
+        }
+
+        @Override
+        public String toString() {
+            return "SerializedSchema.Key[" + schemaKey + ", id=" + id + ", links=" + links + "]";
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonFormatTypes;
 import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonObjectFormatVisitor;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.factories.ObjectVisitor;
@@ -16,6 +17,7 @@ import com.fasterxml.jackson.module.jsonSchema.factories.WrapperFactory;
 import com.fasterxml.jackson.module.jsonSchema.types.ArraySchema;
 import com.fasterxml.jackson.module.jsonSchema.types.NumberSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.ObjectSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.ReferenceSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.SimpleTypeSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.StringSchema;
 import com.fasterxml.jackson.module.jsonSchema.types.ValueTypeSchema;
@@ -23,6 +25,7 @@ import com.fasterxml.jackson.module.jsonSchema.validation.AnnotationConstraintRe
 import com.fasterxml.jackson.module.jsonSchema.validation.ValidationConstraintResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.hateoas.Link;
 import ucles.weblab.common.i18n.service.LocalisationService;
 import ucles.weblab.common.xc.service.CrossContextConversionService;
@@ -35,11 +38,14 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
@@ -56,6 +62,10 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
     private final EnumSchemaCreator enumSchemaCreator;
     private final ObjectMapper objectMapper;
     private final LocalisationService localisationService;
+    private final SchemaSkeleton.Recorder slotRecorder;
+    private final SchemaMetrics metrics;
+    private final RepeatedTypes repeatedTypes;
+    private final boolean root;
 
     private static class SuperSchemaFactoryWrapperFactory extends WrapperFactory {
         private final CrossContextConversionService crossContextConversionService;
@@ -63,30 +73,39 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
         private final ObjectMapper objectMapper;
         private final StandardEvaluationContext evaluationContext;
         private final LocalisationService localisationService;
+        private final SchemaSkeleton.Recorder slotRecorder;
+        private final AdditionalConstraintResolver additionalConstraintResolver;
+        private final SchemaMetrics metrics;
+        private final RepeatedTypes repeatedTypes;
 
         SuperSchemaFactoryWrapperFactory(CrossContextConversionService crossContextConversionService,
                                                  EnumSchemaCreator enumSchemaCreator,
                                                  ObjectMapper objectMapper,
                                                  StandardEvaluationContext evaluationContext,
-                                                 LocalisationService localisationService) {
+                                                 LocalisationService localisationService,
+                                                 SchemaSkeleton.Recorder slotRecorder,
+                                                 boolean referenceRepeatedTypes,
+                                                 CachingExpressionParser expressionParser) {
             this.crossContextConversionService = crossContextConversionService;
             this.enumSchemaCreator = enumSchemaCreator;
             this.objectMapper = objectMapper;
             this.evaluationContext = evaluationContext;
             this.localisationService = localisationService;
+            this.slotRecorder = slotRecorder;
+            this.metrics = Optional.ofNullable(enumSchemaCreator).map(EnumSchemaCreator::getMetrics).orElse(SchemaMetrics.NOOP);
+            this.additionalConstraintResolver = new AdditionalConstraintResolver(evaluationContext, expressionParser, metrics);
+            this.repeatedTypes = referenceRepeatedTypes ? new RepeatedTypes() : null;
         }
 
         @Override
         public SchemaFactoryWrapper getWrapper(SerializerProvider p) {
-            SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService);
+            SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(this, false);
             wrapper.setProvider(p);
             return wrapper;
         }
 
-        ;
-
         public SchemaFactoryWrapper getWrapper(SerializerProvider p, VisitorContext rvc) {
-            SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService);
+            SchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(this, false);
             wrapper.setProvider(p);
             wrapper.setVisitorContext(rvc);
             return wrapper;
@@ -114,6 +133,7 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
             super.optionalProperty(prop);
             if (!removeLinksAndActions(prop)) {
                 fixupDateTimeSchema(prop);
+                referenceRepeatedType(prop);
                 processValidationConstraints(prop);
             }
         }
@@ -121,6 +141,7 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
         public void property(BeanProperty prop) throws JsonMappingException {
             super.property(prop);
             fixupDateTimeSchema(prop);
+            referenceRepeatedType(prop);
             processValidationConstraints(prop);
         }
 
@@ -136,6 +157,40 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
             }
         }
 
+        /**
+         * Replaces the property's schema, or its items' schema, with a use of its type if it describes an object type
+         * which has already been described in full. The use is an empty schema which will extend a reference to the
+         * type's definition, so that the property's title, order and other constraints can still be added to it.
+         */
+        void referenceRepeatedType(BeanProperty prop) {
+            if (repeatedTypes == null) {
+                return;
+            }
+            final JsonSchema propertySchema = this.getPropertySchema(prop);
+            if (propertySchema.isArraySchema()) {
+                final ArraySchema.Items items = propertySchema.asArraySchema().getItems();
+                if (items != null && items.isSingleItems()) {
+                    final ObjectSchema use = repeatedTypes.useOf(items.asSingleItems().getSchema(), schemaProvider::objectSchema);
+                    if (use != null) {
+                        discardSlots(items.asSingleItems().getSchema());
+                        propertySchema.asArraySchema().setItemsSchema(use);
+                    }
+                }
+            } else {
+                final ObjectSchema use = repeatedTypes.useOf(propertySchema, schemaProvider::objectSchema);
+                if (use != null) {
+                    discardSlots(propertySchema);
+                    this.setPropertySchema(prop, use);
+                }
+            }
+        }
+
+        private void discardSlots(JsonSchema replaced) {
+            if (slotRecorder != null) {
+                slotRecorder.discard(replaced);
+            }
+        }
+
         void processValidationConstraints(BeanProperty prop) {
             JsonSchema existingSchema = this.getPropertySchema(prop);
             JsonSchema updatedSchema = addValidationConstraints(existingSchema, prop);
@@ -163,43 +218,114 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
                                      ObjectMapper objectMapper,
                                      StandardEvaluationContext evaluationContext,
                                      LocalisationService localisationService) {
-        super(new SuperSchemaFactoryWrapperFactory(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService));
-        this.crossContextConversionService = crossContextConversionService;
-        this.enumSchemaCreator = enumSchemaCreator;
-        this.objectMapper = objectMapper;
-        this.localisationService = localisationService;
-        this.additionalConstraintResolver = new AdditionalConstraintResolver(evaluationContext);
+        this(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService, null);
+    }
+
+    /**
+     * Creates a wrapper which, if a recorder is supplied, does not evaluate expressions or localise messages but
+     * records them as dynamic slots against the schema nodes they apply to, for a {@link SchemaSkeleton}.
+     */
+    SuperSchemaFactoryWrapper(CrossContextConversionService crossContextConversionService,
+                              EnumSchemaCreator enumSchemaCreator,
+                              ObjectMapper objectMapper,
+                              StandardEvaluationContext evaluationContext,
+                              LocalisationService localisationService,
+                              SchemaSkeleton.Recorder slotRecorder) {
+        this(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService, slotRecorder, false);
+    }
+
+    /**
+     * Creates a wrapper which, if {@code referenceRepeatedTypes} is set, describes each object type which is used more
+     * than once, including recursively, only once: in the {@code definitions} of the resource's
+     * {@link DefiningObjectSchema root schema}, without the title, order and other constraints of any one use. Every
+     * property or array item of that type extends a {@code $ref} to the definition, and keeps its own constraints, e.g.
+     * <pre>
+     *     "billing": { "type": "object", "title": "Billing address", "extends": [{ "type": "object", "$ref": "#/definitions/Address" }] },
+     *     "shipping": { "type": "object", "title": "Delivery address", "extends": [{ "type": "object", "$ref": "#/definitions/Address" }] }
+     * </pre>
+     * A use of the resource's own type refers to {@code #}. The references are resolved when the resource's
+     * {@link #finalSchema() final schema} is taken, as fragments which are recorded as dynamic slots with the recorder
+     * so that {@link SchemaSkeleton#resolveReferences} can make them absolute against the schema's id.
+     */
+    SuperSchemaFactoryWrapper(CrossContextConversionService crossContextConversionService,
+                              EnumSchemaCreator enumSchemaCreator,
+                              ObjectMapper objectMapper,
+                              StandardEvaluationContext evaluationContext,
+                              LocalisationService localisationService,
+                              SchemaSkeleton.Recorder slotRecorder,
+                              boolean referenceRepeatedTypes) {
+        this(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext, localisationService, slotRecorder,
+                referenceRepeatedTypes, AdditionalConstraintResolver.DEFAULT_EXPRESSION_PARSER);
+    }
+
+    /**
+     * Creates a wrapper as above which parses {@code readOnlyExpression} and {@code enumRef} expressions with the given
+     * parser, shared by the wrappers for every nested type.
+     */
+    SuperSchemaFactoryWrapper(CrossContextConversionService crossContextConversionService,
+                              EnumSchemaCreator enumSchemaCreator,
+                              ObjectMapper objectMapper,
+                              StandardEvaluationContext evaluationContext,
+                              LocalisationService localisationService,
+                              SchemaSkeleton.Recorder slotRecorder,
+                              boolean referenceRepeatedTypes,
+                              CachingExpressionParser expressionParser) {
+        this(new SuperSchemaFactoryWrapperFactory(crossContextConversionService, enumSchemaCreator, objectMapper, evaluationContext,
+                localisationService, slotRecorder, referenceRepeatedTypes, expressionParser), true);
+    }
+
+    /**
+     * Creates a wrapper for a nested type, sharing the factory and resolvers of the wrapper for the resource rather
+     * than creating them again for every type visited.
+     */
+    private SuperSchemaFactoryWrapper(SuperSchemaFactoryWrapperFactory wrapperFactory, boolean root) {
+        super(wrapperFactory);
+        this.crossContextConversionService = wrapperFactory.crossContextConversionService;
+        this.enumSchemaCreator = wrapperFactory.enumSchemaCreator;
+        this.objectMapper = wrapperFactory.objectMapper;
+        this.localisationService = wrapperFactory.localisationService;
+        this.slotRecorder = wrapperFactory.slotRecorder;
+        this.additionalConstraintResolver = wrapperFactory.additionalConstraintResolver;
+        this.metrics = wrapperFactory.metrics;
+        this.repeatedTypes = wrapperFactory.repeatedTypes;
+        this.root = root;
     }
 
     @Override
     public JsonObjectFormatVisitor expectObjectFormat(JavaType convertedType) {
-        return new ObjectVisitorDecorator((ObjectVisitor) super.expectObjectFormat(convertedType));
+        final ObjectVisitor objectVisitor = (ObjectVisitor) super.expectObjectFormat(convertedType);
+        if (repeatedTypes != null && schema.getId() != null) {
+            // The ID is the type's URN until the schema is used for a property, which is when repeats are recognised
+            repeatedTypes.visited(schema);
+        }
+        return new ObjectVisitorDecorator(objectVisitor);
     }
 
     JsonSchema addValidationConstraints(JsonSchema schema, BeanProperty prop) {
+        final PropertySchemaDescriptor descriptor = PropertySchemaDescriptor.of(prop, constraintResolver, additionalConstraintResolver);
         if(schema.isArraySchema()) {
             ArraySchema arraySchema = schema.asArraySchema();
-            arraySchema.setMaxItems(constraintResolver.getArrayMaxItems(prop));
-            arraySchema.setMinItems(constraintResolver.getArrayMinItems(prop));
+            arraySchema.setMaxItems(descriptor.getArrayMaxItems());
+            arraySchema.setMinItems(descriptor.getArrayMinItems());
             if (arraySchema.getItems().isSingleItems() && arraySchema.getItems().asSingleItems().getSchema().isValueTypeSchema()) {
                 ValueTypeSchema itemSchema = arraySchema.getItems().asSingleItems().getSchema().asValueTypeSchema();
 
-                additionalConstraintResolver.getValueFormat(prop).ifPresent(itemSchema::setFormat);
-                addEnumConstraints(itemSchema, prop);
+                descriptor.getValueFormat().ifPresent(itemSchema::setFormat);
+                addEnumConstraints(itemSchema, descriptor, enumType(prop));
             }
         } else if(schema.isNumberSchema()) {
             NumberSchema numberSchema = schema.asNumberSchema();
-            numberSchema.setMaximum(constraintResolver.getNumberMaximum(prop));
-            numberSchema.setMinimum(constraintResolver.getNumberMinimum(prop));
-            additionalConstraintResolver.getNumberExclusiveMaximum(prop).ifPresent(numberSchema::setExclusiveMaximum);
-            additionalConstraintResolver.getNumberExclusiveMinimum(prop).ifPresent(numberSchema::setExclusiveMinimum);
+            numberSchema.setMaximum(descriptor.getNumberMaximum());
+            numberSchema.setMinimum(descriptor.getNumberMinimum());
+            descriptor.getNumberExclusiveMaximum().ifPresent(numberSchema::setExclusiveMaximum);
+            descriptor.getNumberExclusiveMinimum().ifPresent(numberSchema::setExclusiveMinimum);
         } else if(schema.isStringSchema()) {
             StringSchema stringSchema = schema.asStringSchema();
-            stringSchema.setMaxLength(constraintResolver.getStringMaxLength(prop));
-            stringSchema.setMinLength(constraintResolver.getStringMinLength(prop));
-            stringSchema.setPattern(constraintResolver.getStringPattern(prop));
+            stringSchema.setMaxLength(descriptor.getStringMaxLength());
+            stringSchema.setMinLength(descriptor.getStringMinLength());
+            stringSchema.setPattern(descriptor.getStringPattern());
             if (stringSchema.getPattern() == null) {
-                additionalConstraintResolver.getPattern(prop).ifPresent(stringSchema::setPattern);
+                descriptor.getPattern().ifPresent(stringSchema::setPattern);
             }
             // See cambridgeweblab/jackson-module-jsonSchema 2.9.4-CA branch
 //            additionalConstraintResolver.getMediaType(prop).ifPresent(stringSchema::setMediaType);
@@ -207,42 +333,86 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
 
         if (schema.isValueTypeSchema()) {
             ValueTypeSchema valueTypeSchema = schema.asValueTypeSchema();
-            additionalConstraintResolver.getValueFormat(prop).ifPresent(valueTypeSchema::setFormat);
-            addEnumConstraints(valueTypeSchema, prop);
+            descriptor.getValueFormat().ifPresent(valueTypeSchema::setFormat);
+            addEnumConstraints(valueTypeSchema, descriptor, enumType(prop));
         }
 
         if (schema.isSimpleTypeSchema()) {
             SimpleTypeSchema simpleTypeSchema = schema.asSimpleTypeSchema();
-            final Optional<JsonSchemaMetadata> metadata = Optional.ofNullable(prop.getAnnotation(JsonSchemaMetadata.class));
 
-            metadata.map(JsonSchemaMetadata::title).filter(isNotEmpty()).ifPresent(simpleTypeSchema::setTitle);
-            metadata.map(JsonSchemaMetadata::titleKey).filter(isNotEmpty()).ifPresent(key -> localisationService.ifMessagePresent(key, simpleTypeSchema::setTitle));
-            metadata.map(JsonSchemaMetadata::description).filter(isNotEmpty()).ifPresent(schema::setDescription);
-            metadata.map(JsonSchemaMetadata::descriptionKey).filter(isNotEmpty()).ifPresent(key -> localisationService.ifMessagePresent(key, simpleTypeSchema::setDescription));
-            metadata.map(JsonSchemaMetadata::defaultValue).filter(isNotEmpty()).ifPresent(simpleTypeSchema::setDefault);
+            descriptor.getTitle().ifPresent(simpleTypeSchema::setTitle);
+            descriptor.getTitleKey().ifPresent(key -> {
+                if (slotRecorder == null) {
+                    localisationService.ifMessagePresent(key, simpleTypeSchema::setTitle);
+                } else {
+                    slotRecorder.titleKey(schema, key);
+                }
+            });
+            descriptor.getDescription().ifPresent(schema::setDescription);
+            descriptor.getDescriptionKey().ifPresent(key -> {
+                if (slotRecorder == null) {
+                    localisationService.ifMessagePresent(key, simpleTypeSchema::setDescription);
+                } else {
+                    slotRecorder.descriptionKey(schema, key);
+                }
+            });
+            descriptor.getDefaultValue().ifPresent(simpleTypeSchema::setDefault);
 
             // Put the order in the ID so we can post-process the object in {@link #finalSchema} and order the properties.
-            final Integer order = metadata.map(JsonSchemaMetadata::order).orElse(JsonSchemaMetadata.MAX_ORDER);
-            schema.setId(String.format("order:%03d_%s", order, prop.getName()));
+            schema.setId(descriptor.getOrderId());
         }
 
-        additionalConstraintResolver.getReadOnly(prop).ifPresent(schema::setReadonly);
-        additionalConstraintResolver.getReadOnlyExpression(prop).ifPresent(schema::setReadonly);
-        additionalConstraintResolver.getNotNull(prop).ifPresent(schema::setRequired);
+        descriptor.getReadOnly().ifPresent(schema::setReadonly);
+        if (slotRecorder == null) {
+            descriptor.getReadOnlyExpression().flatMap(additionalConstraintResolver::evaluateReadOnlyExpression).ifPresent(schema::setReadonly);
+        } else {
+            descriptor.getReadOnlyExpression().ifPresent(expression -> slotRecorder.readOnlyExpression(schema, expression));
+        }
+        descriptor.getNotNull().ifPresent(schema::setRequired);
 
         return schema;
     }
 
     void addEnumConstraints(ValueTypeSchema schema, BeanProperty prop) {
-        additionalConstraintResolver.getEnumConstants(prop).ifPresent(enumValues -> {
-            JsonSchema enumSchema = enumSchemaCreator.createEnum(enumValues, matchingSchemaType(schema));
+        addEnumConstraints(schema, PropertySchemaDescriptor.of(prop, constraintResolver, additionalConstraintResolver), enumType(prop));
+    }
+
+    /**
+     * Returns the type a property's enum constants describe: the Java enum, if the property or its elements are one,
+     * or else the bean declaring the constants on the property.
+     */
+    private static Class<?> enumType(BeanProperty prop) {
+        final JavaType type = prop.getType().isContainerType() ? prop.getType().getContentType() : prop.getType();
+        return type.isEnumType() || prop.getMember() == null ? type.getRawClass() : prop.getMember().getDeclaringClass();
+    }
+
+    private void addEnumConstraints(ValueTypeSchema schema, PropertySchemaDescriptor descriptor, Class<?> enumType) {
+        descriptor.getEnumConstants().ifPresent(enumValues -> {
+            JsonSchema enumSchema = enumSchemaCreator.createEnum(enumType, enumValues, matchingSchemaType(schema));
             // TODO: Re-inline union schemas when defect fixed - https://github.com/FasterXML/jackson-module-jsonSchema/issues/90
             if (enumSchema.isUnionTypeSchema()) {
-                // Switch to a ref schema instead and return the schema as a data URI.
+                // Switch to a ref schema instead, referencing the enum registry if there is one, or a data URI.
                 try {
-                    final URI enumRef = URI.create("data:" + SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8_VALUE + ";base64,"
-                            + Base64.getUrlEncoder().encodeToString(objectMapper.writeValueAsBytes(enumSchema)));
-                    log.debug("Converting inline union enum schema to data URI: {}", enumRef);
+                    final byte[] serializedEnumSchema = objectMapper.writeValueAsBytes(enumSchema);
+                    final EnumSchemaRegistry enumSchemaRegistry = enumSchemaCreator.getEnumSchemaRegistry();
+                    final URI enumRef;
+                    if (enumSchemaRegistry != null) {
+                        final String hash = enumSchemaRegistry.register(serializedEnumSchema);
+                        if (slotRecorder != null) {
+                            slotRecorder.enumSchema(enumSchemaRegistry.getBasePath(), hash, serializedEnumSchema);
+                            // Made absolute against each request's host when the skeleton is overlaid
+                            slotRecorder.enumSchemaRef(schema, enumSchemaRegistry.referenceTo(hash).toString());
+                            enumRef = enumSchemaRegistry.referenceTo(hash);
+                        } else {
+                            enumRef = EnumSchemaRegistry.absolute(enumSchemaRegistry.referenceTo(hash));
+                        }
+                        log.debug("Referencing union enum schema from registry: {}", enumRef);
+                    } else {
+                        enumRef = URI.create("data:" + SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8_VALUE + ";base64,"
+                                + Base64.getUrlEncoder().encodeToString(serializedEnumSchema));
+                        log.debug("Converting inline union enum schema to data URI: {}", enumRef);
+                        metrics.enumDataUriEncoded();
+                    }
 
                     schema.setExtends(new JsonSchema[] {
                             new TypedReferenceSchema(enumRef.toString(), schema.getType())
@@ -254,10 +424,14 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
                 schema.setExtends(new JsonSchema[]{ enumSchema });
             }
         });
-        additionalConstraintResolver.getEnumRef(prop).map(crossContextConversionService::asUrl).ifPresent(ref ->
-                schema.setExtends(new JsonSchema[]{
-                        new TypedReferenceSchema(ref.toString(), schema.getType())
-                }));
+        if (slotRecorder == null) {
+            descriptor.getEnumRef().flatMap(additionalConstraintResolver::evaluateEnumRef).map(crossContextConversionService::asUrl).ifPresent(ref ->
+                    schema.setExtends(new JsonSchema[]{
+                            new TypedReferenceSchema(ref.toString(), schema.getType())
+                    }));
+        } else {
+            descriptor.getEnumRef().ifPresent(expression -> slotRecorder.enumRef(schema, expression));
+        }
     }
 
     public static String encodeURIComponent(String s) throws UnsupportedEncodingException {
@@ -275,20 +449,25 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
     }
 
     private Supplier<ValueTypeSchema> matchingSchemaType(JsonSchema schema) {
-        return () -> {
-            try {
-                return (ValueTypeSchema) schema.getClass().newInstance();
-            } catch (InstantiationException | IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-        };
+        switch (schema.getType()) {
+            case STRING:
+                return schemaProvider::stringSchema;
+            case INTEGER:
+                return schemaProvider::integerSchema;
+            case NUMBER:
+                return schemaProvider::numberSchema;
+            case BOOLEAN:
+                return schemaProvider::booleanSchema;
+            default:
+                throw new IllegalArgumentException("Enum constraints are not supported on " + schema.getType() + " schemas");
+        }
     }
 
     @Override
     public JsonSchema finalSchema() {
         final JsonSchema jsonSchema = super.finalSchema();
 
-        if (jsonSchema.isObjectSchema()) {
+        if (jsonSchema.isObjectSchema() && !isOrdered(jsonSchema.asObjectSchema().getProperties())) {
             // Reorder the properties according to the ID
             final Map<String, JsonSchema> unorderedProperties = jsonSchema.asObjectSchema().getProperties();
             final LinkedHashMap<String, JsonSchema> orderedProperties = unorderedProperties.entrySet().stream()
@@ -299,11 +478,151 @@ public class SuperSchemaFactoryWrapper extends SchemaFactoryWrapper {
             jsonSchema.asObjectSchema().setProperties(orderedProperties);
         }
 
+        if (root && repeatedTypes != null) {
+            schema = repeatedTypes.resolve(jsonSchema, slotRecorder);
+            return schema;
+        }
         return jsonSchema;
     }
 
-    private Predicate<String> isNotEmpty() {
-        return ((Predicate<String>) String::isEmpty).negate();
+    /**
+     * Checks whether properties are already in ID order, as they usually are when the resource declares them in order.
+     */
+    private static boolean isOrdered(Map<String, JsonSchema> properties) {
+        String previousId = null;
+        for (JsonSchema property : properties.values()) {
+            if (previousId != null && previousId.compareTo(property.getId()) > 0) {
+                return false;
+            }
+            previousId = property.getId();
+        }
+        return true;
     }
 
+    /**
+     * Tracks the object types visited while a resource is described, so that each type used more than once is
+     * described in full only once, and all its uses refer to that definition.
+     */
+    private static final class RepeatedTypes {
+        private static final String DEFINITIONS_POINTER = "#/definitions/";
+
+        private final Map<String, JsonSchema> firstSchemas = new HashMap<>();
+        private final Map<JsonSchema, String> visitedSchemas = new IdentityHashMap<>();
+        private final Map<ObjectSchema, String> uses = new IdentityHashMap<>();
+
+        void visited(JsonSchema objectSchema) {
+            firstSchemas.putIfAbsent(objectSchema.getId(), objectSchema);
+            visitedSchemas.put(objectSchema, objectSchema.getId());
+        }
+
+        /**
+         * Returns a use of a type to replace a schema with, if it describes a type which has been described before:
+         * either Jackson's own reference to a type it has already visited, or a second full description of a type.
+         *
+         * @param objectSchemas creates the schema for the use
+         * @return the use, to be pointed at the type's definition once the whole resource has been described, or null
+         * if the schema should be kept
+         */
+        ObjectSchema useOf(JsonSchema schema, Supplier<ObjectSchema> objectSchemas) {
+            final String urn = schema instanceof ReferenceSchema ? schema.get$ref() : visitedSchemas.get(schema);
+            if (urn == null || !firstSchemas.containsKey(urn) || firstSchemas.get(urn) == schema) { // NOPMD - identity is the point
+                return null;
+            }
+            final ObjectSchema use = objectSchemas.get();
+            uses.put(use, urn);
+            return use;
+        }
+
+        /**
+         * Moves the first schema of each type which is used again into the root's definitions, leaving a use in its
+         * place, and points every use at its type's definition, or at the root for the resource's own type.
+         *
+         * @param rootSchema the resource's schema
+         * @param slotRecorder the recorder to record each use's reference with, so that it can be made absolute
+         * @return the resource's schema, as a {@link DefiningObjectSchema} if there are any definitions
+         */
+        JsonSchema resolve(JsonSchema rootSchema, SchemaSkeleton.Recorder slotRecorder) {
+            final Map<String, String> fragments = new HashMap<>();
+            final Map<String, JsonSchema> definitions = new LinkedHashMap<>();
+            for (String urn : new ArrayList<>(uses.values())) {
+                if (fragments.containsKey(urn)) {
+                    continue;
+                }
+                final JsonSchema first = firstSchemas.get(urn);
+                if (first == rootSchema) { // NOPMD - identity is the point
+                    fragments.put(urn, "#");
+                } else {
+                    final String name = definitionName(urn, definitions.keySet());
+                    fragments.put(urn, DEFINITIONS_POINTER + pointerSegment(name));
+                    definitions.put(name, define(first.asObjectSchema()));
+                    uses.put(first.asObjectSchema(), urn);
+                }
+            }
+            uses.forEach((use, urn) -> {
+                final String fragment = fragments.get(urn);
+                use.setExtends(new JsonSchema[] { new TypedReferenceSchema(fragment, JsonFormatTypes.OBJECT) });
+                if (slotRecorder != null) {
+                    slotRecorder.definitionRef(use, fragment);
+                }
+            });
+            uses.clear();
+
+            if (definitions.isEmpty() || !rootSchema.isObjectSchema()) {
+                return rootSchema;
+            }
+            final DefiningObjectSchema definingSchema = new DefiningObjectSchema();
+            BeanUtils.copyProperties(rootSchema, definingSchema);
+            definingSchema.setDefinitions(definitions);
+            if (slotRecorder != null) {
+                slotRecorder.replaced(rootSchema, definingSchema);
+            }
+            return definingSchema;
+        }
+
+        /**
+         * Turns the first schema of a type into a use of the type, keeping the constraints of that use, and returns a
+         * copy of it without them as the type's definition. The first schema is changed in place, since any dynamic
+         * slots for its title, description or read only expression are recorded against it.
+         */
+        private static ObjectSchema define(ObjectSchema first) {
+            final ObjectSchema definition = JsonSchemaCopier.shallowCopy(first);
+            final ObjectSchema use = new ObjectSchema();
+            use.setId(first.getId());
+            use.setTitle(first.getTitle());
+            use.setDescription(first.getDescription());
+            use.setDefault(first.getDefault());
+            use.setRequired(first.getRequired());
+            use.setReadonly(first.getReadonly());
+            BeanUtils.copyProperties(use, first);
+
+            definition.setId(null);
+            definition.setTitle(null);
+            definition.setDescription(null);
+            definition.setDefault(null);
+            definition.setRequired(null);
+            definition.setReadonly(null);
+            return definition;
+        }
+
+        /**
+         * Names a definition after the simple name of its type, e.g. {@code Address} for
+         * {@code urn:jsonschema:com:example:Customer$Address}, numbered if another type has the same name.
+         */
+        private static String definitionName(String urn, Set<String> names) {
+            final String base = urn.substring(Math.max(urn.lastIndexOf(':'), urn.lastIndexOf('$')) + 1);
+            String name = base;
+            for (int i = 2; names.contains(name); i++) {
+                name = base + i;
+            }
+            return name;
+        }
+
+        private static String pointerSegment(String name) {
+            try {
+                return encodeURIComponent(name.replace("~", "~0").replace("/", "~1"));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package ucles.weblab.common.i18n.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Locale.FRANCE;
+import static java.util.Locale.UK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @since 18/10/26
+ */
+public class LocalisationServiceImplTest {
+    private final CountingMessageSource messageSource = new CountingMessageSource();
+    private final LocalisationServiceImpl localisationService = new LocalisationServiceImpl(messageSource);
+    private Locale savedLocale;
+
+    static class CountingMessageSource extends StaticMessageSource {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        protected String resolveCodeWithoutArguments(String code, Locale locale) {
+            lookups.incrementAndGet();
+            return super.resolveCodeWithoutArguments(code, locale);
+        }
+    }
+
+    @Before
+    public void init() {
+        messageSource.addMessage("street", FRANCE, "Rue");
+        messageSource.addMessage("street", UK, "Street");
+        // save and later reset the locale so we don't leave it around for other tests using this thread
+        savedLocale = LocaleContextHolder.getLocale();
+        LocaleContextHolder.setLocale(FRANCE);
+    }
+
+    @After
+    public void reset() {
+        LocaleContextHolder.setLocale(savedLocale);
+    }
+
+    @Test
+    public void messagesShouldBeResolvedOncePerLocale() {
+        assertEquals("Expect French message", "Rue", lookup("street"));
+        assertEquals("Expect cached French message", "Rue", lookup("street"));
+        final int lookups = messageSource.lookups.get();
+        LocaleContextHolder.setLocale(UK);
+        assertEquals("Expect English message", "Street", lookup("street"));
+
+        assertEquals("Expect the second French lookup to be cached", 1, lookups);
+        assertEquals("Expect a new lookup for a new locale", 2, messageSource.lookups.get());
+    }
+
+    @Test
+    public void missingMessagesShouldBeRememberedWithoutThrowing() {
+        assertNull("Expect no message", lookup("missing"));
+        final int lookups = messageSource.lookups.get();
+        assertNull("Expect still no message", lookup("missing"));
+
+        assertEquals("Expect the missing message not to be looked up again", lookups, messageSource.lookups.get());
+    }
+
+    @Test
+    public void bulkResolutionShouldReturnOnlyMessagesFound() {
+        final Map<String, String> messages = localisationService.resolveMessages(Arrays.asList("street", "missing"));
+
+        assertEquals("Expect only the message found", Collections.singletonMap("street", "Rue"), messages);
+        final int lookups = messageSource.lookups.get();
+        assertNull("Expect the missing message to be cached", lookup("missing"));
+        assertEquals("Expect no further lookups", lookups, messageSource.lookups.get());
+    }
+
+    @Test
+    public void reloadShouldPickUpChangedMessages() {
+        assertNull("Expect no message", lookup("avenue"));
+        messageSource.addMessage("avenue", FRANCE, "Avenue");
+        assertNull("Expect the missing message to be cached", lookup("avenue"));
+
+        localisationService.reload();
+        assertEquals("Expect the new message after reload", "Avenue", lookup("avenue"));
+    }
+
+    private String lookup(String key) {
+        final AtomicReference<String> result = new AtomicReference<>();
+        localisationService.ifMessagePresent(key, result::set);
+        return result.get();
+    }
+}
@@ -0,0 +1,141 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ucles.weblab.common.identity.domain.Belongs;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @since 18/10/26
+ */
+public class BatchSchemaControllerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CrossContextConversionService crossContextConversionService = mock(CrossContextConversionService.class);
+    private final EnumSchemaRegistry enumSchemaRegistry = new EnumSchemaRegistry();
+    private String enumUrl;
+    private BatchSchemaController controller;
+
+    @RequestMapping("/people")
+    public static class PersonController extends SchemaProvidingController<PersonController> {
+        static String enumRef;
+
+        @Override
+        public ResponseEntity<?> describe(Belongs principal) {
+            String schema = "{\"type\":\"object\",\"properties\":{\"title\":{\"type\":\"string\",\"extends\":[{\"$ref\":\"" + enumRef + "\"}]}}}";
+            return new SerializedSchema(schema.getBytes(StandardCharsets.UTF_8)).toResponseEntity();
+        }
+    }
+
+    @RequestMapping("/secrets")
+    public static class SecretController extends SchemaProvidingController<SecretController> {
+        @Override
+        public ResponseEntity<?> describe(Belongs principal) {
+            throw new AccessDeniedException("Access is denied");
+        }
+    }
+
+    @Before
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        enumUrl = enumSchemaRegistry.referenceTo(enumSchemaRegistry.register("{\"enum\":[\"Mr\",\"Ms\"]}".getBytes(StandardCharsets.UTF_8))).toString();
+        PersonController.enumRef = enumUrl;
+        controller = new BatchSchemaController(objectMapper, crossContextConversionService,
+                Arrays.asList(new PersonController(), new SecretController()), enumSchemaRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void requestedSchemasShouldBeServedWithReferencedEnums() throws Exception {
+        JsonNode response = describeAll("http://localhost/people/$schema/", "http://localhost/nobody/$schema/");
+
+        assertEquals("Expect the requested schema", "object", response.path("schemas").path("http://localhost/people/$schema/").path("type").asText());
+        assertEquals("Expect the referenced enum schema", "Mr", response.path("schemas").path(enumUrl).path("enum").path(0).asText());
+        assertEquals("Expect an error for the unknown schema", 404, response.path("errors").path("http://localhost/nobody/$schema/").asInt());
+    }
+
+    @Test
+    public void urnsShouldBeConvertedToUrls() throws Exception {
+        when(crossContextConversionService.asUrl(URI.create("urn:xc:people"))).thenReturn(URI.create("http://localhost/people/$schema/"));
+        controller.setExecutor(Runnable::run);
+
+        JsonNode response = describeAll("urn:xc:people");
+
+        assertTrue("Expect the schema under its URN", response.path("schemas").has("urn:xc:people"));
+        assertFalse("Expect no errors", response.path("errors").fields().hasNext());
+    }
+
+    @Test
+    public void deniedSchemasShouldNeedAuthenticationWhenAnonymous() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        JsonNode response = describeAll("http://localhost/secrets/$schema/");
+
+        assertEquals("Expect the schema to need authentication", 401, response.path("errors").path("http://localhost/secrets/$schema/").asInt());
+    }
+
+    @Test
+    public void deniedSchemasShouldBeForbiddenWhenSignedIn() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("wendy", "password", "ROLE_USER"));
+
+        JsonNode response = describeAll("http://localhost/secrets/$schema/");
+
+        assertEquals("Expect the schema to be forbidden", 403, response.path("errors").path("http://localhost/secrets/$schema/").asInt());
+    }
+
+    @Test
+    public void unknownEnumSchemasShouldNotBeFound() throws Exception {
+        JsonNode response = describeAll("http://localhost/$enums/0123456789abcdef");
+
+        assertEquals("Expect the unknown enum schema to be 404", 404, response.path("errors").path("http://localhost/$enums/0123456789abcdef").asInt());
+    }
+
+    @Test
+    public void tooManySchemasShouldBeRefused() {
+        controller.setMaxSchemas(1);
+
+        ResponseEntity<byte[]> response = controller.describeAll(Arrays.asList("/a", "/b"), null, null);
+
+        assertEquals("Expect refusal", HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    private JsonNode describeAll(String... urls) throws Exception {
+        ResponseEntity<byte[]> response = controller.describeAll(Arrays.asList(urls), null, null);
+        assertEquals("Expect success", HttpStatus.OK, response.getStatusCode());
+        assertNull("Expect no compression as the client did not ask", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        return objectMapper.readTree(response.getBody());
+    }
+}
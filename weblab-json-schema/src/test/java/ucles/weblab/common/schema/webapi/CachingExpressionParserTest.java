@@ -0,0 +1,48 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 18/10/26
+ */
+public class CachingExpressionParserTest {
+
+    @Test
+    public void sameExpressionStringShouldBeParsedOnce() {
+        CachingExpressionParser parser = new CachingExpressionParser();
+        Expression first = parser.parseTemplate("#{#currentUser == 'hook'}");
+        Expression second = parser.parseTemplate("#{#currentUser == 'hook'}");
+
+        assertSame("Expect the cached expression to be reused", first, second);
+        assertEquals("Expect one cached expression", 1, parser.size());
+    }
+
+    @Test
+    public void compiledExpressionsShouldEvaluateAsInterpreted() {
+        CachingExpressionParser parser = new CachingExpressionParser(SpelCompilerMode.MIXED);
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("currentUser", "hook");
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue("Expect the same result on every evaluation",
+                    parser.parseTemplate("#{#currentUser == 'hook'}").getValue(evaluationContext, Boolean.class));
+        }
+    }
+
+    @Test
+    public void plainExpressionsShouldBeParsedOnce() {
+        CachingExpressionParser parser = new CachingExpressionParser();
+        Expression first = parser.parseExpression("hasRole('ADMIN')");
+
+        assertSame("Expect the cached expression to be reused", first, parser.parseExpression("hasRole('ADMIN')"));
+        assertSame("Expect the same cache for a non-template context", first, parser.parseExpression("hasRole('ADMIN')", null));
+        assertEquals("Expect one cached expression", 1, parser.size());
+    }
+}
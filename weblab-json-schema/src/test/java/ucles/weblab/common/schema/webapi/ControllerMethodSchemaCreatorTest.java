@@ -23,6 +23,9 @@ import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasItem;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -83,6 +86,16 @@ public class ControllerMethodSchemaCreatorTest {
         assertEquals("Expect required", true, objectSchema.getProperties().get("type").getRequired());
     }
 
+    @Test
+    public void testSchemaGeneratedOncePerMethod() {
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema first = schemaCreator.createForRequestParams(methodOn(CarController.class).configureKitCar(null, null));
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema second = schemaCreator.createForRequestParams(methodOn(CarController.class).configureKitCar("leather", null));
+        assertNotSame("Expect each call to have its own root", first, second);
+        assertSame("Expect invariant property schemas to be shared", first.asObjectSchema().getProperties().get("wheels"),
+                second.asObjectSchema().getProperties().get("wheels"));
+        assertNotNull("Expect ID to be set", second.getId());
+    }
+
     @SuppressWarnings("WeakerAccess")
     @RequestMapping("/cars")
     public static class CarController {
@@ -0,0 +1,95 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @since 18/10/26
+ */
+public class Draft202012SchemaConverterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Draft202012SchemaConverter converter = new Draft202012SchemaConverter();
+
+    @Test
+    public void draft03KeywordsShouldBeTranslated() throws IOException {
+        JsonNode converted = converter.convert(json("{'$schema':'http://json-schema.org/draft-03/schema#','id':'http://example.com/$schema',"
+                + "'type':'object','properties':{"
+                + "'name':{'type':'string','required':true,'readonly':true},"
+                + "'size':{'type':'number','minimum':0,'exclusiveMinimum':true,'divisibleBy':0.5},"
+                + "'fruit':{'type':'string','extends':{'$ref':'http://example.com/fruit','type':'string'}},"
+                + "'colour':{'type':[{'type':'string','enum':['r'],'title':'Red'},{'type':'string','enum':['g'],'title':'Green'}]}}}"));
+
+        assertThat(converted.path("$schema").asText()).describedAs("$schema should be 2020-12").isEqualTo(SchemaDialect.DRAFT_2020_12.getUri());
+        assertThat(converted.path("$id").asText()).describedAs("id should become $id").isEqualTo("http://example.com/$schema");
+        assertThat(converted.has("id")).describedAs("root id should be removed").isFalse();
+        assertThat(converted.path("required")).describedAs("required should move to the parent").isEqualTo(json("['name']"));
+        JsonNode properties = converted.path("properties");
+        assertThat(properties.path("name").has("required")).describedAs("required should be removed from the property").isFalse();
+        assertThat(properties.path("name").path("readOnly").asBoolean()).describedAs("readonly should become readOnly").isTrue();
+        assertThat(properties.path("size")).describedAs("exclusive minimum and divisibleBy should be translated")
+                .isEqualTo(json("{'type':'number','exclusiveMinimum':0,'multipleOf':0.5}"));
+        assertThat(properties.path("fruit").path("allOf")).describedAs("extends should become allOf")
+                .isEqualTo(json("[{'$ref':'http://example.com/fruit','type':'string'}]"));
+        assertThat(properties.path("colour").path("anyOf").size()).describedAs("union type should become anyOf").isEqualTo(2);
+        assertThat(properties.path("colour").has("type")).describedAs("union type should be removed").isFalse();
+    }
+
+    @Test
+    public void repeatedObjectTypesShouldBeHoistedIntoDefs() throws IOException {
+        String address = "'type':'object','properties':{'line1':{'type':'string','required':true},'town':{'type':'string'}}";
+        JsonNode converted = converter.convert(json("{'type':'object','properties':{"
+                + "'billing':{'id':'order:001_billing','title':'Address'," + address + "},"
+                + "'shipping':{'id':'order:002_shipping','title':'Delivery address'," + address + "},"
+                + "'contacts':{'type':'array','items':{'type':'object','properties':{'home':{'title':'Address'," + address + "}}}},"
+                + "'other':{'type':'object','properties':{'line1':{'type':'string'}}}}}"));
+
+        assertThat(converted.path("$defs").size()).describedAs("only the repeated type should be hoisted").isEqualTo(1);
+        assertThat(converted.path("$defs").path("Address")).describedAs("definition should be named after the first title")
+                .isEqualTo(json("{'type':'object','properties':{'line1':{'type':'string'},'town':{'type':'string'}},'required':['line1']}"));
+        JsonNode properties = converted.path("properties");
+        assertThat(properties.path("billing")).describedAs("each use should reference the definition, keeping its own annotations")
+                .isEqualTo(json("{'$ref':'#/$defs/Address','id':'order:001_billing','title':'Address'}"));
+        assertThat(properties.path("shipping").path("title").asText()).describedAs("title should be kept at each use")
+                .isEqualTo("Delivery address");
+        assertThat(properties.path("contacts").path("items").path("properties").path("home").path("$ref").asText())
+                .describedAs("nested uses should be referenced too").isEqualTo("#/$defs/Address");
+        assertThat(properties.path("other").has("$ref")).describedAs("types used once should stay inline").isFalse();
+    }
+
+    @Test
+    public void definitionsShouldBecomeDefsAndKeepTheirReferences() throws IOException {
+        String address = "'type':'object','properties':{'line1':{'type':'string'}}";
+        JsonNode converted = converter.convert(json("{'id':'http://example.com/$schema','type':'object','definitions':{'Address':{" + address + "}},"
+                + "'properties':{'billing':{'type':'object','extends':[{'type':'object','$ref':'http://example.com/$schema#/definitions/Address'}]},"
+                + "'one':{'title':'Address','type':'object','properties':{'x':{'type':'string'}}},"
+                + "'two':{'title':'Address','type':'object','properties':{'x':{'type':'string'}}}}}"));
+
+        assertThat(converted.has("definitions")).describedAs("definitions should be removed").isFalse();
+        assertThat(converted.path("$defs").path("Address")).describedAs("definitions should become $defs")
+                .isEqualTo(json("{" + address + "}"));
+        assertThat(converted.at("/properties/billing/allOf/0/$ref").asText()).describedAs("references should follow the definition")
+                .isEqualTo("http://example.com/$schema#/$defs/Address");
+        assertThat(converted.path("$defs").path("Address2").path("properties").has("x"))
+                .describedAs("hoisted types should not replace existing definitions").isTrue();
+    }
+
+    @Test
+    public void inputShouldNotBeModified() throws IOException {
+        JsonNode draft03 = json("{'type':'object','properties':{'a':{'type':'object','properties':{'x':{'type':'string'}}},"
+                + "'b':{'type':'object','properties':{'x':{'type':'string'}}}}}");
+        JsonNode copy = draft03.deepCopy();
+
+        converter.convert(draft03);
+
+        assertThat(draft03).describedAs("draft-03 schema should be unchanged").isEqualTo(copy);
+    }
+
+    private JsonNode json(String singleQuoted) throws IOException {
+        return objectMapper.readTree(singleQuoted.replace('\'', '"'));
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -160,4 +161,83 @@ public class EnumSchemaCreatorTest {
         String json = objectMapper.writeValueAsString(schema);
         assertThat("Expect extends with array type", json, Matchers.containsString("\"extends\":[{\"type\":[{"));
     }
+
+    @Test
+    public void whenPagedEnumSchemaCreated_thenItLinksToValuesInsteadOfListingThem() {
+        JsonSchema result = enumSchemaCreator.createPagedEnum("http://example.com/values", schemaFactory::stringSchema);
+        assertTrue("Expect no enum values", result.asValueTypeSchema().getEnums().isEmpty());
+        assertEquals("Expect search link", "search", result.asSimpleTypeSchema().getLinks()[0].getRel());
+        assertEquals("Expect values href", "http://example.com/values", result.asSimpleTypeSchema().getLinks()[0].getHref());
+        assertThat("Expect link parameters", result.asSimpleTypeSchema().getLinks()[0].getSchema().asObjectSchema().getProperties().keySet(),
+                Matchers.contains("q", "cursor", "limit"));
+    }
+
+    @Test
+    public void whenEnumPaged_thenCursorContinuesFromPreviousPage() {
+        EnumPage first = enumSchemaCreator.page(IntStream.range(0, 25).boxed(), String::valueOf, Optional.empty(), Optional.empty(), null, null, 10);
+        EnumPage second = enumSchemaCreator.page(IntStream.range(0, 25).boxed(), String::valueOf, Optional.empty(), Optional.empty(), null, first.getNext(), 10);
+        EnumPage third = enumSchemaCreator.page(IntStream.range(0, 25).boxed(), String::valueOf, Optional.empty(), Optional.empty(), null, second.getNext(), 10);
+
+        assertEquals("Expect full first page", 10, first.getItems().size());
+        assertEquals("Expect second page to continue", "10", second.getItems().get(0).getValue());
+        assertEquals("Expect partial last page", 5, third.getItems().size());
+        assertNull("Expect no cursor after last page", third.getNext());
+    }
+
+    @Test
+    public void whenEnumPagedWithQuery_thenOnlyTitlesWithPrefixReturned() {
+        Optional<Function<String, String>> nameFn = Optional.of(s -> s.substring(0, 1).toUpperCase() + s.substring(1));
+        EnumPage page = enumSchemaCreator.page(Stream.of("apple", "banana", "apricot", "cherry"), Function.identity(), nameFn, Optional.empty(), "ap", null, null);
+
+        assertEquals("Expect values matching prefix, ignoring case",
+                Arrays.asList("apple", "apricot"), page.getItems().stream().map(EnumOption::getValue).collect(Collectors.toList()));
+        assertEquals("Expect title", "Apple", page.getItems().get(0).getTitle());
+        assertNull("Expect no cursor", page.getNext());
+    }
+
+    @Test
+    public void whenEnumPagedWithFinder_thenQueryIsPushedDownWithLastValueCursor() {
+        List<EnumOption> options = IntStream.range(0, 25).mapToObj(i -> new EnumOption(String.format("v%02d", i), "Value " + i))
+                .collect(Collectors.toList());
+        List<String> afters = new ArrayList<>();
+        EnumSchemaCreator.OptionFinder finder = (prefix, after, limit) -> {
+            assertEquals("Expect lower case prefix", "value", prefix);
+            assertEquals("Expect one more than the page to be asked for", 11, limit);
+            afters.add(after);
+            return options.stream().filter(o -> after == null || o.getValue().compareTo(after) > 0).limit(limit).collect(Collectors.toList());
+        };
+
+        EnumPage first = enumSchemaCreator.page(finder, "Value", null, 10);
+        EnumPage second = enumSchemaCreator.page(finder, "Value", first.getNext(), 10);
+        EnumPage third = enumSchemaCreator.page(finder, "Value", second.getNext(), 10);
+
+        assertEquals("Expect cursor to carry the last value of each page", Arrays.asList(null, "v09", "v19"), afters);
+        assertEquals("Expect full first page", 10, first.getItems().size());
+        assertEquals("Expect second page to continue", "v10", second.getItems().get(0).getValue());
+        assertEquals("Expect partial last page", 5, third.getItems().size());
+        assertNull("Expect no cursor after last page", third.getNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenEnumPagedWithInvalidCursor_thenRejected() {
+        enumSchemaCreator.page(Stream.of("a"), Function.identity(), Optional.empty(), Optional.empty(), null, "not a cursor!", null);
+    }
+
+    @Test
+    public void whenEnumCreatedFromOptionsWithoutTitles_thenSimpleValueSchemaReturned() {
+        JsonSchema result = enumSchemaCreator.createEnum(Stream.of(new EnumOption("a", null), new EnumOption("b", null)), schemaFactory::stringSchema);
+        assertTrue("Expect a value type schema", result.isValueTypeSchema());
+        assertThat("Expect values in order", result.asValueTypeSchema().getEnums(), Matchers.contains("a", "b"));
+    }
+
+    @Test
+    public void whenEnumCreatedFromOptionsWithTitles_thenUnionSchemaReturned() {
+        JsonSchema result = enumSchemaCreator.createEnum(
+                Stream.of(new EnumOption("a", "Apple"), new EnumOption("b", null, "Banana, probably")), schemaFactory::stringSchema);
+        assertTrue("Expect a union type schema", result.isUnionTypeSchema());
+        ValueTypeSchema[] elements = result.asUnionTypeSchema().getElements();
+        assertEquals("Expect title", "Apple", elements[0].getTitle());
+        assertEquals("Expect description", "Banana, probably", elements[1].getDescription());
+        assertEquals("Expect value", Collections.singleton("b"), elements[1].getEnums());
+    }
 }
@@ -0,0 +1,58 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @since 18/10/26
+ */
+public class EnumSchemaRegistryTest {
+    private static final byte[] ENUM_SCHEMA = "{\"type\":[{\"enum\":[\"A\"],\"title\":\"Ay\"}]}".getBytes(StandardCharsets.UTF_8);
+
+    private final EnumSchemaRegistry registry = new EnumSchemaRegistry();
+
+    @Test
+    public void identicalSchemasShouldBeRegisteredOnce() {
+        String first = registry.register(ENUM_SCHEMA);
+        String second = registry.register(ENUM_SCHEMA.clone());
+
+        assertThat(second).describedAs("same content should give the same hash").isEqualTo(first);
+        assertThat(registry.size()).describedAs("schema should be held once").isEqualTo(1);
+        assertThat(registry.referenceTo(first)).describedAs("reference should be under the base path")
+                .isEqualTo(URI.create("/$enums/" + first));
+    }
+
+    @Test
+    public void controllerShouldServeRegisteredSchemaAsImmutable() {
+        String hash = registry.register(ENUM_SCHEMA);
+        ResponseEntity<byte[]> response = new EnumSchemaController(registry).enumSchema(hash, null);
+
+        assertThat(response.getStatusCode()).describedAs("registered schema should be found").isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).describedAs("body should be the registered bytes").isEqualTo(ENUM_SCHEMA);
+        assertThat(response.getHeaders().getETag()).describedAs("ETag should be set").isNotNull();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL)).describedAs("should be cacheable forever")
+                .contains("max-age=31536000").contains("immutable");
+    }
+
+    @Test
+    public void controllerShouldReturnNotFoundForUnknownHash() {
+        ResponseEntity<byte[]> response = new EnumSchemaController(registry).enumSchema("0123456789abcdef", null);
+
+        assertThat(response.getStatusCode()).describedAs("unknown hash should be 404").isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void controllerShouldSetRegistryBasePathFromItsMapping() {
+        new EnumSchemaController(registry, "/schemas/enums", "/app");
+
+        assertThat(registry.referenceTo("abc")).describedAs("reference should be under the controller's mapping")
+                .isEqualTo(URI.create("/app/schemas/enums/abc"));
+    }
+}
@@ -0,0 +1,45 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @since 18/10/26
+ */
+public class EnumWatermarkTest {
+    private static final Optional<Function<String, String>> UPPER_CASE_NAME = Optional.of(String::toUpperCase);
+
+    @Test
+    public void lastModifiedWatermarkShouldGiveLastModified() {
+        final Instant lastModified = Instant.parse("2026-10-18T09:00:00Z");
+        final EnumWatermark watermark = EnumWatermark.ofLastModified(lastModified);
+
+        assertEquals("Expect last modified time", Optional.of(lastModified), watermark.getLastModified());
+        assertEquals("Expect equal for the same time", watermark, EnumWatermark.ofLastModified(lastModified));
+        assertNotEquals("Expect a later time to move the watermark", watermark, EnumWatermark.ofLastModified(lastModified.plusMillis(1)));
+    }
+
+    @Test
+    public void contentWatermarkShouldMoveOnlyWhenValuesOrNamesChange() {
+        final EnumWatermark watermark = EnumWatermark.ofValues(Stream.of("a", "b"), Function.identity(), UPPER_CASE_NAME);
+
+        assertFalse("Expect no last modified time", watermark.getLastModified().isPresent());
+        assertEquals("Expect the same values to give the same watermark",
+                watermark, EnumWatermark.ofValues(Stream.of("a", "b"), Function.identity(), UPPER_CASE_NAME));
+        assertNotEquals("Expect a new value to move the watermark",
+                watermark, EnumWatermark.ofValues(Stream.of("a", "b", "c"), Function.identity(), UPPER_CASE_NAME));
+        assertNotEquals("Expect a new name to move the watermark",
+                watermark, EnumWatermark.ofValues(Stream.of("a", "b"), Function.identity(), Optional.empty()));
+        assertNotEquals("Expect values not to run together",
+                EnumWatermark.ofValues(Stream.of("ab", "c"), Function.identity(), Optional.empty()),
+                EnumWatermark.ofValues(Stream.of("a", "bc"), Function.identity(), Optional.empty()));
+    }
+}
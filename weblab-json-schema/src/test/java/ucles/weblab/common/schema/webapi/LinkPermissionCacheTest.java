@@ -0,0 +1,121 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.server.core.MethodInvocation;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 18/10/26
+ */
+public class LinkPermissionCacheTest {
+    private final LinkPermissionCache cache = new LinkPermissionCache();
+    private final AtomicInteger checks = new AtomicInteger();
+    private final Predicate<MethodInvocation> checker = invocation -> {
+        checks.incrementAndGet();
+        return true;
+    };
+
+    @SuppressWarnings("unused")
+    static class PersonController {
+        @PreAuthorize("isAuthenticated() and hasAnyRole('ADMIN', 'CLERK')")
+        public void list(String owner) {
+        }
+
+        @PreAuthorize("#owner == principal")
+        public void create(String owner) {
+        }
+
+        @PreAuthorize("@permissions.canDelete(authentication)")
+        public void delete(String owner) {
+        }
+
+        public void describe() {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("hook", "", "ROLE_ADMIN"));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void authorityOnlyChecksShouldBeCachedPerAuthoritySet() throws Exception {
+        assertTrue("Expect permitted", cache.check(invocation("list", "a"), checker));
+        assertTrue("Expect permitted from cache", cache.check(invocation("list", "b"), checker));
+        assertEquals("Expect one check for the same authorities, whatever the arguments", 1, checks.get());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("wendy", "", "ROLE_CLERK"));
+        cache.check(invocation("list", "a"), checker);
+        assertEquals("Expect another check for different authorities", 2, checks.get());
+    }
+
+    @Test
+    public void argumentOrPrincipalDependentChecksShouldNotBeCached() throws Exception {
+        cache.check(invocation("create", "a"), checker);
+        cache.check(invocation("create", "a"), checker);
+        cache.check(invocation("delete", "a"), checker);
+        cache.check(invocation("delete", "a"), checker);
+
+        assertEquals("Expect every check to be made", 4, checks.get());
+    }
+
+    @Test
+    public void cacheabilityShouldFollowTheExpression() throws Exception {
+        assertTrue("Expect unannotated methods to be cacheable", cache.isCacheable(method("describe"), PersonController.class));
+        assertTrue("Expect role checks to be cacheable", cache.isCacheable(method("list"), PersonController.class));
+        assertFalse("Expect argument checks not to be cacheable", cache.isCacheable(method("create"), PersonController.class));
+        assertFalse("Expect bean checks not to be cacheable", cache.isCacheable(method("delete"), PersonController.class));
+    }
+
+    @Test
+    public void expiredDecisionsShouldBeCheckedAgain() throws Exception {
+        cache.setTimeToLive(Duration.ZERO);
+        cache.check(invocation("list", "a"), checker);
+        Thread.sleep(1);
+        cache.check(invocation("list", "a"), checker);
+
+        assertEquals("Expect the expired decision to be checked again", 2, checks.get());
+    }
+
+    private static Method method(String name) throws NoSuchMethodException {
+        return name.equals("describe") ? PersonController.class.getMethod(name) : PersonController.class.getMethod(name, String.class);
+    }
+
+    private static MethodInvocation invocation(String name, Object... arguments) throws NoSuchMethodException {
+        Method method = method(name);
+        return new MethodInvocation() {
+            @Override
+            public Class<?> getTargetType() {
+                return PersonController.class;
+            }
+
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Object[] getArguments() {
+                return arguments;
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ucles.weblab.common.identity.domain.Belongs;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * @since 18/10/26
+ */
+public class MethodLinkTest {
+
+    static class PersonResource extends RepresentationModel<PersonResource> {
+    }
+
+    @RequestMapping("/people")
+    public static class PersonController {
+        @GetJsonSchema("/$schema/")
+        public ResponseEntity<?> describe(@AuthenticationPrincipal Belongs principal) {
+            return null;
+        }
+
+        @GetMapping("/{owner}/")
+        public ResponseEntity<?> list(@PathVariable("owner") String owner, @RequestParam(required = false) List<String> status) {
+            return null;
+        }
+
+        @PostMapping("/{owner}/")
+        public ResponseEntity<?> create(@PathVariable String owner, @RequestBody PersonResource data) {
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContextPath("/app");
+        request.setRequestURI("/app/people/");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void compiledLinksShouldMatchLinkTo() {
+        MethodLink describe = MethodLink.to(PersonController.class, "describe", Belongs.class);
+        MethodLink list = MethodLink.to(PersonController.class, "list", String.class, List.class);
+        MethodLink create = MethodLink.to(PersonController.class, "create", String.class, PersonResource.class);
+
+        assertTrue("Expect every link to be compiled", describe.isCompiled() && list.isCompiled() && create.isCompiled());
+        assertEquals("Expect the same schema id", linkTo(methodOn(PersonController.class).describe(null)).toUri(),
+                describe.with((Object) null).toUri());
+        assertEquals("Expect the same path variable expansion", linkTo(methodOn(PersonController.class).list("a b", null)).toUri(),
+                list.with("a b", null).toUri());
+        assertEquals("Expect the same request parameters", linkTo(methodOn(PersonController.class).list("x", Arrays.asList("OPEN", "CLOSED"))).toUri(),
+                list.with("x", Arrays.asList("OPEN", "CLOSED")).toUri());
+        assertEquals("Expect the request body to be ignored", linkTo(methodOn(PersonController.class).create("x", null)).toUri(),
+                create.with("x", null).toUri());
+    }
+
+    @Test
+    public void invocationsShouldDescribeTheMethod() {
+        MethodLink list = MethodLink.to(PersonController.class, "list", String.class, List.class);
+        MethodLink.Invocation invocation = list.with("x", null);
+
+        assertSame("Expect the controller method", list.getMethod(), invocation.getMethod());
+        assertEquals("Expect the controller type", PersonController.class, invocation.getTargetType());
+        assertEquals("Expect the arguments", "x", invocation.getArguments()[0]);
+    }
+}
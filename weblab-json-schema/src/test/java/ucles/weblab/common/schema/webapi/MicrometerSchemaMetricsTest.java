@@ -0,0 +1,72 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.module.jsonSchema.types.StringSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @since 18/10/26
+ */
+public class MicrometerSchemaMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SchemaMetrics metrics = MicrometerSchemaMetrics.forRegistry(registry);
+
+    @Test
+    public void generationShouldBeTimedByKindAndType() {
+        String schema = metrics.timeGeneration(SchemaMetrics.Kind.RESOURCE, String.class, () -> "schema");
+        metrics.recordGeneration(SchemaMetrics.Kind.ENUM, null, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(schema).describedAs("generated value should be returned").isEqualTo("schema");
+        assertThat(registry.get("weblab.schema.generation").tag("kind", "resource").tag("type", "java.lang.String").timer().count())
+                .describedAs("resource generation should be timed against its type").isEqualTo(1);
+        assertThat(registry.get("weblab.schema.generation").tag("kind", "enum").tag("type", "none").timer().totalTime(TimeUnit.MILLISECONDS))
+                .describedAs("enum generation should be timed without a type").isEqualTo(5.0);
+    }
+
+    @Test
+    public void cacheShouldBeReportedAsGauges() {
+        SchemaCache<String, String> cache = new SchemaCache<>();
+        metrics.monitorCache("resource", cache);
+        cache.get("a", k -> "A");
+        cache.get("a", k -> "A");
+
+        assertThat(registry.get("weblab.schema.cache.size").tag("cache", "resource").gauge().value())
+                .describedAs("size should be reported").isEqualTo(1.0);
+        assertThat(registry.get("weblab.schema.cache.hit.ratio").tag("cache", "resource").gauge().value())
+                .describedAs("hit ratio should be reported").isEqualTo(0.5);
+    }
+
+    @Test
+    public void remonitoredCacheShouldReplaceThePreviousOne() {
+        SchemaCache<String, String> oldCache = new SchemaCache<>();
+        oldCache.get("a", k -> "A");
+        metrics.monitorCache("resource", oldCache);
+        SchemaCache<String, String> newCache = new SchemaCache<>();
+        metrics.monitorCache("resource", newCache);
+
+        assertThat(registry.get("weblab.schema.cache.size").tag("cache", "resource").gauges())
+                .describedAs("there should still be one gauge per cache name").hasSize(1);
+        assertThat(registry.get("weblab.schema.cache.size").tag("cache", "resource").gauge().value())
+                .describedAs("size should be of the new cache").isEqualTo(0.0);
+    }
+
+    @Test
+    public void enumGenerationShouldBeTimedAgainstItsType() {
+        EnumSchemaCreator enumSchemaCreator = new EnumSchemaCreator();
+        enumSchemaCreator.setMetrics(metrics);
+        enumSchemaCreator.createEnum(Thread.State.class, Collections.singletonMap("NEW", "New"), StringSchema::new);
+
+        assertThat(registry.get("weblab.schema.generation").tag("kind", "enum").tag("type", Thread.State.class.getName()).timer().count())
+                .describedAs("enum generation should be timed against the enum type").isEqualTo(1);
+    }
+
+    @Test
+    public void absentRegistryShouldGiveNoopMetrics() {
+        assertThat(MicrometerSchemaMetrics.forRegistry(null)).describedAs("no registry should cost nothing").isSameAs(SchemaMetrics.NOOP);
+    }
+}
@@ -0,0 +1,75 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonValueFormat;
+import com.fasterxml.jackson.module.jsonSchema.validation.AnnotationConstraintResolver;
+import org.junit.Test;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Field;
+import javax.validation.constraints.NotNull;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @since 18/10/26
+ */
+public class PropertySchemaDescriptorTest {
+    private final AnnotationConstraintResolver constraintResolver = new AnnotationConstraintResolver();
+    private final AdditionalConstraintResolver additionalConstraintResolver = new AdditionalConstraintResolver(new StandardEvaluationContext());
+
+    @SuppressWarnings("unused")
+    static class DummyBean {
+        @NotNull
+        @JsonSchemaMetadata(title = "Start", titleKey = "start", order = 3)
+        @JsonSchema(format = "date-time", readOnlyExpression = "#{#currentUser == null}", enumValues = {
+                @EnumConstant(value = "now", title = "Now")
+        })
+        private String start;
+    }
+
+    @Test
+    public void annotationsShouldBeDecodedIntoFlatValues() throws Exception {
+        PropertySchemaDescriptor descriptor = PropertySchemaDescriptor.of(mockProperty("start", null),
+                constraintResolver, additionalConstraintResolver);
+
+        assertThat(descriptor.getTitle()).describedAs("title").contains("Start");
+        assertThat(descriptor.getTitleKey()).describedAs("title key").contains("start");
+        assertThat(descriptor.getDescription()).describedAs("empty description is absent").isEmpty();
+        assertThat(descriptor.getOrder()).describedAs("order").isEqualTo(3);
+        assertThat(descriptor.getOrderId()).describedAs("order ID should sort by order then name").isEqualTo("order:003_start");
+        assertThat(descriptor.getValueFormat()).describedAs("format").contains(JsonValueFormat.DATE_TIME);
+        assertThat(descriptor.getReadOnlyExpression()).describedAs("unevaluated expression").contains("#{#currentUser == null}");
+        assertThat(descriptor.getEnumConstants().get()).describedAs("enum constants").containsEntry("now", "Now");
+        assertThat(descriptor.getNotNull()).describedAs("not null").contains(true);
+    }
+
+    @Test
+    public void descriptorShouldBeDecodedOncePerDeclaringClassAndProperty() throws Exception {
+        AnnotatedMember member = mock(AnnotatedMember.class);
+        when(member.getDeclaringClass()).thenAnswer(invocation -> DummyBean.class);
+        BeanProperty prop = mockProperty("start", member);
+
+        PropertySchemaDescriptor first = PropertySchemaDescriptor.of(prop, constraintResolver, additionalConstraintResolver);
+        PropertySchemaDescriptor second = PropertySchemaDescriptor.of(prop, constraintResolver, additionalConstraintResolver);
+
+        assertThat(second).describedAs("descriptor should be reused").isSameAs(first);
+        verify(prop, times(1)).getAnnotation(JsonSchemaMetadata.class);
+    }
+
+    private BeanProperty mockProperty(String name, AnnotatedMember member) throws NoSuchFieldException {
+        Field field = DummyBean.class.getDeclaredField(name);
+        BeanProperty prop = mock(BeanProperty.class);
+        when(prop.getName()).thenReturn(name);
+        when(prop.getMember()).thenReturn(member);
+        when(prop.getAnnotation(JsonSchema.class)).thenReturn(field.getAnnotation(JsonSchema.class));
+        when(prop.getAnnotation(JsonSchemaMetadata.class)).thenReturn(field.getAnnotation(JsonSchemaMetadata.class));
+        when(prop.getAnnotation(NotNull.class)).thenReturn(field.getAnnotation(NotNull.class));
+        return prop;
+    }
+}
@@ -0,0 +1,156 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.jsonSchema.factories.JsonSchemaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ucles.weblab.common.i18n.service.impl.LocalisationServiceImpl;
+import ucles.weblab.common.security.SecurityChecker;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @since 18/10/26
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ResourceSchemaCreatorTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private SecurityChecker securityChecker;
+    @Mock
+    private CrossContextConversionService crossContextConversionService;
+    @Mock
+    private EnumSchemaCreator enumSchemaCreator;
+    private ResourceSchemaCreator resourceSchemaCreator;
+    private SchemaCache<SchemaCacheKey, com.fasterxml.jackson.module.jsonSchema.JsonSchema> schemaCache;
+    private MethodLink describeLink;
+
+    @SuppressWarnings("unused")
+    static class Note extends RepresentationModel<Note> {
+        @JsonSchema(readOnlyExpression = "#{#currentUser == null or #currentInstance.owner != #currentUser}")
+        private String text;
+        private String owner;
+
+        Note(String owner) {
+            this.owner = owner;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Memo extends RepresentationModel<Memo> {
+        @JsonSchema(readOnlyExpression = "#{#currentUser != 'hook'}")
+        private String text;
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    @RequestMapping("/notes")
+    static class NoteController {
+        @GetJsonSchema("/$schema")
+        public ResponseEntity<?> describe() {
+            return null;
+        }
+    }
+
+    @Before
+    public void init() {
+        resourceSchemaCreator = new ResourceSchemaCreator(securityChecker, objectMapper, crossContextConversionService, enumSchemaCreator,
+                new JsonSchemaFactory(), new LocalisationServiceImpl(new StaticMessageSource()));
+        schemaCache = new SchemaCache<>();
+        resourceSchemaCreator.setSchemaCache(schemaCache);
+        describeLink = MethodLink.to(NoteController.class, "describe");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @After
+    public void reset() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void instanceDependentSchemaShouldNotBeSharedWhenFirstEvaluationSkipsTheInstance() {
+        final Note note = new Note("hook");
+
+        // Anonymously, the expression short-circuits before #currentInstance is read
+        assertThat(textReadOnly(note)).describedAs("anonymous users should not edit notes").isTrue();
+        signIn("hook");
+        assertThat(textReadOnly(note)).describedAs("the owner should edit their own note").isFalse();
+        signIn("wendy");
+        assertThat(textReadOnly(note)).describedAs("other users should not edit the note").isTrue();
+        assertThat(schemaCache.size()).describedAs("instance-dependent schemas should not be cached").isZero();
+    }
+
+    @Test
+    public void userDependentSchemaShouldBeCachedPerUser() {
+        signIn("wendy");
+        assertThat(memoReadOnly()).describedAs("memos should be read only for wendy").isTrue();
+        signIn("hook");
+        assertThat(memoReadOnly()).describedAs("memos should be editable for hook").isFalse();
+        signIn("wendy");
+        assertThat(memoReadOnly()).describedAs("wendy's cached schema should be reused").isTrue();
+        assertThat(schemaCache.size()).describedAs("one schema should be cached per user").isEqualTo(2);
+    }
+
+    @Test
+    public void schemasShouldBeCachedPerHost() {
+        for (String host : new String[] { "one.example.com", "two.example.com", "one.example.com" }) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setServerName(host);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            memoReadOnly();
+        }
+        assertThat(schemaCache.size()).describedAs("schemas with links for one host should not be served to another").isEqualTo(2);
+    }
+
+    @Test
+    public void prewarmingShouldNotNeedARequest() {
+        RequestContextHolder.resetRequestAttributes();
+
+        resourceSchemaCreator.prewarm(Note.class, Locale.UK);
+
+        assertThat(schemaCache.size()).describedAs("request-dependent schemas should not be cached by warm-up").isZero();
+    }
+
+    private void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, "password", "ROLE_USER"));
+    }
+
+    private Boolean textReadOnly(Note note) {
+        return resourceSchemaCreator.create(note, describeLink.with(), Optional.empty(), Optional.empty())
+                .asObjectSchema().getProperties().get("text").getReadonly();
+    }
+
+    private Boolean memoReadOnly() {
+        return resourceSchemaCreator.create(Memo.class, describeLink.with(), Optional.empty(), Optional.empty())
+                .asObjectSchema().getProperties().get("text").getReadonly();
+    }
+}
@@ -0,0 +1,58 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 18/10/26
+ */
+public class SchemaCacheTest {
+    private final SchemaCache<String, String> cache = new SchemaCache<>(2);
+
+    @Test
+    public void whenKeyRequestedTwice_thenLoadedOnceAndHitRecorded() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("apple", k -> k + loads.incrementAndGet());
+        String result = cache.get("apple", k -> k + loads.incrementAndGet());
+
+        assertEquals("Expect the first loaded value", "apple1", result);
+        assertEquals("Expect one load", 1, loads.get());
+        assertEquals("Expect one hit", 1, cache.getStats().getHitCount());
+        assertEquals("Expect one miss", 1, cache.getStats().getMissCount());
+        assertEquals("Expect hit ratio of a half", 0.5, cache.getStats().getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void whenMaximumSizeExceeded_thenLeastRecentlyUsedEvicted() {
+        cache.put("apple", "red");
+        cache.put("banana", "yellow");
+        cache.getIfPresent("apple");
+        cache.put("cherry", "red");
+
+        assertTrue("Expect recently used entry retained", cache.getIfPresent("apple").isPresent());
+        assertFalse("Expect least recently used entry evicted", cache.getIfPresent("banana").isPresent());
+        assertEquals("Expect one eviction", 1, cache.getStats().getEvictionCount());
+        assertEquals("Expect size capped", 2, cache.size());
+    }
+
+    @Test
+    public void whenInvalidatedByPredicate_thenOnlyMatchingEntriesRemoved() {
+        cache.put("apple", "red");
+        cache.put("banana", "yellow");
+        cache.invalidateIf(k -> k.startsWith("a"));
+
+        assertFalse("Expect matching entry removed", cache.getIfPresent("apple").isPresent());
+        assertTrue("Expect other entry retained", cache.getIfPresent("banana").isPresent());
+    }
+
+    @Test
+    public void whenLoaderReturnsNull_thenNothingCached() {
+        cache.get("durian", k -> null);
+        assertEquals("Expect nothing cached", 0, cache.size());
+    }
+}
@@ -0,0 +1,174 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import ucles.weblab.common.identity.domain.Belongs;
+import ucles.weblab.common.xc.service.CrossContextMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+/**
+ * @since 18/10/26
+ */
+public class SchemaCatalogControllerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RequestMappingHandlerMapping handlerMapping = mock(RequestMappingHandlerMapping.class);
+    private final SchemaEndpoints endpoints = new SchemaEndpoints();
+    private SchemaCatalogController controller;
+
+    public interface PersonSchema {
+        ResponseEntity<byte[]> describe(Belongs principal);
+    }
+
+    public static class SchemaEndpoints implements PersonSchema {
+        String personSchema = "{\"type\":\"object\"}";
+
+        @Override
+        public ResponseEntity<byte[]> describe(@AuthenticationPrincipal Belongs principal) {
+            String schema = personSchema.replace("#currentUser", SecurityContextHolder.getContext().getAuthentication() == null ? ""
+                    : SecurityContextHolder.getContext().getAuthentication().getName());
+            return new SerializedSchema(schema.getBytes(StandardCharsets.UTF_8)).toResponseEntity();
+        }
+
+        @CrossContextMapping("urn:xc:people:titles")
+        public Map<String, Object> titles() {
+            return Collections.singletonMap("enum", new String[] { "Mr", "Ms" });
+        }
+
+        public ResponseEntity<byte[]> describeOne(@PathVariable String id) {
+            throw new AssertionError("Should not be called, as it has a path variable");
+        }
+
+        public ResponseEntity<byte[]> create() {
+            throw new AssertionError("Should not be called, as it is not a GET");
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+        handlerMethods.put(schemaMapping("/people/$schema/").build(), handlerMethod("describe", Belongs.class));
+        handlerMethods.put(schemaMapping("/people/$titles").build(), handlerMethod("titles"));
+        handlerMethods.put(schemaMapping("/people/{id}/$schema/").build(), handlerMethod("describeOne", String.class));
+        handlerMethods.put(schemaMapping("/people/$create").methods(POST).build(), handlerMethod("create"));
+        when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+
+        controller = new SchemaCatalogController(objectMapper, handlerMapping);
+        controller.setExecutor(Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void listableSchemaEndpointsShouldBeCatalogued() throws Exception {
+        JsonNode schemas = catalog().path("schemas");
+
+        assertEquals("Expect the parameterless GET endpoints only", 2, schemas.size());
+        assertEquals("Expect URLs in path order", "http://localhost/people/$schema/", schemas.path(0).path("url").asText());
+        assertEquals("Expect the hash to be the schema's ETag", new SerializedSchema(endpoints.personSchema.getBytes(StandardCharsets.UTF_8)).getETag(),
+                '"' + schemas.path(0).path("hash").asText() + '"');
+        assertFalse("Expect no URN without a cross-context mapping", schemas.path(0).has("urn"));
+        assertEquals("Expect the URN of the enum endpoint", "urn:xc:people:titles", schemas.path(1).path("urn").asText());
+        assertEquals("Expect a hash for a schema object", 32, schemas.path(1).path("hash").asText().length());
+    }
+
+    @Test
+    public void hashesShouldBeRecomputedOnInvalidation() throws Exception {
+        String before = catalog().path("schemas").path(0).path("hash").asText();
+        endpoints.personSchema = "{\"type\":\"string\"}";
+        assertEquals("Expect the cached hash to be served", before, catalog().path("schemas").path(0).path("hash").asText());
+
+        controller.invalidate();
+
+        assertNotEquals("Expect a new hash after invalidation", before, catalog().path("schemas").path(0).path("hash").asText());
+    }
+
+    @Test
+    public void schemasDeniedByUrlSecurityShouldNotBeCatalogued() throws Exception {
+        WebInvocationPrivilegeEvaluator privilegeEvaluator = mock(WebInvocationPrivilegeEvaluator.class);
+        when(privilegeEvaluator.isAllowed(anyString(), anyString(), anyString(), any()))
+                .thenAnswer(invocation -> !"/people/$titles".equals(invocation.getArguments()[1]));
+        controller.setPrivilegeEvaluator(privilegeEvaluator);
+
+        JsonNode schemas = catalog().path("schemas");
+
+        assertEquals("Expect only the permitted schema", 1, schemas.size());
+        assertEquals("Expect the permitted schema", "http://localhost/people/$schema/", schemas.path(0).path("url").asText());
+    }
+
+    @Test
+    public void hashesShouldBeComputedPerPrincipal() throws Exception {
+        endpoints.personSchema = "{\"type\":\"object\",\"title\":\"#currentUser\"}";
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("wendy", "password", "ROLE_USER"));
+        String wendys = catalog().path("schemas").path(0).path("hash").asText();
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("hook", "password", "ROLE_USER"));
+        String hooks = catalog().path("schemas").path(0).path("hash").asText();
+
+        assertNotEquals("Expect a hash of hook's own schema, despite having the same authorities as wendy", wendys, hooks);
+    }
+
+    @Test
+    public void proxiedEndpointsShouldBeCalledThroughTheirProxy() throws Exception {
+        ProxyFactory proxyFactory = new ProxyFactory(endpoints);
+        proxyFactory.addInterface(PersonSchema.class);
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = Collections.singletonMap(schemaMapping("/people/$schema/").build(),
+                new HandlerMethod(proxyFactory.getProxy(), SchemaEndpoints.class.getMethod("describe", Belongs.class)));
+        when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+        controller = new SchemaCatalogController(objectMapper, handlerMapping);
+        controller.setExecutor(Runnable::run);
+
+        JsonNode schemas = catalog().path("schemas");
+
+        assertEquals("Expect the proxied schema to be catalogued", 1, schemas.size());
+        assertEquals("Expect the hash to be the schema's ETag", new SerializedSchema(endpoints.personSchema.getBytes(StandardCharsets.UTF_8)).getETag(),
+                '"' + schemas.path(0).path("hash").asText() + '"');
+    }
+
+    private JsonNode catalog() throws Exception {
+        return objectMapper.readTree(controller.catalog(null).getBody());
+    }
+
+    private static RequestMappingInfo.Builder schemaMapping(String path) {
+        return RequestMappingInfo.paths(path).methods(GET).produces(SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8_VALUE);
+    }
+
+    private HandlerMethod handlerMethod(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return new HandlerMethod(endpoints, SchemaEndpoints.class.getMethod(name, parameterTypes));
+    }
+}
@@ -0,0 +1,54 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @since 18/10/26
+ */
+public class SchemaDialectTest {
+    @Test
+    public void profileParameterShouldSelectDialect() {
+        assertEquals("Expect 2020-12 for its profile", SchemaDialect.DRAFT_2020_12,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"https://json-schema.org/draft/2020-12/schema\"")));
+        assertEquals("Expect draft-03 for its profile", SchemaDialect.DRAFT_03,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"http://json-schema.org/draft-03/schema\"")));
+    }
+
+    @Test
+    public void draft03ShouldBeTheDefault() {
+        assertEquals("Expect draft-03 with no profile", SchemaDialect.DRAFT_03,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json, */*")));
+        assertEquals("Expect draft-03 for an unknown profile", SchemaDialect.DRAFT_03,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"https://json-schema.org/draft/2019-09/schema\"")));
+        assertEquals("Expect draft-03 with no Accept header", SchemaDialect.DRAFT_03, SchemaDialect.negotiate(Collections.emptyList()));
+    }
+
+    @Test
+    public void preferredProfileShouldWin() {
+        assertEquals("Expect the higher quality profile", SchemaDialect.DRAFT_03,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"https://json-schema.org/draft/2020-12/schema\"; q=0.5, "
+                        + "application/schema+json; profile=\"http://json-schema.org/draft-03/schema#\"")));
+    }
+
+    @Test
+    public void refusedProfileShouldBeIgnored() {
+        assertEquals("Expect draft-03 when 2020-12 is refused", SchemaDialect.DRAFT_03,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"https://json-schema.org/draft/2020-12/schema\"; q=0, "
+                        + "application/schema+json")));
+        assertEquals("Expect the next acceptable profile", SchemaDialect.DRAFT_2020_12,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/schema+json; profile=\"http://json-schema.org/draft-03/schema\"; q=0, "
+                        + "application/schema+json; profile=\"https://json-schema.org/draft/2020-12/schema\"; q=0.1")));
+    }
+
+    @Test
+    public void mediaTypeShouldCarryProfile() {
+        assertEquals("Expect profile parameter", "\"https://json-schema.org/draft/2020-12/schema\"",
+                SchemaDialect.DRAFT_2020_12.getMediaType().getParameter("profile"));
+        assertEquals("Expect charset to be kept", "UTF-8", SchemaDialect.DRAFT_2020_12.getMediaType().getCharset().name());
+    }
+}
@@ -0,0 +1,58 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 18/10/26
+ */
+public class SchemaEncodingTest {
+    private static final String SCHEMA = "{\"$schema\":\"http://json-schema.org/draft-03/schema\",\"type\":\"object\","
+            + "\"properties\":{\"name\":{\"type\":\"string\",\"required\":true},\"age\":{\"type\":\"integer\"}}}";
+
+    @Test
+    public void explicitBinaryTypeShouldSelectEncoding() {
+        assertEquals("Expect Smile", SchemaEncoding.SMILE,
+                SchemaEncoding.negotiate(MediaType.parseMediaTypes("application/x-jackson-smile, application/schema+json; q=0.5")));
+        assertEquals("Expect CBOR", SchemaEncoding.CBOR,
+                SchemaEncoding.negotiate(MediaType.parseMediaTypes("application/cbor")));
+    }
+
+    @Test
+    public void jsonShouldBeTheDefault() {
+        assertEquals("Expect JSON for wildcards", SchemaEncoding.JSON, SchemaEncoding.negotiate(MediaType.parseMediaTypes("*/*, application/*")));
+        assertEquals("Expect JSON if preferred", SchemaEncoding.JSON,
+                SchemaEncoding.negotiate(MediaType.parseMediaTypes("application/cbor; q=0.5, application/schema+json")));
+        assertEquals("Expect JSON for a refused binary type", SchemaEncoding.JSON,
+                SchemaEncoding.negotiate(MediaType.parseMediaTypes("application/cbor; q=0")));
+        assertEquals("Expect JSON with no Accept header", SchemaEncoding.JSON, SchemaEncoding.negotiate(Collections.emptyList()));
+    }
+
+    @Test
+    public void profileShouldSelectDialectForBinaryTypes() {
+        assertEquals("Expect 2020-12 for its profile on CBOR", SchemaDialect.DRAFT_2020_12,
+                SchemaDialect.negotiate(MediaType.parseMediaTypes("application/cbor; profile=\"https://json-schema.org/draft/2020-12/schema\"")));
+        assertEquals("Expect the profile on the content type", "\"https://json-schema.org/draft/2020-12/schema\"",
+                SchemaEncoding.SMILE.getMediaType(SchemaDialect.DRAFT_2020_12).getParameter("profile"));
+    }
+
+    @Test
+    public void binaryEncodingsShouldRoundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode schema = objectMapper.readTree(SCHEMA);
+        for (SchemaEncoding encoding : new SchemaEncoding[] { SchemaEncoding.SMILE, SchemaEncoding.CBOR }) {
+            assertTrue("Expect " + encoding + " to be on the test classpath", encoding.isAvailable());
+            ObjectMapper binaryMapper = new ObjectMapper(encoding.getFactory());
+            byte[] encoded = binaryMapper.writeValueAsBytes(schema);
+            assertEquals("Expect the same schema back from " + encoding, schema, binaryMapper.readTree(encoded));
+            assertTrue("Expect " + encoding + " to be smaller than JSON", encoded.length < SCHEMA.length());
+        }
+    }
+}
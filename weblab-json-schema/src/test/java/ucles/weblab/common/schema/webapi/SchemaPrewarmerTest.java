@@ -0,0 +1,74 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Locale.FRANCE;
+import static java.util.Locale.UK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @since 18/10/26
+ */
+public class SchemaPrewarmerTest {
+    private final ResourceSchemaCreator schemaCreator = mock(ResourceSchemaCreator.class);
+
+    @Test
+    public void everyResourceShouldBeWarmedInEveryLocale() throws Exception {
+        SchemaPrewarmer prewarmer = new SchemaPrewarmer(schemaCreator);
+        prewarmer.setLocales(Arrays.asList(UK, FRANCE));
+        prewarmer.setParallelism(2);
+
+        prewarmer.prewarm(Arrays.asList(String.class, Integer.class));
+        prewarmer.getCompletion().get(10, TimeUnit.SECONDS);
+
+        verify(schemaCreator).prewarm(String.class, UK);
+        verify(schemaCreator).prewarm(String.class, FRANCE);
+        verify(schemaCreator).prewarm(Integer.class, UK);
+        verify(schemaCreator).prewarm(Integer.class, FRANCE);
+        assertEquals("Expect a timing for each resource", 2, prewarmer.getTimings().size());
+    }
+
+    @Test
+    public void failureOfOneResourceShouldNotPreventCompletion() throws Exception {
+        doThrow(new IllegalStateException("Broken")).when(schemaCreator).prewarm(eq(String.class), any());
+        SchemaPrewarmer prewarmer = new SchemaPrewarmer(schemaCreator);
+
+        prewarmer.prewarm(Arrays.asList(String.class, Integer.class));
+        prewarmer.getCompletion().get(10, TimeUnit.SECONDS);
+
+        assertTrue("Expect the working resource to be timed", prewarmer.getTimings().containsKey(Integer.class));
+        assertEquals("Expect no timing for the broken resource", 1, prewarmer.getTimings().size());
+    }
+
+    @Test
+    public void onlyTheOwningContextShouldStartWarmUp() throws Exception {
+        ApplicationContext owner = mock(ApplicationContext.class);
+        ApplicationContext child = mock(ApplicationContext.class);
+        when(owner.getBeansOfType(SchemaProvidingController.class)).thenReturn(Collections.emptyMap());
+        SchemaPrewarmer prewarmer = new SchemaPrewarmer(schemaCreator);
+        prewarmer.setApplicationContext(owner);
+
+        prewarmer.onApplicationEvent(new ContextRefreshedEvent(child));
+        assertFalse("Expect a child context's refresh to be ignored", prewarmer.getCompletion().isDone());
+
+        prewarmer.onApplicationEvent(new ContextRefreshedEvent(owner));
+        prewarmer.getCompletion().get(10, TimeUnit.SECONDS);
+        verify(child, never()).getBeansOfType(SchemaProvidingController.class);
+        verify(owner).getBeansOfType(SchemaProvidingController.class);
+    }
+}
@@ -0,0 +1,265 @@
+package ucles.weblab.common.schema.webapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.jsonSchema.types.StringSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.UnionTypeSchema;
+import com.fasterxml.jackson.module.jsonSchema.types.ValueTypeSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ucles.weblab.common.i18n.service.LocalisationService;
+import ucles.weblab.common.i18n.service.impl.LocalisationServiceImpl;
+import ucles.weblab.common.xc.service.CrossContextConversionService;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static java.util.Locale.FRANCE;
+import static java.util.Locale.GERMANY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Mockito.when;
+
+/**
+ * @since 18/10/26
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SchemaSkeletonTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private CrossContextConversionService crossContextConversionService;
+    @Mock
+    private EnumSchemaCreator enumSchemaCreator;
+    private LocalisationService localisationService;
+    private SchemaSkeleton skeleton;
+    private Locale savedLocale;
+
+    @SuppressWarnings("unused")
+    static class Address {
+        @JsonSchemaMetadata(title = "Street", titleKey = "street")
+        private String street;
+
+        public String getStreet() {
+            return street;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Person {
+        @JsonSchema(readOnlyExpression = "#{#currentUser == 'hook'}")
+        private String name;
+        private Address address;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public int getAge() {
+            return age;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Task {
+        @JsonSchema(readOnlyExpression = "#{#currentUser != 'hook'}")
+        private String summary;
+
+        public String getSummary() {
+            return summary;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Project {
+        private List<Task> tasks;
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Pudding {
+        @JsonSchema(enumValues = {
+                @EnumConstant(value = "blueberry", title = "Muffin"),
+                @EnumConstant(value = "gooseberry", title = "Crumble")
+        })
+        private String fruit;
+
+        public String getFruit() {
+            return fruit;
+        }
+    }
+
+    @Before
+    public void init() throws Exception {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("street", FRANCE, "Rue");
+        localisationService = new LocalisationServiceImpl(messageSource);
+
+        skeleton = SchemaSkeleton.generate(Person.class, objectMapper, enumSchemaCreator, crossContextConversionService, localisationService);
+        // save and later reset the locale so we don't leave it around for other tests using this thread
+        savedLocale = LocaleContextHolder.getLocale();
+    }
+
+    @After
+    public void reset() {
+        LocaleContextHolder.setLocale(savedLocale);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void dynamicSlotsShouldBeEvaluatedPerOverlay() {
+        LocaleContextHolder.setLocale(FRANCE);
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema hook = overlayFor("hook");
+        LocaleContextHolder.setLocale(GERMANY);
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema wendy = overlayFor("wendy");
+
+        assertThat(hook.asObjectSchema().getProperties().get("name").getReadonly())
+                .describedAs("readOnlyExpression should be true for hook").isTrue();
+        assertThat(wendy.asObjectSchema().getProperties().get("name").getReadonly())
+                .describedAs("readOnlyExpression should be false for wendy").isFalse();
+        assertThat(street(hook).getTitle()).describedAs("title should be the French from MessageSource").isEqualTo("Rue");
+        assertThat(street(wendy).getTitle()).describedAs("title should default to title annotation if not found").isEqualTo("Street");
+    }
+
+    @Test
+    public void invariantNodesShouldBeSharedBetweenOverlays() {
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema first = overlayFor("hook");
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema second = overlayFor("wendy");
+
+        assertThat(first).describedAs("each overlay should have its own root").isNotSameAs(second);
+        assertThat(first.asObjectSchema().getProperties().get("age"))
+                .describedAs("static property schemas should be shared")
+                .isSameAs(second.asObjectSchema().getProperties().get("age"));
+        assertThat(first.asObjectSchema().getProperties().get("address"))
+                .describedAs("ancestors of dynamic slots should be copied")
+                .isNotSameAs(second.asObjectSchema().getProperties().get("address"));
+        assertThat(first.asObjectSchema().getProperties().keySet())
+                .describedAs("property order should be preserved")
+                .containsExactlyElementsOf(second.asObjectSchema().getProperties().keySet());
+    }
+
+    @Test
+    public void generatedSkeletonShouldRoundTripThroughJson() throws Exception {
+        LocaleContextHolder.setLocale(FRANCE);
+        SchemaSkeleton reloaded = SchemaSkeleton.fromTree(skeleton.toTree(objectMapper), objectMapper);
+
+        assertThat(objectMapper.writeValueAsString(overlayFor(reloaded, "hook")))
+                .describedAs("reloaded skeleton should give the same schema")
+                .isEqualTo(objectMapper.writeValueAsString(overlayFor("hook")));
+    }
+
+    @Test
+    public void streamedSchemaShouldMatchOverlay() throws Exception {
+        LocaleContextHolder.setLocale(FRANCE);
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("currentUser", "hook");
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            skeleton.write(objectMapper, generator, Collections.singletonMap("id", "urn:person"),
+                    new AdditionalConstraintResolver(evaluationContext), crossContextConversionService, localisationService);
+        }
+
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema expected = overlayFor("hook");
+        expected.setId("urn:person");
+        assertThat(objectMapper.readTree(out.toString()))
+                .describedAs("streamed schema should have the same content as the overlay")
+                .isEqualTo(objectMapper.valueToTree(expected));
+    }
+
+    @Test
+    public void dynamicSlotsInArrayItemsShouldBeEvaluated() throws Exception {
+        SchemaSkeleton projectSkeleton = SchemaSkeleton.generate(Project.class, objectMapper, enumSchemaCreator, crossContextConversionService, localisationService);
+        SchemaSkeleton reloaded = SchemaSkeleton.fromTree(projectSkeleton.toTree(objectMapper), objectMapper);
+
+        assertThat(summary(overlayFor(projectSkeleton, "hook")).getReadonly())
+                .describedAs("readOnlyExpression on array items should be false for hook").isFalse();
+        assertThat(summary(overlayFor(projectSkeleton, "wendy")).getReadonly())
+                .describedAs("readOnlyExpression on array items should be true for wendy").isTrue();
+        assertThat(summary(overlayFor(reloaded, "wendy")).getReadonly())
+                .describedAs("reloaded skeleton should keep the slot on array items").isTrue();
+
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("currentUser", "wendy");
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            projectSkeleton.write(objectMapper, generator, Collections.emptyMap(),
+                    new AdditionalConstraintResolver(evaluationContext), crossContextConversionService, localisationService);
+        }
+        assertThat(objectMapper.readTree(out.toString()))
+                .describedAs("streamed schema should evaluate slots on array items")
+                .isEqualTo(objectMapper.valueToTree(overlayFor(projectSkeleton, "wendy")));
+    }
+
+    @Test
+    public void registeredEnumReferencesShouldBeAbsoluteAgainstEachRequest() throws Exception {
+        EnumSchemaRegistry enumSchemaRegistry = new EnumSchemaRegistry();
+        UnionTypeSchema unionSchema = new EnumSchemaCreator.NonBrokenUnionTypeSchema();
+        unionSchema.setElements(new ValueTypeSchema[] { new StringSchema(), new StringSchema() });
+        when(enumSchemaCreator.createEnum(any(), anyMap(), any())).thenReturn(unionSchema);
+        when(enumSchemaCreator.getEnumSchemaRegistry()).thenReturn(enumSchemaRegistry);
+        SchemaSkeleton puddingSkeleton = SchemaSkeleton.fromTree(
+                SchemaSkeleton.generate(Pudding.class, objectMapper, enumSchemaCreator, crossContextConversionService, localisationService)
+                        .toTree(objectMapper), objectMapper);
+        String enumPath = enumSchemaRegistry.referenceTo(enumSchemaRegistry.register(objectMapper.writeValueAsBytes(unionSchema))).toString();
+
+        for (String host : new String[] { "one.example.com", "two.example.com" }) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setServerName(host);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            com.fasterxml.jackson.module.jsonSchema.JsonSchema overlaid = overlayFor(puddingSkeleton, "hook");
+            assertThat(overlaid.asObjectSchema().getProperties().get("fruit").getExtends()[0].get$ref())
+                    .describedAs("enum reference should be absolute against the request's host")
+                    .isEqualTo("http://" + host + enumPath);
+
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                puddingSkeleton.write(objectMapper, generator, Collections.emptyMap(),
+                        new AdditionalConstraintResolver(new StandardEvaluationContext()), crossContextConversionService, localisationService);
+            }
+            assertThat(objectMapper.readTree(out.toString()))
+                    .describedAs("streamed schema should reference the enum as the overlay does")
+                    .isEqualTo(objectMapper.valueToTree(overlaid));
+        }
+    }
+
+    private com.fasterxml.jackson.module.jsonSchema.JsonSchema overlayFor(String currentUser) {
+        return overlayFor(skeleton, currentUser);
+    }
+
+    private com.fasterxml.jackson.module.jsonSchema.JsonSchema overlayFor(SchemaSkeleton skeleton, String currentUser) {
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("currentUser", currentUser);
+        return skeleton.overlay(new AdditionalConstraintResolver(evaluationContext), crossContextConversionService, localisationService);
+    }
+
+    private com.fasterxml.jackson.module.jsonSchema.JsonSchema summary(com.fasterxml.jackson.module.jsonSchema.JsonSchema schema) {
+        return schema.asObjectSchema().getProperties().get("tasks").asArraySchema().getItems().asSingleItems().getSchema()
+                .asObjectSchema().getProperties().get("summary");
+    }
+
+    private com.fasterxml.jackson.module.jsonSchema.types.SimpleTypeSchema street(com.fasterxml.jackson.module.jsonSchema.JsonSchema schema) {
+        return schema.asObjectSchema().getProperties().get("address").asObjectSchema().getProperties().get("street").asSimpleTypeSchema();
+    }
+}
@@ -0,0 +1,83 @@
+package ucles.weblab.common.schema.webapi;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 18/10/26
+ */
+public class SerializedSchemaTest {
+    private static final byte[] SCHEMA = "{\"type\":\"object\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void eTagShouldBeStrongAndDerivedFromContent() {
+        final SerializedSchema first = new SerializedSchema(SCHEMA);
+        final SerializedSchema second = new SerializedSchema(SCHEMA.clone());
+        final SerializedSchema different = new SerializedSchema("{\"type\":\"string\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue("Expect a quoted strong ETag", first.getETag().matches("\"[0-9a-f]{32}\""));
+        assertEquals("Expect the same content to give the same ETag", first.getETag(), second.getETag());
+        assertNotEquals("Expect different content to give a different ETag", first.getETag(), different.getETag());
+    }
+
+    @Test
+    public void responseEntityShouldCarryBytesETagAndContentType() {
+        final SerializedSchema serializedSchema = new SerializedSchema(SCHEMA);
+        final ResponseEntity<byte[]> response = serializedSchema.toResponseEntity();
+
+        assertArrayEquals("Expect the serialized bytes as the body", SCHEMA, response.getBody());
+        assertEquals("Expect the ETag header", serializedSchema.getETag(), response.getHeaders().getETag());
+        assertEquals("Expect the schema content type", SchemaMediaTypes.APPLICATION_SCHEMA_JSON_UTF8,
+                response.getHeaders().getContentType());
+    }
+
+    @Test
+    public void gzipShouldBeServedToClientsWhichAcceptIt() throws IOException {
+        final byte[] large = String.join(",", Collections.nCopies(100, "{\"type\":\"object\"}")).getBytes(StandardCharsets.UTF_8);
+        final SerializedSchema serializedSchema = new SerializedSchema(large);
+        final ResponseEntity<byte[]> response = serializedSchema.toResponseEntity("deflate, gzip;q=0.8", headers -> { });
+
+        assertEquals("Expect gzip content encoding", "gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Expect a distinct ETag for the gzip variant", serializedSchema.getGzippedETag(), response.getHeaders().getETag());
+        assertNotEquals("Expect the gzip ETag to differ", serializedSchema.getETag(), serializedSchema.getGzippedETag());
+        assertArrayEquals("Expect the body to decompress to the schema", large,
+                StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(response.getBody()))));
+        assertSame("Expect the gzipped bytes to be kept", response.getBody(), serializedSchema.getGzippedBytes());
+    }
+
+    @Test
+    public void identityShouldBeServedToClientsWhichDoNotAcceptGzip() {
+        final byte[] large = String.join(",", Collections.nCopies(100, "{\"type\":\"object\"}")).getBytes(StandardCharsets.UTF_8);
+        final ResponseEntity<byte[]> response = new SerializedSchema(large).toResponseEntity("gzip;q=0, *", headers -> { });
+
+        assertNull("Expect no content encoding", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals("Expect the identity bytes", large, response.getBody());
+        assertNull("Expect small schemas not to be compressed",
+                new SerializedSchema(SCHEMA).toResponseEntity("gzip", headers -> { }).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void acceptEncodingShouldBeParsed() {
+        assertTrue("Expect gzip", SerializedSchema.acceptsGzip("gzip, deflate, br"));
+        assertTrue("Expect wildcard", SerializedSchema.acceptsGzip("br;q=1.0, *;q=0.1"));
+        assertFalse("Expect gzip refused", SerializedSchema.acceptsGzip("gzip;q=0, *"));
+        assertFalse("Expect identity only", SerializedSchema.acceptsGzip("identity"));
+        assertFalse("Expect no header", SerializedSchema.acceptsGzip(null));
+    }
+}
@@ -1,5 +1,6 @@
 package ucles.weblab.common.schema.webapi;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,6 +26,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.net.URI;
@@ -34,6 +36,7 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
@@ -47,6 +50,8 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -131,7 +136,7 @@ public class SuperSchemaFactoryWrapperTest {
         StringSchema enumSchema = schemaFactory.stringSchema();
         enumSchema.setEnums(Arrays.stream(annotation.enumValues()).map(EnumConstant::value).collect(Collectors.toCollection(HashSet<String>::new)));
 
-        when(enumSchemaCreator.createEnum(anyMap(), any())).thenReturn(enumSchema);
+        when(enumSchemaCreator.createEnum(any(), anyMap(), any())).thenReturn(enumSchema);
 
 
         ValueTypeSchema baseSchema = schemaFactory.stringSchema();
@@ -154,7 +159,7 @@ public class SuperSchemaFactoryWrapperTest {
         enumSchema.setEnums(Arrays.stream(annotation.enumValues()).map(EnumConstant::value).collect(Collectors.toCollection(HashSet<String>::new)));
         enumSchema.setTitle(Arrays.stream(annotation.enumValues()).findFirst().map(EnumConstant::title).get());
 
-        when(enumSchemaCreator.createEnum(anyMap(), any())).thenReturn(enumSchema);
+        when(enumSchemaCreator.createEnum(any(), anyMap(), any())).thenReturn(enumSchema);
 
         ValueTypeSchema baseSchema = schemaFactory.stringSchema();
         superSchemaFactoryWrapper.addEnumConstraints(baseSchema, prop);
@@ -181,7 +186,7 @@ public class SuperSchemaFactoryWrapperTest {
             return enumValue;
         }).toArray(ValueTypeSchema[]::new));
 
-        when(enumSchemaCreator.createEnum(anyMap(), any())).thenReturn(unionSchema);
+        when(enumSchemaCreator.createEnum(any(), anyMap(), any())).thenReturn(unionSchema);
 
         ValueTypeSchema baseSchema = schemaFactory.stringSchema();
         superSchemaFactoryWrapper.addEnumConstraints(baseSchema, prop);
@@ -215,7 +220,7 @@ public class SuperSchemaFactoryWrapperTest {
         UnionTypeSchema unionSchema = new EnumSchemaCreator.NonBrokenUnionTypeSchema();
         unionSchema.setElements(new ValueTypeSchema[]{firstEnumValue, secondEnumValue});
 
-        when(enumSchemaCreator.createEnum(anyMap(), any())).thenReturn(unionSchema);
+        when(enumSchemaCreator.createEnum(any(), anyMap(), any())).thenReturn(unionSchema);
         ValueTypeSchema baseSchema = schemaFactory.stringSchema();
         superSchemaFactoryWrapper.addEnumConstraints(baseSchema, prop);
         Assume.assumeNotNull("Expect schema extension", baseSchema.getExtends());
@@ -265,6 +270,125 @@ public class SuperSchemaFactoryWrapperTest {
                 .isEqualTo("The current username");
     }
 
+    @SuppressWarnings("unused")
+    static class Address {
+        public String street;
+        public Address previous;
+    }
+
+    @SuppressWarnings("unused")
+    static class Customer {
+        public String name;
+        public Address billing;
+        @JsonSchemaMetadata(title = "Delivery address")
+        public Address shipping;
+        public List<Address> history;
+        public Customer referrer;
+    }
+
+    @SuppressWarnings("unused")
+    static class Lock {
+        @JsonSchema(readOnlyExpression = "#{#currentUsername != 'wendy'}")
+        public String code;
+    }
+
+    @SuppressWarnings("unused")
+    static class Door {
+        public Lock lock;
+    }
+
+    @Test
+    public void nestedTypesShouldUseTheConfiguredExpressionParser() throws Exception {
+        CachingExpressionParser expressionParser = spy(new CachingExpressionParser());
+        SuperSchemaFactoryWrapper wrapper = new SuperSchemaFactoryWrapper(crossContextConversionService,
+                                                                          enumSchemaCreator,
+                                                                          objectMapper,
+                                                                          new StandardEvaluationContext(),
+                                                                          new LocalisationServiceImpl(new StaticMessageSource()),
+                                                                          null,
+                                                                          false,
+                                                                          expressionParser);
+        objectMapper.acceptJsonFormatVisitor(Door.class, wrapper);
+        wrapper.finalSchema();
+
+        verify(expressionParser).parseTemplate("#{#currentUsername != 'wendy'}");
+    }
+
+    private static final String CUSTOMER_SCHEMA_ID = "http://localhost/customers/$schema/";
+
+    private SchemaSkeleton customerSkeleton(boolean referenceRepeatedTypes) throws Exception {
+        return SchemaSkeleton.generate(Customer.class, objectMapper, enumSchemaCreator, crossContextConversionService,
+                new LocalisationServiceImpl(new StaticMessageSource()), referenceRepeatedTypes, AdditionalConstraintResolver.DEFAULT_EXPRESSION_PARSER);
+    }
+
+    private JsonNode describeCustomer(boolean referenceRepeatedTypes) throws Exception {
+        SchemaSkeleton skeleton = customerSkeleton(referenceRepeatedTypes);
+        com.fasterxml.jackson.module.jsonSchema.JsonSchema schema = skeleton.overlay(new AdditionalConstraintResolver(new StandardEvaluationContext()),
+                crossContextConversionService, new LocalisationServiceImpl(new StaticMessageSource()));
+        schema.setId(CUSTOMER_SCHEMA_ID);
+        skeleton.resolveReferences(schema, CUSTOMER_SCHEMA_ID);
+        return objectMapper.valueToTree(schema);
+    }
+
+    @Test
+    public void repeatedTypesShouldBeDefinedOnceAndReferencedAbsolutely() throws Exception {
+        JsonNode schema = describeCustomer(true);
+        String addressRef = CUSTOMER_SCHEMA_ID + "#/definitions/Address";
+
+        assertThat(schema.at("/definitions/Address/properties/street").isMissingNode())
+                .describedAs("address should be defined in full").isFalse();
+        assertThat(schema.at("/definitions/Address/id").isMissingNode())
+                .describedAs("definition should not keep the order of a use").isTrue();
+        assertThat(schema.at("/properties/billing/properties").isMissingNode())
+                .describedAs("first address should not be described in place").isTrue();
+        assertThat(schema.at("/properties/billing/extends/0/$ref").asText())
+                .describedAs("first address should refer to the definition").isEqualTo(addressRef);
+        assertThat(schema.at("/properties/billing/id").asText())
+                .describedAs("first address should keep its order").startsWith("order:");
+        assertThat(schema.at("/properties/shipping/extends/0/$ref").asText())
+                .describedAs("second address should refer to the definition").isEqualTo(addressRef);
+        assertThat(schema.at("/properties/shipping/title").asText())
+                .describedAs("second address should keep its own title").isEqualTo("Delivery address");
+        assertThat(schema.at("/definitions/Address/title").isMissingNode())
+                .describedAs("definition should not take the title of a use").isTrue();
+        assertThat(schema.at("/properties/shipping/id").asText())
+                .describedAs("second address should keep its order").startsWith("order:");
+        assertThat(schema.at("/properties/history/items/extends/0/$ref").asText())
+                .describedAs("array items should refer to the definition").isEqualTo(addressRef);
+        assertThat(schema.at("/definitions/Address/properties/previous/extends/0/$ref").asText())
+                .describedAs("recursive address should refer to the definition").isEqualTo(addressRef);
+        assertThat(schema.at("/properties/referrer/extends/0/$ref").asText())
+                .describedAs("recursive resource should refer to the root").isEqualTo(CUSTOMER_SCHEMA_ID + "#");
+        for (JsonNode ref : schema.findValues("$ref")) {
+            assertThat(ref.asText()).describedAs("every reference should be absolute").startsWith(CUSTOMER_SCHEMA_ID + "#");
+            assertThat(schema.at(ref.asText().substring(CUSTOMER_SCHEMA_ID.length() + 1)).isMissingNode())
+                    .describedAs("reference " + ref + " should resolve").isFalse();
+        }
+    }
+
+    @Test
+    public void repeatedTypesShouldBeReferencedAbsolutelyWhenWritten() throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            customerSkeleton(true).write(objectMapper, generator, Collections.singletonMap("id", CUSTOMER_SCHEMA_ID),
+                    new AdditionalConstraintResolver(new StandardEvaluationContext()), crossContextConversionService,
+                    new LocalisationServiceImpl(new StaticMessageSource()));
+        }
+        assertThat(objectMapper.readTree(out.toString()))
+                .describedAs("streamed schema should reference repeated types as the overlaid one does")
+                .isEqualTo(describeCustomer(true));
+    }
+
+    @Test
+    public void repeatedTypesShouldNotBeReferencedByDefault() throws Exception {
+        JsonNode schema = describeCustomer(false);
+
+        assertThat(schema.at("/properties/shipping/extends").isMissingNode())
+                .describedAs("second address should not extend a reference").isTrue();
+        assertThat(schema.findValuesAsText("$ref")).describedAs("references should be left to Jackson")
+                .allMatch(ref -> ref.startsWith("urn:jsonschema:"));
+    }
+
     /**
          * Parses inline data URIs as generated by MS Word's XML export and FO
          * stylesheet.